@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Measures the time to the first analysis result of the command-line interface
+# in each start-up mode. Every run is a fresh JVM that analyzes one file, so the
+# wall-clock time from launch to exit covers JVM start, context start-up (if
+# any), catalog loading and the first analysis.
+#
+# Usage: scripts/startup-benchmark.sh [runs] [file]
+#   runs  number of runs per mode, 5 by default; the first run is a warm-up
+#         for the page cache and is not counted
+#   file  file to analyze, database/db.sql by default
+#
+# Prints the median and the individual times in milliseconds for each mode.
+# The result cache of the Spring modes is kept in a temporary directory, so
+# every mode starts with an empty cache on the first run.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+runs=${1:-5}
+file=$(realpath "${2:-src/main/resources/database/db.sql}")
+
+./gradlew -q jar cdsArchive
+classpath=$(./gradlew -q printCliClasspath)
+archive=build/cds/filerecovery-cli.jsa
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+
+measure() {
+    local name=$1
+    shift
+    local times=()
+    for ((i = 0; i <= runs; i++)); do
+        local start end
+        start=$(date +%s%N)
+        java -cp "$classpath" "$@" analyze "$file" > /dev/null 2>> "$work/stderr.log" || true
+        end=$(date +%s%N)
+        if ((i > 0)); then
+            times+=($(((end - start) / 1000000)))
+        fi
+    done
+    local sorted
+    sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    printf '%-24s median %6d ms   runs: %s\n' "$name" "${sorted[$((runs / 2))]}" "${times[*]}"
+}
+
+cache="-Danalysis.cache.url=jdbc:h2:file:$work/cache"
+
+measure "spring"                "$cache" org.example.cli.HeadlessApplication
+measure "fast-start"            "$cache" -Dspring.profiles.active=fast-start org.example.cli.HeadlessApplication
+measure "fast-start + AppCDS"   "$cache" -Dspring.profiles.active=fast-start \
+    "-XX:SharedArchiveFile=$archive" -Xshare:auto org.example.cli.HeadlessApplication
+measure "direct"                org.example.cli.DirectCli
+measure "direct + AppCDS"       "-XX:SharedArchiveFile=$archive" -Xshare:auto org.example.cli.DirectCli
+
+echo "CPUs: $(nproc), java: $(java -version 2>&1 | head -n 1)"
@@ -0,0 +1,118 @@
+package org.example.benchmark;
+
+import org.example.model.FileSignature;
+import org.example.service.FileAnalyzeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сквозной бенчмарк {@link FileAnalyzeService#analyzeFile}.
+ *
+ * Поднимает Spring-контекст с сервисами и каталогом подписей из
+ * {@code database/db.sql} в профиле {@code headless}, без JavaFX и веб-сервера.
+ * Журналирование сервисов понижено до ERROR, чтобы измерялся анализ,
+ * а не запись журнала. Параметр {@code cache} включает постоянный кэш
+ * результатов во временном каталоге: при включенном кэше измеряется
+ * повторный анализ неизменного файла.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnalyzeFileBenchmark {
+    /**
+     * Размер файла в байтах.
+     */
+    @Param({"4096", "1048576"})
+    public int fileSize;
+
+    /**
+     * Вид содержимого файла.
+     */
+    @Param({"jpeg", "ascii", "binary"})
+    public String content;
+
+    /**
+     * Признак включения постоянного кэша результатов.
+     */
+    @Param({"false", "true"})
+    public boolean cache;
+
+    /**
+     * Контекст приложения.
+     */
+    private ConfigurableApplicationContext context;
+
+    /**
+     * Сервис анализа файлов.
+     */
+    private FileAnalyzeService analyzeService;
+
+    /**
+     * Каталог базы кэша.
+     */
+    private Path cacheDir;
+
+    /**
+     * Анализируемый файл.
+     */
+    private File file;
+
+    /**
+     * Конфигурация контекста бенчмарка: сервисы и конфигурация приложения без контроллеров.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @ComponentScan({"org.example.config", "org.example.monitoring", "org.example.service"})
+    public static class BenchmarkContext {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cacheDir = Files.createTempDirectory("filerecovery-bench-cache-");
+        context = new SpringApplicationBuilder(BenchmarkContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .profiles("headless")
+                .run("--analysis.cache.enabled=" + cache,
+                        "--analysis.cache.url=jdbc:h2:file:" + cacheDir.resolve("cache"),
+                        "--logging.level.org.example=ERROR",
+                        "--logging.file.name=");
+        analyzeService = context.getBean(FileAnalyzeService.class);
+        file = BenchmarkData.file(fileSize, content).toFile();
+        analyzeService.analyzeFile(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(file.toPath());
+        FileSystemUtils.deleteRecursively(cacheDir);
+    }
+
+    @Benchmark
+    public FileSignature analyzeFile() {
+        return analyzeService.analyzeFile(file);
+    }
+}
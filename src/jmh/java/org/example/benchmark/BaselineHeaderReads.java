@@ -0,0 +1,61 @@
+package org.example.benchmark;
+
+import org.example.util.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Прежние способы чтения заголовка файла, с которыми сравнивается
+ * {@link org.example.analysis.HeaderReader}.
+ *
+ * Приложение эти способы больше не использует; они сохранены только
+ * как точки отсчета для бенчмарков.
+ */
+final class BaselineHeaderReads {
+    private BaselineHeaderReads() {
+    }
+
+    /**
+     * Читает заголовок файла в новый буфер и преобразует его в hex-строку.
+     *
+     * @param file файл, для которого требуется получить сигнатуру
+     * @param bytesToRead количество байт для чтения в сигнатуру
+     * @return строка hex-сигнатуры или null, если файл пуст или не удалось его прочитать
+     */
+    static String hexSignature(File file, int bytesToRead) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(bytesToRead);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer.hasRemaining() ? FileUtils.bytesToHex(buffer, 0, buffer.limit()) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Читает заголовок файла в новый массив.
+     *
+     * @param file файл, заголовок которого требуется прочитать
+     * @param bytesToRead максимальное количество байт для чтения
+     * @return прочитанные байты (может быть меньше {@code bytesToRead} для коротких файлов)
+     *         или null, если файл пуст или не удалось его прочитать
+     */
+    static byte[] header(File file, int bytesToRead) {
+        try (FileInputStream fis = new FileInputStream(file)) {
+            byte[] header = fis.readNBytes(bytesToRead);
+            return header.length == 0 ? null : header;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.benchmark;
+
+import org.example.model.FileSignature;
+import org.example.model.FileType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генератор тестовых данных для бенчмарков.
+ *
+ * Создает каталоги подписей заданного размера и временные файлы
+ * заданного размера и вида содержимого. Генераторы случайных чисел
+ * инициализируются фиксированным значением, поэтому данные одинаковы
+ * между запусками и коммитами.
+ */
+final class BenchmarkData {
+    /**
+     * Начальное значение генератора случайных чисел.
+     */
+    private static final long SEED = 0x5EEDL;
+
+    /**
+     * Строка для заполнения текстовых файлов UTF-8 (кириллица и ASCII).
+     */
+    private static final String UTF8_LINE = "Восстановление файлов: signature analysis, строка 42\n";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Создает каталог подписей заданного размера.
+     *
+     * Каталог начинается с реальных подписей распространенных форматов,
+     * включая подписи со смещением и дополнительной подписью, и дополняется
+     * случайными подписями длиной от 3 до 8 байтов.
+     *
+     * @param size количество подписей
+     * @return каталог подписей
+     */
+    static List<FileSignature> catalog(int size) {
+        List<FileSignature> signatures = new ArrayList<>(size);
+        signatures.add(signature("jpg", "FFD8FF", 0, null, null, FileType.IMAGE));
+        signatures.add(signature("png", "89504E470D0A1A0A", 0, null, null, FileType.IMAGE));
+        signatures.add(signature("gif", "474946", 0, null, null, FileType.IMAGE));
+        signatures.add(signature("pdf", "25504446", 0, null, null, FileType.DOCUMENT));
+        signatures.add(signature("zip", "504B0304", 0, null, null, FileType.ARCHIVE));
+        signatures.add(signature("webp", "52494646", 0, "57454250", 8, FileType.IMAGE));
+        signatures.add(signature("wav", "52494646", 0, "57415645", 8, FileType.AUDIO));
+        signatures.add(signature("mp4", "66747970", 4, null, null, FileType.VIDEO));
+        signatures.add(signature("tar", "7573746172", 257, null, null, FileType.ARCHIVE));
+
+        Random random = new Random(SEED);
+        HexFormat hex = HexFormat.of().withUpperCase();
+        while (signatures.size() < size) {
+            byte[] pattern = new byte[3 + random.nextInt(6)];
+            random.nextBytes(pattern);
+            signatures.add(signature("x" + signatures.size(), hex.formatHex(pattern), 0, null, null, FileType.UNKNOWN));
+        }
+        return signatures.subList(0, Math.min(size, signatures.size()));
+    }
+
+    /**
+     * Возвращает заголовок файла указанного вида.
+     *
+     * @param kind вид заголовка: {@code jpeg}, {@code riff}, {@code tar} или {@code unknown}
+     * @return заголовок длиной 512 байтов
+     */
+    static byte[] header(String kind) {
+        byte[] header = new byte[512];
+        new Random(SEED).nextBytes(header);
+        byte[] prefix = switch (kind) {
+            case "jpeg" -> HexFormat.of().parseHex("FFD8FFE000104A464946");
+            case "riff" -> "RIFF\u0010\u0000\u0000\u0000WAVEfmt ".getBytes(StandardCharsets.ISO_8859_1);
+            case "tar" -> {
+                System.arraycopy("ustar".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 5);
+                yield new byte[0];
+            }
+            case "unknown" -> new byte[]{0x00, 0x13, 0x37};
+            default -> throw new IllegalArgumentException("Unknown header kind: " + kind);
+        };
+        System.arraycopy(prefix, 0, header, 0, prefix.length);
+        return header;
+    }
+
+    /**
+     * Создает временный файл заданного размера.
+     *
+     * @param size размер файла в байтах
+     * @param content вид содержимого: {@code ascii}, {@code utf8}, {@code binary} или {@code jpeg}
+     * @return путь к созданному файлу
+     * @throws IOException если не удалось записать файл
+     */
+    static Path file(int size, String content) throws IOException {
+        byte[] data = new byte[size];
+        switch (content) {
+            case "ascii" -> fill(data, "The quick brown fox jumps over the lazy dog 0123456789\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            case "utf8" -> fill(data, UTF8_LINE.getBytes(StandardCharsets.UTF_8));
+            case "binary" -> new Random(SEED).nextBytes(data);
+            case "jpeg" -> {
+                new Random(SEED).nextBytes(data);
+                byte[] prefix = header("jpeg");
+                System.arraycopy(prefix, 0, data, 0, Math.min(prefix.length, size));
+            }
+            default -> throw new IllegalArgumentException("Unknown content kind: " + content);
+        }
+        Path file = Files.createTempFile("filerecovery-bench-", "." + content);
+        file.toFile().deleteOnExit();
+        Files.write(file, data);
+        return file;
+    }
+
+    /**
+     * Заполняет массив повторяющимся образцом.
+     *
+     * @param data заполняемый массив
+     * @param pattern образец
+     */
+    private static void fill(byte[] data, byte[] pattern) {
+        for (int i = 0; i < data.length; i += pattern.length) {
+            System.arraycopy(pattern, 0, data, i, Math.min(pattern.length, data.length - i));
+        }
+    }
+
+    /**
+     * Создает подпись файла.
+     *
+     * @param extension расширение
+     * @param hex hex-сигнатура
+     * @param offset смещение сигнатуры
+     * @param subHex дополнительная подпись или {@code null}
+     * @param subOffset смещение дополнительной подписи или {@code null}
+     * @param type тип файла
+     * @return подпись файла
+     */
+    private static FileSignature signature(String extension, String hex, int offset, String subHex, Integer subOffset,
+                                           FileType type) {
+        FileSignature signature = new FileSignature();
+        signature.setExtension(extension);
+        signature.setHexSignature(hex);
+        signature.setSignatureOffset(offset);
+        signature.setSubHexSignature(subHex);
+        signature.setSubSignatureOffset(subOffset);
+        signature.setFileType(type);
+        return signature;
+    }
+}
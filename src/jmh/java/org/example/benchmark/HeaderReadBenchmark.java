@@ -0,0 +1,81 @@
+package org.example.benchmark;
+
+import org.example.analysis.FileHeader;
+import org.example.analysis.HeaderReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк чтения заголовка файла.
+ *
+ * Сравнивает чтение заголовка с преобразованием в hex-строку
+ * ({@link BaselineHeaderReads#hexSignature}), чтение сырых байтов
+ * в новый массив ({@link BaselineHeaderReads#header}) и чтение
+ * в буфер из пула ({@link HeaderReader}), используемое при анализе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HeaderReadBenchmark {
+    /**
+     * Размер файла в байтах.
+     */
+    @Param({"4096", "1048576"})
+    public int fileSize;
+
+    /**
+     * Количество читаемых байтов заголовка.
+     */
+    @Param({"16", "262"})
+    public int headerLength;
+
+    /**
+     * Читатель заголовков с пулом буферов.
+     */
+    private final HeaderReader headerReader = new HeaderReader(4096, 16);
+
+    /**
+     * Файл с данными.
+     */
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkData.file(fileSize, "jpeg").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public String hexSignature() {
+        return BaselineHeaderReads.hexSignature(file, headerLength);
+    }
+
+    @Benchmark
+    public byte[] header() {
+        return BaselineHeaderReads.header(file, headerLength);
+    }
+
+    @Benchmark
+    public byte probe() throws IOException {
+        try (FileHeader header = headerReader.read(file.toPath(), headerLength)) {
+            return header.get(0);
+        }
+    }
+}
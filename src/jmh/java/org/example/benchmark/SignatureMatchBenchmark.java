@@ -0,0 +1,73 @@
+package org.example.benchmark;
+
+import org.example.analysis.SignatureMatcher;
+import org.example.model.FileSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк сопоставления заголовка с каталогом подписей.
+ *
+ * Измеряет {@link SignatureMatcher#match} для каталогов разного размера
+ * и заголовков, совпадающих с подписью в начале файла, с дополнительной
+ * подписью, с подписью со смещением и не совпадающих ни с одной подписью,
+ * а также стоимость компиляции каталога.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SignatureMatchBenchmark {
+    /**
+     * Количество подписей в каталоге.
+     */
+    @Param({"32", "256", "2048"})
+    public int catalogSize;
+
+    /**
+     * Вид заголовка файла.
+     */
+    @Param({"jpeg", "riff", "tar", "unknown"})
+    public String header;
+
+    /**
+     * Каталог подписей.
+     */
+    private List<FileSignature> catalog;
+
+    /**
+     * Скомпилированный каталог.
+     */
+    private SignatureMatcher matcher;
+
+    /**
+     * Заголовок файла.
+     */
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkData.catalog(catalogSize);
+        matcher = SignatureMatcher.compile(catalog);
+        data = BenchmarkData.header(header);
+    }
+
+    @Benchmark
+    public FileSignature match() {
+        return matcher.match(data, data.length);
+    }
+
+    @Benchmark
+    public List<FileSignature> matchAll() {
+        return matcher.matchAll(data, data.length);
+    }
+}
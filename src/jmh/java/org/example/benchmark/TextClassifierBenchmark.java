@@ -0,0 +1,81 @@
+package org.example.benchmark;
+
+import org.example.analysis.TextClassification;
+import org.example.analysis.TextClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк определения текстового содержимого.
+ *
+ * Измеряет {@link TextClassifier#classify(Path)} для файлов разного
+ * размера и вида содержимого: малые файлы проверяются целиком,
+ * большие — по выборке из начала, середины и конца.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TextClassifierBenchmark {
+    /**
+     * Размер файла в байтах.
+     */
+    @Param({"1024", "65536", "16777216"})
+    public int fileSize;
+
+    /**
+     * Вид содержимого файла.
+     */
+    @Param({"ascii", "utf8", "binary"})
+    public String content;
+
+    /**
+     * Классификатор с размером окна по умолчанию.
+     */
+    private final TextClassifier classifier = new TextClassifier(4096);
+
+    /**
+     * Файл с данными.
+     */
+    private Path file;
+
+    /**
+     * Начало файла в памяти.
+     */
+    private byte[] head;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkData.file(fileSize, content);
+        try (var in = Files.newInputStream(file)) {
+            head = in.readNBytes(classifier.getWindowSize());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public TextClassification classifyFile() throws IOException {
+        return classifier.classify(file);
+    }
+
+    @Benchmark
+    public TextClassification classifyBytes() {
+        return classifier.classify(head, head.length);
+    }
+}
@@ -11,7 +11,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
-import org.springframework.cache.annotation.EnableCaching;
 
 import java.io.IOException;
 
@@ -20,7 +19,6 @@ import java.io.IOException;
  * Отвечает за инициализацию и запуск JavaFX и Spring Boot приложения.
  */
 @SpringBootApplication
-@EnableCaching
 public class Main extends Application {
     /**
      * Логгер для записи информационных и отладочных сообщений.
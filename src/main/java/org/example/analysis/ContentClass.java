@@ -0,0 +1,37 @@
+package org.example.analysis;
+
+/**
+ * Класс содержимого данных без известной подписи.
+ *
+ * Определяется {@link EntropyClassifier} по энтропии Шеннона
+ * и гистограмме байтов и уточняет результат
+ * {@link org.example.model.FileType#UNKNOWN}: показывает, есть ли
+ * в данных что восстанавливать.
+ */
+public enum ContentClass {
+    /**
+     * Данные, неотличимые от случайных: зашифрованные, заполненные случайными байтами
+     * или сжатые gzip, xz и подобными алгоритмами без сохранившегося заголовка.
+     */
+    RANDOM,
+
+    /**
+     * Сжатые данные: энтропия близка к максимальной, но распределение байтов неравномерно.
+     */
+    COMPRESSED,
+
+    /**
+     * Данные, похожие на текст в однобайтовой или многобайтовой кодировке.
+     */
+    TEXT,
+
+    /**
+     * Разреженные данные: почти все байты нулевые или равны {@code 0xFF}.
+     */
+    SPARSE,
+
+    /**
+     * Структурированные двоичные данные без известной подписи.
+     */
+    BINARY
+}
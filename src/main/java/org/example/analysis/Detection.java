@@ -0,0 +1,50 @@
+package org.example.analysis;
+
+import org.example.model.FileSignature;
+
+import java.nio.charset.Charset;
+
+/**
+ * Результат определителя формата файла.
+ *
+ * Неуверенный результат, например подпись, общая для нескольких форматов,
+ * может быть уточнен следующими определителями каскада.
+ *
+ * @param signature найденная подпись или {@code null}
+ * @param encoding кодировка текстового файла или {@code null}
+ * @param content класс содержимого файла без подписи или {@code null}
+ * @param confident {@code true}, если результат не требует уточнения
+ */
+public record Detection(FileSignature signature, Charset encoding, ContentClass content, boolean confident) {
+    /**
+     * Создает результат с найденной подписью.
+     *
+     * @param signature подпись файла
+     * @param confident {@code true}, если подпись однозначна
+     * @return результат
+     */
+    public static Detection of(FileSignature signature, boolean confident) {
+        return new Detection(signature, null, null, confident);
+    }
+
+    /**
+     * Создает уверенный результат для текстового файла.
+     *
+     * @param signature подпись текстового файла
+     * @param encoding кодировка текста
+     * @return результат
+     */
+    public static Detection text(FileSignature signature, Charset encoding) {
+        return new Detection(signature, encoding, null, true);
+    }
+
+    /**
+     * Создает уверенный результат для файла без подписи.
+     *
+     * @param content класс содержимого
+     * @return результат
+     */
+    public static Detection content(ContentClass content) {
+        return new Detection(null, null, content, true);
+    }
+}
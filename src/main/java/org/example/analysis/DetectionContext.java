@@ -0,0 +1,18 @@
+package org.example.analysis;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Открытый файл, общий для всех определителей каскада.
+ *
+ * @param path путь к файлу
+ * @param channel канал для позиционного чтения
+ * @param size размер файла в байтах
+ * @param header буфер с байтами файла от позиции 0 до своего предела;
+ *               читается только абсолютными методами
+ * @param catalog снимок каталога подписей
+ */
+public record DetectionContext(Path path, FileChannel channel, long size, ByteBuffer header, SignatureCatalog catalog) {
+}
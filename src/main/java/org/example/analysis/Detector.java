@@ -0,0 +1,98 @@
+package org.example.analysis;
+
+import java.io.IOException;
+
+/**
+ * Определитель формата файла, подключаемый к {@link DetectorCascade}.
+ *
+ * Каждый определитель объявляет, сколько байтов начала файла ему нужно
+ * в общем заголовке и во сколько обходится его запуск. Каскад запускает
+ * определители от дешевых к дорогим и останавливается на первом уверенном
+ * результате, поэтому новый формат можно добавить, не замедляя анализ
+ * файлов, которые определяются раньше.
+ *
+ * Реализации должны быть потокобезопасными и не изменять заголовок.
+ */
+public interface Detector {
+    /**
+     * Стоимость определителя, которому достаточно общего заголовка.
+     */
+    int COST_HEADER = 0;
+
+    /**
+     * Стоимость определителя, читающего несколько окон фиксированного размера.
+     */
+    int COST_SAMPLE = 10;
+
+    /**
+     * Стоимость определителя, разбирающего внутреннюю структуру файла.
+     */
+    int COST_STRUCTURE = 20;
+
+    /**
+     * Стоимость определителя, дающего результат для любого файла; такой определитель запускается последним.
+     */
+    int COST_FALLBACK = 100;
+
+    /**
+     * Возвращает имя определителя для журнала и метрик.
+     *
+     * @return короткое имя латиницей
+     */
+    String getName();
+
+    /**
+     * Возвращает условную стоимость запуска; определители с меньшей стоимостью запускаются раньше.
+     *
+     * @return стоимость, обычно одна из констант {@code COST_*}
+     */
+    int getCost();
+
+    /**
+     * Возвращает версию алгоритма определителя.
+     *
+     * Версию нужно увеличивать при каждом изменении, от которого может
+     * измениться результат для того же файла: она входит в отпечаток
+     * каскада, и записи кэша результатов с другим отпечатком не используются.
+     *
+     * @return номер версии
+     */
+    int getVersion();
+
+    /**
+     * Возвращает параметры, от которых зависит результат определителя.
+     *
+     * Параметры входят в отпечаток каскада вместе с именем и версией.
+     *
+     * @return параметры в виде {@code имя=значение} через запятую или пустая строка, если их нет
+     */
+    default String getConfiguration() {
+        return "";
+    }
+
+    /**
+     * Возвращает количество байтов начала файла, которое определитель ожидает в общем заголовке.
+     *
+     * @param catalog снимок каталога подписей
+     * @return длина заголовка в байтах
+     */
+    int getHeaderLength(SignatureCatalog catalog);
+
+    /**
+     * Проверяет, нужен ли определитель при текущем результате каскада.
+     *
+     * @param current результат предыдущих определителей или {@code null}, если его нет
+     * @return {@code true}, если определитель нужно запустить
+     */
+    boolean appliesTo(Detection current);
+
+    /**
+     * Определяет или уточняет формат файла.
+     *
+     * @param context открытый файл и его заголовок
+     * @param current результат предыдущих определителей или {@code null}
+     * @return новый результат, {@code current}, если уточнить нечего, или {@code null}
+     * @throws IOException если не удалось прочитать файл
+     */
+    Detection detect(DetectionContext context, Detection current) throws IOException;
+}
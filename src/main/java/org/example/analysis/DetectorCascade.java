@@ -0,0 +1,142 @@
+package org.example.analysis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Каскад определителей формата, упорядоченных по стоимости.
+ *
+ * Определители запускаются от дешевых к дорогим (при равной стоимости —
+ * в порядке передачи), каждый только если он применим к текущему результату
+ * ({@link Detector#appliesTo}). Каскад останавливается на первом уверенном
+ * результате, поэтому дорогие проверки, например разбор центрального
+ * каталога ZIP, выполняются только для неоднозначных подписей. Экземпляр
+ * неизменяем и потокобезопасен, если потокобезопасны определители.
+ */
+public final class DetectorCascade {
+    /**
+     * Определители в порядке запуска.
+     */
+    private final List<Detector> detectors;
+
+    /**
+     * Отпечаток состава каскада.
+     */
+    private final String fingerprint;
+
+    /**
+     * Создает каскад.
+     *
+     * @param detectors определители в любом порядке
+     */
+    public DetectorCascade(Collection<? extends Detector> detectors) {
+        List<Detector> ordered = new ArrayList<>(detectors);
+        ordered.sort(Comparator.comparingInt(Detector::getCost));
+        this.detectors = List.copyOf(ordered);
+        this.fingerprint = fingerprint(this.detectors);
+    }
+
+    /**
+     * Вычисляет отпечаток каскада по имени, версии и параметрам каждого определителя в порядке запуска.
+     *
+     * @param detectors определители в порядке запуска
+     * @return SHA-256 в hex-представлении
+     */
+    private static String fingerprint(List<Detector> detectors) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Detector detector : detectors) {
+                String row = String.join("\u0000",
+                        detector.getName(),
+                        String.valueOf(detector.getVersion()),
+                        detector.getConfiguration());
+                digest.update(row.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Возвращает отпечаток каскада.
+     *
+     * Отпечаток меняется при добавлении или удалении определителя,
+     * изменении его версии или параметров, поэтому по нему проверяется,
+     * получен ли сохраненный результат тем же каскадом.
+     *
+     * @return SHA-256 в hex-представлении
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Возвращает определители в порядке запуска.
+     *
+     * @return неизменяемый список определителей
+     */
+    public List<Detector> getDetectors() {
+        return detectors;
+    }
+
+    /**
+     * Возвращает количество байтов начала файла, достаточное всем определителям.
+     *
+     * @param catalog снимок каталога подписей
+     * @return длина заголовка в байтах
+     */
+    public int getHeaderLength(SignatureCatalog catalog) {
+        int length = 0;
+        for (Detector detector : detectors) {
+            length = Math.max(length, detector.getHeaderLength(catalog));
+        }
+        return length;
+    }
+
+    /**
+     * Определяет формат файла.
+     *
+     * @param context открытый файл и его заголовок
+     * @param listener получатель сведений о запущенных определителях
+     * @return результат или {@code null}, если ни один определитель ничего не нашел
+     * @throws IOException если не удалось прочитать файл
+     */
+    public Detection detect(DetectionContext context, Listener listener) throws IOException {
+        Detection current = null;
+        for (Detector detector : detectors) {
+            if (!detector.appliesTo(current)) {
+                continue;
+            }
+            long started = System.nanoTime();
+            current = detector.detect(context, current);
+            listener.detectorFinished(detector, started);
+            if (current != null && current.confident()) {
+                break;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Получатель сведений о запущенных определителях.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Вызывается после каждого запущенного определителя.
+         *
+         * @param detector определитель
+         * @param startNanos значение {@link System#nanoTime()} перед его запуском
+         */
+        void detectorFinished(Detector detector, long startNanos);
+    }
+}
@@ -0,0 +1,371 @@
+package org.example.analysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Классификатор содержимого по энтропии Шеннона и гистограмме байтов.
+ *
+ * Как и {@link TextClassifier}, проверяет не весь файл, а три окна
+ * фиксированного размера: начало, середину и конец, накапливая одну
+ * гистограмму байтов. По гистограмме определяется {@link ContentClass}:
+ * <ul>
+ *     <li>{@link ContentClass#SPARSE}, если не менее 90% байтов равны
+ *     {@code 0x00} или {@code 0xFF};</li>
+ *     <li>{@link ContentClass#TEXT}, если управляющих байтов не больше 1%,
+ *     а энтропия не выше 6,5 бит на байт;</li>
+ *     <li>{@link ContentClass#RANDOM}, если распределение байтов не отличается
+ *     от равномерного по критерию хи-квадрат;</li>
+ *     <li>{@link ContentClass#COMPRESSED}, если энтропия не ниже 7,2 бит на байт;</li>
+ *     <li>{@link ContentClass#BINARY} в остальных случаях.</li>
+ * </ul>
+ * Энтропия оценивается с поправкой Миллера — Мэдоу, чтобы окна
+ * в несколько килобайт не занижали ее для случайных данных.
+ * Выборки меньше {@value #MIN_ENTROPY_SAMPLE} байтов не относятся
+ * к случайным и сжатым. Экземпляр неизменяем и потокобезопасен.
+ *
+ * Как {@link Detector} запускается последним, для файлов, не определенных
+ * другими определителями.
+ */
+public final class EntropyClassifier implements Detector {
+    /**
+     * Имя определителя.
+     */
+    public static final String NAME = "entropy";
+
+    /**
+     * Версия алгоритма определителя.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Минимальная доля байтов {@code 0x00} или {@code 0xFF} в разреженных данных.
+     */
+    private static final double SPARSE_FRACTION = 0.9;
+
+    /**
+     * Максимальная доля управляющих байтов в тексте.
+     */
+    private static final double TEXT_CONTROL_FRACTION = 0.01;
+
+    /**
+     * Максимальная энтропия текста в битах на байт.
+     */
+    private static final double TEXT_MAX_ENTROPY = 6.5;
+
+    /**
+     * Минимальная энтропия сжатых данных в битах на байт.
+     */
+    private static final double COMPRESSED_MIN_ENTROPY = 7.2;
+
+    /**
+     * Максимальная статистика хи-квадрат для случайных данных:
+     * среднее 255 плюс четыре стандартных отклонения при 255 степенях свободы.
+     */
+    private static final double RANDOM_MAX_CHI_SQUARE = 255 + 4 * Math.sqrt(2 * 255);
+
+    /**
+     * Минимальный объем выборки для отнесения к случайным или сжатым данным.
+     */
+    private static final int MIN_ENTROPY_SAMPLE = 1024;
+
+    /**
+     * Признаки управляющих байтов, недопустимых в тексте, индексированные беззнаковым значением байта.
+     */
+    private static final boolean[] CONTROL = new boolean[256];
+
+    static {
+        for (int b = 0; b < 0x20; b++) {
+            CONTROL[b] = b != '\t' && b != '\n' && b != 0x0B && b != '\f' && b != '\r';
+        }
+        CONTROL[0x7F] = true;
+    }
+
+    /**
+     * Размер каждого окна выборки в байтах.
+     */
+    private final int windowSize;
+
+    /**
+     * Создает классификатор с указанным размером окна выборки.
+     *
+     * @param windowSize размер окна в байтах (не меньше 256)
+     */
+    public EntropyClassifier(int windowSize) {
+        if (windowSize < 256) {
+            throw new IllegalArgumentException("Window size must be at least 256 bytes: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Возвращает размер окна выборки.
+     *
+     * @return размер окна в байтах
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getCost() {
+        return COST_FALLBACK;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public String getConfiguration() {
+        return "window-size=" + windowSize;
+    }
+
+    @Override
+    public int getHeaderLength(SignatureCatalog catalog) {
+        return windowSize;
+    }
+
+    @Override
+    public boolean appliesTo(Detection current) {
+        return current == null;
+    }
+
+    @Override
+    public Detection detect(DetectionContext context, Detection current) throws IOException {
+        ContentClass content = classify(context.channel(), context.size(), context.header());
+        return content == null ? current : Detection.content(content);
+    }
+
+    /**
+     * Классифицирует содержимое файла.
+     *
+     * @param file путь к файлу
+     * @return класс содержимого или {@code null} для пустого файла
+     * @throws IOException если не удалось прочитать файл
+     */
+    public ContentClass classify(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer head = ByteBuffer.allocate((int) Math.min(windowSize, size));
+            readFully(channel, head, 0);
+            return classify(channel, size, head);
+        }
+    }
+
+    /**
+     * Классифицирует содержимое открытого канала, используя уже прочитанное начало файла.
+     *
+     * Начало файла служит первым окном выборки; середина и конец читаются
+     * из канала, только если файл длиннее начала. Окна, перекрывающиеся
+     * с уже учтенными данными, сокращаются, поэтому каждый байт учитывается
+     * не более одного раза. Буфер начала читается только абсолютными методами.
+     *
+     * @param channel канал для позиционного чтения
+     * @param size размер данных в канале
+     * @param head буфер с байтами файла от позиции 0 до своего предела
+     * @return класс содержимого или {@code null} для пустого файла
+     * @throws IOException если не удалось прочитать данные
+     */
+    public ContentClass classify(FileChannel channel, long size, ByteBuffer head) throws IOException {
+        int headLength = (int) Math.min(Math.min(head.limit(), windowSize), size);
+        if (headLength <= 0) {
+            return null;
+        }
+        long[] histogram = new long[256];
+        add(histogram, head, 0, headLength);
+        long total = headLength;
+
+        long covered = headLength;
+        if (covered < size) {
+            ByteBuffer buffer = ByteBuffer.allocate(windowSize);
+            long[] windows = {Math.max(covered, size / 2 - windowSize / 2), Math.max(covered, size - windowSize)};
+            for (long window : windows) {
+                long from = Math.max(window, covered);
+                if (from >= size) {
+                    break;
+                }
+                buffer.clear();
+                buffer.limit((int) Math.min(windowSize, size - from));
+                readFully(channel, buffer, from);
+                add(histogram, buffer, 0, buffer.limit());
+                total += buffer.limit();
+                covered = from + buffer.limit();
+            }
+        }
+        return classify(histogram, total);
+    }
+
+    /**
+     * Классифицирует участок буфера.
+     *
+     * @param data данные; читаются только абсолютными методами
+     * @param from начало участка
+     * @param to конец участка (не включительно)
+     * @return класс содержимого или {@code null} для пустого участка
+     */
+    public ContentClass classify(ByteBuffer data, int from, int to) {
+        if (to <= from) {
+            return null;
+        }
+        long[] histogram = new long[256];
+        add(histogram, data, from, to);
+        return classify(histogram, to - from);
+    }
+
+    /**
+     * Проверяет, неотличим ли участок буфера от случайных данных.
+     *
+     * Вычисляет только гистограмму и статистику хи-квадрат, без энтропии,
+     * и используется для быстрого пропуска участков образа при поиске подписей.
+     *
+     * @param data данные; читаются только абсолютными методами
+     * @param from начало участка
+     * @param to конец участка (не включительно)
+     * @return {@code true}, если участок относится к {@link ContentClass#RANDOM}
+     */
+    public static boolean isRandom(ByteBuffer data, int from, int to) {
+        int total = to - from;
+        if (total < MIN_ENTROPY_SAMPLE) {
+            return false;
+        }
+        long[] histogram = new long[256];
+        add(histogram, data, from, to);
+        return chiSquare(histogram, total) <= RANDOM_MAX_CHI_SQUARE;
+    }
+
+    /**
+     * Проверяет, состоит ли участок буфера только из нулевых байтов.
+     *
+     * @param data данные; читаются только абсолютными методами
+     * @param from начало участка
+     * @param to конец участка (не включительно)
+     * @return {@code true}, если все байты участка нулевые
+     */
+    public static boolean isZeroFilled(ByteBuffer data, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            if (data.getLong(i) != 0) {
+                return false;
+            }
+        }
+        for (; i < to; i++) {
+            if (data.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Определяет класс содержимого по гистограмме байтов.
+     *
+     * @param histogram количество каждого значения байта
+     * @param total общее количество байтов
+     * @return класс содержимого
+     */
+    private static ContentClass classify(long[] histogram, long total) {
+        if (Math.max(histogram[0x00], histogram[0xFF]) >= SPARSE_FRACTION * total) {
+            return ContentClass.SPARSE;
+        }
+
+        long control = 0;
+        for (int b = 0; b < 256; b++) {
+            if (CONTROL[b]) {
+                control += histogram[b];
+            }
+        }
+        double entropy = entropy(histogram, total);
+        if (control <= TEXT_CONTROL_FRACTION * total && entropy <= TEXT_MAX_ENTROPY) {
+            return ContentClass.TEXT;
+        }
+        if (total >= MIN_ENTROPY_SAMPLE) {
+            if (chiSquare(histogram, total) <= RANDOM_MAX_CHI_SQUARE) {
+                return ContentClass.RANDOM;
+            }
+            if (entropy >= COMPRESSED_MIN_ENTROPY) {
+                return ContentClass.COMPRESSED;
+            }
+        }
+        return ContentClass.BINARY;
+    }
+
+    /**
+     * Вычисляет энтропию Шеннона с поправкой Миллера — Мэдоу.
+     *
+     * @param histogram количество каждого значения байта
+     * @param total общее количество байтов
+     * @return энтропия в битах на байт, не больше 8
+     */
+    private static double entropy(long[] histogram, long total) {
+        double sum = 0;
+        int distinct = 0;
+        for (long count : histogram) {
+            if (count > 0) {
+                sum += count * Math.log(count);
+                distinct++;
+            }
+        }
+        double nats = Math.log(total) - sum / total + (distinct - 1) / (2.0 * total);
+        return Math.min(nats / Math.log(2), 8);
+    }
+
+    /**
+     * Вычисляет статистику хи-квадрат относительно равномерного распределения байтов.
+     *
+     * @param histogram количество каждого значения байта
+     * @param total общее количество байтов
+     * @return значение статистики
+     */
+    private static double chiSquare(long[] histogram, long total) {
+        double expected = total / 256.0;
+        double sum = 0;
+        for (long count : histogram) {
+            double difference = count - expected;
+            sum += difference * difference;
+        }
+        return sum / expected;
+    }
+
+    /**
+     * Добавляет байты участка буфера в гистограмму.
+     *
+     * @param histogram гистограмма
+     * @param data данные
+     * @param from начало участка
+     * @param to конец участка (не включительно)
+     */
+    private static void add(long[] histogram, ByteBuffer data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            histogram[data.get(i) & 0xFF]++;
+        }
+    }
+
+    /**
+     * Заполняет буфер данными канала начиная с указанной позиции.
+     *
+     * @param channel канал для чтения
+     * @param buffer буфер; после вызова подготовлен для чтения
+     * @param position позиция в канале
+     * @throws IOException если не удалось прочитать данные
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+}
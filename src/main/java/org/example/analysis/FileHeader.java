@@ -0,0 +1,98 @@
+package org.example.analysis;
+
+import org.example.util.FileUtils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Заголовок файла, прочитанный в буфер из пула {@link HeaderReader}.
+ *
+ * Данные занимают позиции от 0 до {@link #length()} буфера и читаются
+ * только абсолютными методами. Hex-представление создается лишь
+ * по запросу, например для отображения пользователю.
+ * После {@link #close()} буфер возвращается в пул и обращения
+ * к заголовку недопустимы. Экземпляр не потокобезопасен.
+ */
+public final class FileHeader implements AutoCloseable {
+    /**
+     * Читатель, в пул которого возвращается буфер.
+     */
+    private final HeaderReader owner;
+
+    /**
+     * Буфер с данными или {@code null} после закрытия.
+     */
+    private ByteBuffer buffer;
+
+    FileHeader(HeaderReader owner, ByteBuffer buffer) {
+        this.owner = owner;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Возвращает количество прочитанных байтов.
+     *
+     * @return длина заголовка; 0 для пустого файла
+     */
+    public int length() {
+        return buffer().limit();
+    }
+
+    /**
+     * Проверяет, пуст ли заголовок.
+     *
+     * @return {@code true}, если файл пуст
+     */
+    public boolean isEmpty() {
+        return length() == 0;
+    }
+
+    /**
+     * Возвращает байт заголовка.
+     *
+     * @param index индекс байта
+     * @return значение байта
+     */
+    public byte get(int index) {
+        return buffer().get(index);
+    }
+
+    /**
+     * Возвращает буфер с данными заголовка.
+     *
+     * Вызывающий код должен использовать только абсолютное чтение
+     * в пределах от 0 до {@link #length()} и не сохранять ссылку
+     * на буфер после закрытия заголовка.
+     *
+     * @return буфер с данными
+     */
+    public ByteBuffer buffer() {
+        ByteBuffer current = buffer;
+        if (current == null) {
+            throw new IllegalStateException("The file header has been closed");
+        }
+        return current;
+    }
+
+    /**
+     * Возвращает hex-представление начала заголовка.
+     *
+     * @param maxBytes максимальное количество байтов
+     * @return строка hex-цифр в верхнем регистре
+     */
+    public String toHex(int maxBytes) {
+        return FileUtils.bytesToHex(buffer(), 0, Math.min(maxBytes, length()));
+    }
+
+    /**
+     * Возвращает буфер в пул.
+     */
+    @Override
+    public void close() {
+        ByteBuffer current = buffer;
+        if (current != null) {
+            buffer = null;
+            owner.release(current);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.analysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Чтение заголовков файлов в переиспользуемые буферы.
+ *
+ * Заголовок читается через {@link FileChannel} в прямой {@link ByteBuffer}
+ * из ограниченного пула. Буфер возвращается в пул при закрытии
+ * {@link FileHeader}, поэтому при анализе большого количества файлов
+ * заголовки не создают новых массивов и строк. Пул не привязан
+ * к потокам и подходит для виртуальных потоков: если свободных буферов нет,
+ * создается новый, а лишние буферы при возврате отбрасываются.
+ * Экземпляр потокобезопасен.
+ */
+public final class HeaderReader {
+    /**
+     * Емкость каждого буфера в байтах.
+     */
+    private final int bufferSize;
+
+    /**
+     * Свободные буферы.
+     */
+    private final BlockingQueue<ByteBuffer> pool;
+
+    /**
+     * Создает читатель заголовков.
+     *
+     * @param bufferSize емкость каждого буфера в байтах
+     * @param poolSize максимальное количество буферов, хранимых в пуле
+     * @throws IllegalArgumentException если параметры не положительны
+     */
+    public HeaderReader(int bufferSize, int poolSize) {
+        if (bufferSize <= 0 || poolSize <= 0) {
+            throw new IllegalArgumentException("Buffer and pool sizes must be positive: " + bufferSize + ", " + poolSize);
+        }
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Возвращает емкость буфера, то есть максимальную длину читаемого заголовка.
+     *
+     * @return емкость буфера в байтах
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Читает заголовок файла.
+     *
+     * @param file путь к файлу
+     * @param length желаемое количество байтов; ограничивается емкостью буфера
+     * @return заголовок, который необходимо закрыть после использования
+     * @throws IOException если не удалось открыть или прочитать файл
+     */
+    public FileHeader read(Path file, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, length);
+        }
+    }
+
+    /**
+     * Читает заголовок из открытого канала, начиная с позиции 0.
+     *
+     * Позиция канала не изменяется.
+     *
+     * @param channel канал файла
+     * @param length желаемое количество байтов; ограничивается емкостью буфера
+     * @return заголовок, который необходимо закрыть после использования
+     * @throws IOException если не удалось прочитать файл
+     */
+    public FileHeader read(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = acquire();
+        try {
+            buffer.clear().limit(Math.min(Math.max(length, 0), bufferSize));
+            long position = 0;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+            buffer.flip();
+            return new FileHeader(this, buffer);
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Берет свободный буфер из пула или создает новый.
+     *
+     * @return буфер емкостью {@link #bufferSize}
+     */
+    private ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Возвращает буфер в пул; если пул заполнен, буфер отбрасывается.
+     *
+     * @param buffer освобождаемый буфер
+     */
+    void release(ByteBuffer buffer) {
+        pool.offer(buffer);
+    }
+}
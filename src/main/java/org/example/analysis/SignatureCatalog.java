@@ -0,0 +1,312 @@
+package org.example.analysis;
+
+import org.example.model.FileSignature;
+import org.example.model.FileType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Неизменяемый снимок каталога подписей.
+ *
+ * Содержит скомпилированный {@link SignatureMatcher} и индексы подписей
+ * по расширению, по типу файла и по hex-сигнатуре, а также множество
+ * неоднозначных подписей. Определение формата по заголовку файла выполняет
+ * только префиксное дерево {@link SignatureMatcher}; индекс по hex-сигнатуре
+ * служит для точного поиска подписи по строке.
+ * Снимок создается целиком при загрузке каталога и после создания
+ * не изменяется, поэтому читается из любых потоков без блокировок.
+ * Каждый снимок имеет номер версии и отпечаток содержимого, по которому
+ * можно определить, что каталог изменился.
+ */
+public final class SignatureCatalog {
+    /**
+     * Номер версии снимка.
+     */
+    private final long version;
+
+    /**
+     * Отпечаток содержимого каталога (SHA-256 в hex-представлении).
+     */
+    private final String fingerprint;
+
+    /**
+     * Все подписи в порядке каталога.
+     */
+    private final List<FileSignature> signatures;
+
+    /**
+     * Скомпилированный сопоставитель подписей.
+     */
+    private final SignatureMatcher matcher;
+
+    /**
+     * Подписи по идентификатору.
+     */
+    private final Map<Long, FileSignature> byId;
+
+    /**
+     * Подписи по расширению в нижнем регистре.
+     */
+    private final Map<String, FileSignature> byExtension;
+
+    /**
+     * Подписи по типу файла.
+     */
+    private final Map<FileType, List<FileSignature>> byType;
+
+    /**
+     * Подписи с нулевым смещением по hex-сигнатуре в верхнем регистре.
+     */
+    private final Map<String, FileSignature> byHexSignature;
+
+    /**
+     * Подписи, совпадающие с подписями других MIME-типов, по идентичности объекта.
+     */
+    private final Set<FileSignature> ambiguous;
+
+    private SignatureCatalog(long version, String fingerprint, List<FileSignature> signatures, SignatureMatcher matcher,
+                             Map<Long, FileSignature> byId, Map<String, FileSignature> byExtension, Map<FileType, List<FileSignature>> byType,
+                             Map<String, FileSignature> byHexSignature, Set<FileSignature> ambiguous) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.signatures = signatures;
+        this.matcher = matcher;
+        this.byId = byId;
+        this.byExtension = byExtension;
+        this.byType = byType;
+        this.byHexSignature = byHexSignature;
+        this.ambiguous = ambiguous;
+    }
+
+    /**
+     * Создает снимок каталога.
+     *
+     * Если в каталоге несколько подписей с одинаковым расширением
+     * или hex-сигнатурой, индекс возвращает первую из них.
+     *
+     * @param version номер версии снимка
+     * @param signatures подписи в порядке каталога
+     * @return неизменяемый снимок
+     */
+    public static SignatureCatalog of(long version, Collection<FileSignature> signatures) {
+        List<FileSignature> all = List.copyOf(signatures);
+
+        Map<Long, FileSignature> byId = new HashMap<>();
+        Map<String, FileSignature> byExtension = new HashMap<>();
+        Map<FileType, List<FileSignature>> byType = new EnumMap<>(FileType.class);
+        Map<String, FileSignature> byHexSignature = new HashMap<>();
+        Map<String, List<FileSignature>> byPattern = new HashMap<>();
+
+        for (FileSignature signature : all) {
+            if (signature.getId() != null) {
+                byId.put(signature.getId(), signature);
+            }
+            if (signature.getExtension() != null) {
+                byExtension.putIfAbsent(signature.getExtension().toLowerCase(Locale.ROOT), signature);
+            }
+            FileType type = signature.getFileType() == null ? FileType.UNKNOWN : signature.getFileType();
+            byType.computeIfAbsent(type, key -> new ArrayList<>()).add(signature);
+            Integer offset = signature.getSignatureOffset();
+            if (signature.getHexSignature() != null && (offset == null || offset == 0)) {
+                byHexSignature.putIfAbsent(signature.getHexSignature().toUpperCase(Locale.ROOT), signature);
+            }
+            byPattern.computeIfAbsent(pattern(signature), key -> new ArrayList<>()).add(signature);
+        }
+
+        Set<FileSignature> ambiguous = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<FileSignature> same : byPattern.values()) {
+            for (FileSignature signature : same) {
+                if (same.stream().anyMatch(other -> !Objects.equals(other.getMimeType(), signature.getMimeType()))) {
+                    ambiguous.add(signature);
+                }
+            }
+        }
+
+        byType.replaceAll((type, list) -> List.copyOf(list));
+
+        return new SignatureCatalog(version, fingerprint(all), all, SignatureMatcher.compile(all),
+                Map.copyOf(byId), Map.copyOf(byExtension), Collections.unmodifiableMap(byType), Map.copyOf(byHexSignature),
+                Collections.unmodifiableSet(ambiguous));
+    }
+
+    /**
+     * Возвращает ключ сопоставления подписи: магические числа, маску,
+     * дополнительную подпись и их смещения.
+     *
+     * @param signature подпись файла
+     * @return ключ, одинаковый у подписей, совпадающих на одних и тех же данных
+     */
+    private static String pattern(FileSignature signature) {
+        return String.join("\u0000",
+                String.valueOf(signature.getHexSignature()).toUpperCase(Locale.ROOT),
+                String.valueOf(signature.getSignatureOffset() == null ? 0 : signature.getSignatureOffset()),
+                String.valueOf(signature.getSignatureMask()).toUpperCase(Locale.ROOT),
+                String.valueOf(signature.getSubHexSignature()).toUpperCase(Locale.ROOT),
+                String.valueOf(signature.getSubSignatureOffset() == null ? 0 : signature.getSubSignatureOffset()));
+    }
+
+    /**
+     * Вычисляет отпечаток содержимого каталога и версии {@link StructureCheck}.
+     *
+     * Совпадает с {@link #getFingerprint()} снимка, созданного из тех же подписей
+     * в том же порядке, поэтому по нему можно проверить, изменилась ли таблица подписей.
+     *
+     * @param signatures подписи в порядке каталога
+     * @return SHA-256 в hex-представлении
+     */
+    public static String fingerprint(List<FileSignature> signatures) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(("checks:" + StructureCheck.VERSION + "\n").getBytes(StandardCharsets.UTF_8));
+            for (FileSignature signature : signatures) {
+                String row = String.join("\u0000",
+                        String.valueOf(signature.getId()),
+                        String.valueOf(signature.getExtension()),
+                        String.valueOf(signature.getMimeType()),
+                        String.valueOf(signature.getHexSignature()),
+                        String.valueOf(signature.getSignatureOffset()),
+                        String.valueOf(signature.getSignatureMask()),
+                        String.valueOf(signature.getSubHexSignature()),
+                        String.valueOf(signature.getSubSignatureOffset()),
+                        String.valueOf(signature.getFileType()));
+                digest.update(row.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Возвращает номер версии снимка.
+     *
+     * @return номер версии, возрастающий при каждой перезагрузке каталога
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Возвращает отпечаток содержимого каталога.
+     *
+     * @return SHA-256 в hex-представлении
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Возвращает все подписи каталога.
+     *
+     * @return неизменяемый список подписей в порядке каталога
+     */
+    public List<FileSignature> getSignatures() {
+        return signatures;
+    }
+
+    /**
+     * Возвращает скомпилированный сопоставитель подписей.
+     *
+     * @return сопоставитель
+     */
+    public SignatureMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * Находит подпись по идентификатору.
+     *
+     * @param id идентификатор подписи в базе данных
+     * @return {@link Optional} с найденной подписью или пустой {@link Optional}
+     */
+    public Optional<FileSignature> findById(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(byId.get(id));
+    }
+
+    /**
+     * Находит подпись по расширению файла.
+     *
+     * Расширение в нижнем регистре находится без дополнительных преобразований,
+     * остальные приводятся к нижнему регистру только при промахе.
+     *
+     * @param extension расширение файла (не чувствительно к регистру)
+     * @return {@link Optional} с найденной подписью или пустой {@link Optional}
+     */
+    public Optional<FileSignature> findByExtension(String extension) {
+        if (extension == null) {
+            return Optional.empty();
+        }
+        FileSignature signature = byExtension.get(extension);
+        if (signature == null) {
+            signature = byExtension.get(extension.toLowerCase(Locale.ROOT));
+        }
+        return Optional.ofNullable(signature);
+    }
+
+    /**
+     * Находит подпись с нулевым смещением по hex-сигнатуре.
+     *
+     * @param hexSignature hex-представление магических чисел (не чувствительно к регистру)
+     * @return {@link Optional} с найденной подписью или пустой {@link Optional}
+     */
+    public Optional<FileSignature> findByHexSignature(String hexSignature) {
+        if (hexSignature == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byHexSignature.get(hexSignature.toUpperCase(Locale.ROOT)));
+    }
+
+    /**
+     * Возвращает подписи указанного типа.
+     *
+     * @param type тип файла
+     * @return неизменяемый список подписей в порядке каталога
+     */
+    public List<FileSignature> findByType(FileType type) {
+        return byType.getOrDefault(type, List.of());
+    }
+
+    /**
+     * Проверяет, совпадает ли подпись с подписью другого MIME-типа.
+     *
+     * Такую подпись, например общую для ZIP, JAR и APK, нельзя считать
+     * окончательным результатом без дополнительной проверки содержимого.
+     *
+     * @param signature подпись из этого снимка
+     * @return {@code true}, если подпись неоднозначна
+     */
+    public boolean isAmbiguous(FileSignature signature) {
+        return ambiguous.contains(signature);
+    }
+
+    /**
+     * Возвращает количество подписей в каталоге.
+     *
+     * @return количество подписей
+     */
+    public int size() {
+        return signatures.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SignatureCatalog[version=" + version + ", size=" + signatures.size()
+                + ", fingerprint=" + fingerprint.substring(0, 12) + "]";
+    }
+}
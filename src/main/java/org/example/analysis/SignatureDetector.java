@@ -0,0 +1,57 @@
+package org.example.analysis;
+
+import org.example.model.FileSignature;
+
+/**
+ * Определитель формата по подписям каталога.
+ *
+ * Сопоставляет общий заголовок с {@link SignatureMatcher} текущего снимка
+ * каталога. Результат неуверенный, если та же подпись принадлежит
+ * в каталоге нескольким форматам ({@link SignatureCatalog#isAmbiguous}),
+ * например ZIP, JAR и APK.
+ */
+public final class SignatureDetector implements Detector {
+    /**
+     * Имя определителя.
+     */
+    public static final String NAME = "signature";
+
+    /**
+     * Версия алгоритма определителя.
+     */
+    public static final int VERSION = 1;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getCost() {
+        return COST_HEADER;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public int getHeaderLength(SignatureCatalog catalog) {
+        return catalog.getMatcher().getValidationLength();
+    }
+
+    @Override
+    public boolean appliesTo(Detection current) {
+        return current == null;
+    }
+
+    @Override
+    public Detection detect(DetectionContext context, Detection current) {
+        FileSignature signature = context.catalog().getMatcher().match(context.header(), 0, context.header().limit());
+        if (signature == null) {
+            return current;
+        }
+        return Detection.of(signature, !context.catalog().isAmbiguous(signature));
+    }
+}
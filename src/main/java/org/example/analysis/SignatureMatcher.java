@@ -0,0 +1,557 @@
+package org.example.analysis;
+
+import org.example.model.FileSignature;
+import org.example.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Скомпилированный сопоставитель файловых подписей.
+ *
+ * Строит по каталогу подписей байтовые префиксные деревья (trie), по одному
+ * на каждое различное смещение подписи, и за один проход по заголовку файла
+ * находит все подходящие подписи. Байты с нулевой маской становятся
+ * переходами «любой байт», частичные маски и дополнительные подписи
+ * проверяются только для найденных кандидатов. Стоимость сопоставления
+ * зависит от длины заголовка, а не от размера каталога. Для форматов
+ * с короткими подписями совпадение дополнительно подтверждается
+ * {@link StructureCheck}; отклоненная подпись уступает менее специфичным.
+ * Экземпляр неизменяем и может безопасно использоваться из нескольких потоков.
+ */
+public final class SignatureMatcher {
+    /**
+     * Логгер для записи предупреждений при компиляции каталога.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(SignatureMatcher.class);
+
+    /**
+     * Порядок кандидатов: сначала более специфичные, при равенстве — в порядке каталога.
+     */
+    private static final Comparator<Entry> BY_SPECIFICITY =
+            Comparator.comparingInt((Entry entry) -> entry.specificity).reversed().thenComparingInt(entry -> entry.index);
+
+    /**
+     * Смещения подписей, по одному на каждое дерево.
+     */
+    private final int[] offsets;
+
+    /**
+     * Деревья подписей, соответствующие {@link #offsets}.
+     */
+    private final Trie[] tries;
+
+    /**
+     * Количество байтов от начала файла, достаточное для проверки всех подписей.
+     */
+    private final int headerLength;
+
+    /**
+     * Количество байтов от начала файла, достаточное для проверки подписей и структуры заголовков.
+     */
+    private final int validationLength;
+
+    /**
+     * Количество скомпилированных подписей.
+     */
+    private final int size;
+
+    private SignatureMatcher(int[] offsets, Trie[] tries, int headerLength, int validationLength, int size) {
+        this.offsets = offsets;
+        this.tries = tries;
+        this.headerLength = headerLength;
+        this.validationLength = validationLength;
+        this.size = size;
+    }
+
+    /**
+     * Компилирует каталог подписей в префиксные деревья.
+     *
+     * Подписи с пустой или некорректной hex-сигнатурой, маской или
+     * дополнительной подписью пропускаются.
+     *
+     * @param signatures подписи файлов из базы данных
+     * @return скомпилированный сопоставитель
+     */
+    public static SignatureMatcher compile(Collection<FileSignature> signatures) {
+        Map<Integer, List<Entry>> byOffset = new TreeMap<>();
+        int headerLength = 0;
+        int validationLength = 0;
+        int index = 0;
+
+        for (FileSignature signature : signatures) {
+            String hex = signature.getHexSignature();
+            if (hex == null || hex.isEmpty()) {
+                continue;
+            }
+
+            Entry entry;
+            try {
+                entry = Entry.of(signature, index++);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Skipping malformed signature for extension {}: {}", signature.getExtension(), e.getMessage());
+                continue;
+            }
+
+            byOffset.computeIfAbsent(entry.offset, key -> new ArrayList<>()).add(entry);
+            headerLength = Math.max(headerLength, entry.requiredLength());
+            if (entry.check != null) {
+                validationLength = Math.max(validationLength, entry.check.getLength());
+            }
+        }
+
+        int[] offsets = new int[byOffset.size()];
+        Trie[] tries = new Trie[byOffset.size()];
+        int i = 0;
+        int compiled = 0;
+        for (var group : byOffset.entrySet()) {
+            offsets[i] = group.getKey();
+            tries[i] = Trie.build(group.getValue());
+            compiled += group.getValue().size();
+            i++;
+        }
+
+        return new SignatureMatcher(offsets, tries, headerLength, Math.max(headerLength, validationLength), compiled);
+    }
+
+    /**
+     * Находит наиболее специфичную подпись в начале данных.
+     *
+     * @param data заголовок файла
+     * @param length количество значимых байтов в массиве
+     * @return найденная подпись или {@code null}
+     */
+    public FileSignature match(byte[] data, int length) {
+        return match(ByteBuffer.wrap(data), 0, length);
+    }
+
+    /**
+     * Находит наиболее специфичную подпись файла, начинающегося с указанной позиции.
+     *
+     * Специфичность определяется количеством значимых байтов основной
+     * и дополнительной подписей; при равенстве побеждает подпись,
+     * стоящая в каталоге раньше. Метод использует абсолютное чтение
+     * и не изменяет позицию буфера.
+     *
+     * @param data буфер с данными
+     * @param start позиция начала файла
+     * @param limit позиция, за которую нельзя читать
+     * @return найденная подпись или {@code null}
+     */
+    public FileSignature match(ByteBuffer data, int start, int limit) {
+        Entry best = null;
+        for (int i = 0; i < tries.length; i++) {
+            int from = start + offsets[i];
+            if (from < limit) {
+                best = tries[i].best(0, data, start, from, limit, best);
+            }
+        }
+        return best == null ? null : best.signature;
+    }
+
+    /**
+     * Находит все подписи в начале данных.
+     *
+     * @param data заголовок файла
+     * @param length количество значимых байтов в массиве
+     * @return список совпадений, начиная с наиболее специфичного
+     */
+    public List<FileSignature> matchAll(byte[] data, int length) {
+        return matchAll(ByteBuffer.wrap(data), 0, length);
+    }
+
+    /**
+     * Находит все подписи файла, начинающегося с указанной позиции.
+     *
+     * @param data буфер с данными
+     * @param start позиция начала файла
+     * @param limit позиция, за которую нельзя читать
+     * @return список совпадений, начиная с наиболее специфичного
+     */
+    public List<FileSignature> matchAll(ByteBuffer data, int start, int limit) {
+        List<Entry> matches = new ArrayList<>();
+        for (int i = 0; i < tries.length; i++) {
+            int from = start + offsets[i];
+            if (from < limit) {
+                tries[i].collect(0, data, start, from, limit, matches);
+            }
+        }
+        if (matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+        matches.sort(BY_SPECIFICITY);
+        List<FileSignature> result = new ArrayList<>(matches.size());
+        for (Entry entry : matches) {
+            result.add(entry.signature);
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает количество байтов от начала файла, достаточное для проверки
+     * всех подписей с учетом смещений и дополнительных подписей.
+     *
+     * @return длина заголовка в байтах
+     */
+    public int getHeaderLength() {
+        return headerLength;
+    }
+
+    /**
+     * Возвращает количество байтов от начала файла, достаточное для проверки
+     * всех подписей и структуры заголовков. Не меньше {@link #getHeaderLength()}.
+     *
+     * @return длина заголовка в байтах
+     */
+    public int getValidationLength() {
+        return validationLength;
+    }
+
+    /**
+     * Возвращает количество скомпилированных подписей.
+     *
+     * @return количество подписей
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Скомпилированная подпись с параметрами проверки.
+     */
+    private static final class Entry {
+        private final FileSignature signature;
+        private final int index;
+        private final int offset;
+        private final byte[] pattern;
+        /** Маска основной подписи или {@code null} для точного совпадения. */
+        private final byte[] mask;
+        /** Требуется ли проверка частичной маски после прохода по дереву. */
+        private final boolean partialMask;
+        private final byte[] subPattern;
+        private final int subOffset;
+        private final int specificity;
+        /** Проверка структуры заголовка или {@code null}. */
+        private final StructureCheck check;
+
+        private Entry(FileSignature signature, int index, int offset, byte[] pattern, byte[] mask,
+                      byte[] subPattern, int subOffset) {
+            this.signature = signature;
+            this.index = index;
+            this.offset = offset;
+            this.pattern = pattern;
+            this.mask = mask;
+            this.subPattern = subPattern;
+            this.subOffset = subOffset;
+            this.check = StructureCheck.forExtension(signature.getExtension());
+
+            boolean partial = false;
+            int significant = 0;
+            for (int i = 0; i < pattern.length; i++) {
+                int m = mask == null ? 0xFF : mask[i] & 0xFF;
+                significant += Integer.bitCount(m);
+                partial |= m != 0x00 && m != 0xFF;
+            }
+            this.partialMask = partial;
+            this.specificity = significant + (subPattern == null ? 0 : subPattern.length * 8);
+        }
+
+        /**
+         * Компилирует подпись из полей сущности.
+         *
+         * @param signature подпись файла
+         * @param index порядковый номер в каталоге
+         * @return скомпилированная подпись
+         * @throws IllegalArgumentException если поля подписи некорректны
+         */
+        private static Entry of(FileSignature signature, int index) {
+            byte[] pattern = FileUtils.hexToBytes(signature.getHexSignature());
+            int offset = signature.getSignatureOffset() == null ? 0 : signature.getSignatureOffset();
+
+            byte[] mask = null;
+            if (signature.getSignatureMask() != null && !signature.getSignatureMask().isEmpty()) {
+                mask = FileUtils.hexToBytes(signature.getSignatureMask());
+                if (mask.length != pattern.length) {
+                    throw new IllegalArgumentException("mask length differs from signature length");
+                }
+            }
+
+            byte[] subPattern = null;
+            int subOffset = 0;
+            if (signature.getSubHexSignature() != null && !signature.getSubHexSignature().isEmpty()) {
+                subPattern = FileUtils.hexToBytes(signature.getSubHexSignature());
+                subOffset = signature.getSubSignatureOffset() == null ? 0 : signature.getSubSignatureOffset();
+            }
+
+            if (offset < 0 || subOffset < 0) {
+                throw new IllegalArgumentException("negative offset");
+            }
+            return new Entry(signature, index, offset, pattern, mask, subPattern, subOffset);
+        }
+
+        /**
+         * Возвращает количество байтов от начала файла, необходимое для проверки подписи.
+         *
+         * @return длина в байтах
+         */
+        private int requiredLength() {
+            int length = offset + pattern.length;
+            if (subPattern != null) {
+                length = Math.max(length, subOffset + subPattern.length);
+            }
+            return length;
+        }
+
+        /**
+         * Проверяет переход дерева по байту подписи.
+         *
+         * @param i индекс байта в подписи
+         * @return {@code true}, если байт сравнивается точно
+         */
+        private boolean isExact(int i) {
+            return mask == null || mask[i] == (byte) 0xFF;
+        }
+
+        /**
+         * Проверяет частичную маску, дополнительную подпись и структуру заголовка для найденного кандидата.
+         *
+         * @param data буфер с данными
+         * @param start позиция начала файла
+         * @param limit позиция, за которую нельзя читать
+         * @return {@code true}, если подпись подтверждена
+         */
+        private boolean verify(ByteBuffer data, int start, int limit) {
+            if (partialMask) {
+                for (int i = 0; i < pattern.length; i++) {
+                    int m = mask[i];
+                    if ((data.get(start + offset + i) & m) != (pattern[i] & m)) {
+                        return false;
+                    }
+                }
+            }
+            if (subPattern != null) {
+                int from = start + subOffset;
+                if (from + subPattern.length > limit) {
+                    return false;
+                }
+                for (int i = 0; i < subPattern.length; i++) {
+                    if (data.get(from + i) != subPattern[i]) {
+                        return false;
+                    }
+                }
+            }
+            return check == null || check.isValid(data, start, limit);
+        }
+
+        /**
+         * Сравнивает специфичность двух кандидатов.
+         *
+         * @param other другой кандидат или {@code null}
+         * @return {@code true}, если этот кандидат предпочтительнее
+         */
+        private boolean betterThan(Entry other) {
+            return other == null || BY_SPECIFICITY.compare(this, other) < 0;
+        }
+    }
+
+    /**
+     * Префиксное дерево подписей с общим смещением.
+     *
+     * Узлы хранятся в плоских массивах: отсортированные байты переходов,
+     * индексы дочерних узлов, переход «любой байт» и подписи, оканчивающиеся в узле.
+     * Переходы из корня дополнительно индексированы таблицей на 256 значений.
+     */
+    private static final class Trie {
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        private final int[] rootTable;
+        private final byte[][] keys;
+        private final int[][] children;
+        private final int[] wildcards;
+        private final Entry[][] outputs;
+
+        private Trie(int[] rootTable, byte[][] keys, int[][] children, int[] wildcards, Entry[][] outputs) {
+            this.rootTable = rootTable;
+            this.keys = keys;
+            this.children = children;
+            this.wildcards = wildcards;
+            this.outputs = outputs;
+        }
+
+        /**
+         * Строит дерево из подписей с одинаковым смещением.
+         *
+         * @param entries скомпилированные подписи
+         * @return дерево
+         */
+        private static Trie build(List<Entry> entries) {
+            List<BuildNode> nodes = new ArrayList<>();
+            nodes.add(new BuildNode());
+
+            for (Entry entry : entries) {
+                int node = 0;
+                for (int i = 0; i < entry.pattern.length; i++) {
+                    BuildNode current = nodes.get(node);
+                    Integer next;
+                    if (entry.isExact(i)) {
+                        next = current.transitions.get(entry.pattern[i]);
+                        if (next == null) {
+                            next = nodes.size();
+                            nodes.add(new BuildNode());
+                            current.transitions.put(entry.pattern[i], next);
+                        }
+                    } else {
+                        next = current.wildcard;
+                        if (next < 0) {
+                            next = nodes.size();
+                            nodes.add(new BuildNode());
+                            current.wildcard = next;
+                        }
+                    }
+                    node = next;
+                }
+                nodes.get(node).entries.add(entry);
+            }
+
+            int count = nodes.size();
+            byte[][] keys = new byte[count][];
+            int[][] children = new int[count][];
+            int[] wildcards = new int[count];
+            Entry[][] outputs = new Entry[count][];
+
+            for (int i = 0; i < count; i++) {
+                BuildNode node = nodes.get(i);
+                keys[i] = new byte[node.transitions.size()];
+                children[i] = new int[node.transitions.size()];
+                int j = 0;
+                for (var transition : node.transitions.entrySet()) {
+                    keys[i][j] = transition.getKey();
+                    children[i][j] = transition.getValue();
+                    j++;
+                }
+                wildcards[i] = node.wildcard;
+                outputs[i] = node.entries.isEmpty() ? NO_ENTRIES : node.entries.toArray(NO_ENTRIES);
+            }
+
+            int[] rootTable = new int[256];
+            for (int b = 0; b < 256; b++) {
+                rootTable[b] = findChild(keys[0], children[0], (byte) b);
+            }
+            return new Trie(rootTable, keys, children, wildcards, outputs);
+        }
+
+        /**
+         * Ищет наиболее специфичную подтвержденную подпись в поддереве.
+         *
+         * @param node текущий узел
+         * @param data буфер с данными
+         * @param start позиция начала файла
+         * @param pos позиция очередного байта
+         * @param limit позиция, за которую нельзя читать
+         * @param best лучший найденный ранее кандидат или {@code null}
+         * @return лучший кандидат или {@code null}
+         */
+        private Entry best(int node, ByteBuffer data, int start, int pos, int limit, Entry best) {
+            for (Entry entry : outputs[node]) {
+                if (entry.betterThan(best) && entry.verify(data, start, limit)) {
+                    best = entry;
+                }
+            }
+            if (pos >= limit) {
+                return best;
+            }
+            int exact = next(node, data.get(pos));
+            if (exact >= 0) {
+                best = best(exact, data, start, pos + 1, limit, best);
+            }
+            if (wildcards[node] >= 0) {
+                best = best(wildcards[node], data, start, pos + 1, limit, best);
+            }
+            return best;
+        }
+
+        /**
+         * Собирает все подтвержденные подписи в поддереве.
+         *
+         * @param node текущий узел
+         * @param data буфер с данными
+         * @param start позиция начала файла
+         * @param pos позиция очередного байта
+         * @param limit позиция, за которую нельзя читать
+         * @param matches список найденных подписей
+         */
+        private void collect(int node, ByteBuffer data, int start, int pos, int limit, List<Entry> matches) {
+            for (Entry entry : outputs[node]) {
+                if (entry.verify(data, start, limit)) {
+                    matches.add(entry);
+                }
+            }
+            if (pos >= limit) {
+                return;
+            }
+            int exact = next(node, data.get(pos));
+            if (exact >= 0) {
+                collect(exact, data, start, pos + 1, limit, matches);
+            }
+            if (wildcards[node] >= 0) {
+                collect(wildcards[node], data, start, pos + 1, limit, matches);
+            }
+        }
+
+        /**
+         * Выполняет точный переход по дереву.
+         *
+         * @param node текущий узел
+         * @param value очередной байт
+         * @return индекс следующего узла или {@code -1}, если перехода нет
+         */
+        private int next(int node, byte value) {
+            if (node == 0) {
+                return rootTable[value & 0xFF];
+            }
+            return findChild(keys[node], children[node], value);
+        }
+
+        /**
+         * Ищет переход по байту бинарным поиском.
+         *
+         * @param nodeKeys отсортированные значения байтов
+         * @param nodeChildren индексы дочерних узлов
+         * @param value искомый байт
+         * @return индекс дочернего узла или {@code -1}
+         */
+        private static int findChild(byte[] nodeKeys, int[] nodeChildren, byte value) {
+            int low = 0;
+            int high = nodeKeys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Byte.compare(nodeKeys[mid], value);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return nodeChildren[mid];
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Изменяемый узел дерева, используемый только при компиляции.
+     */
+    private static final class BuildNode {
+        private final TreeMap<Byte, Integer> transitions = new TreeMap<>();
+        private final List<Entry> entries = new ArrayList<>();
+        private int wildcard = -1;
+    }
+}
@@ -0,0 +1,271 @@
+package org.example.analysis;
+
+import org.example.model.FileSignature;
+import org.example.model.FileType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Предварительно собранный снимок каталога подписей в ресурсах приложения.
+ *
+ * Снимок создается при сборке из {@code database/db.sql} задачей
+ * {@code generateSignatureSnapshot} и позволяет построить
+ * {@link SignatureCatalog} без инициализации JPA. Текстовый файл UTF-8:
+ * <pre>
+ * FRS1\t&lt;SHA-256 db.sql&gt;\t&lt;количество&gt;
+ * id\textension\tmimeType\thexSignature\tsignatureOffset\tsignatureMask\tsubHexSignature\tsubSignatureOffset\tdescription\tfileType
+ * </pre>
+ * Значение {@code null} записывается как {@code \N}, табуляция, перевод
+ * строки и обратная косая черта экранируются. Идентификаторы совпадают
+ * с присваиваемыми базой данных при выполнении скрипта, поэтому отпечаток
+ * каталога из снимка равен отпечатку каталога из базы. Снимок считается
+ * устаревшим, если хэш скрипта в заголовке не совпадает с хэшем скрипта
+ * в ресурсах.
+ */
+public final class SignatureSnapshot {
+    /**
+     * Путь к снимку в ресурсах приложения.
+     */
+    public static final String RESOURCE = "signatures/catalog.snapshot";
+
+    /**
+     * Путь к SQL-скрипту подписей в ресурсах приложения.
+     */
+    public static final String SOURCE_RESOURCE = "database/db.sql";
+
+    /**
+     * Заголовок текущей версии формата.
+     */
+    private static final String MAGIC = "FRS1";
+
+    /**
+     * Обозначение значения {@code null}.
+     */
+    private static final String NULL = "\\N";
+
+    /**
+     * Количество полей в строке подписи.
+     */
+    private static final int FIELDS = 10;
+
+    private SignatureSnapshot() {
+    }
+
+    /**
+     * Загружает подписи из снимка в ресурсах.
+     *
+     * @param classLoader загрузчик ресурсов
+     * @return подписи или пустой {@link Optional}, если снимка нет или он устарел
+     * @throws IOException если снимок не удалось прочитать или он поврежден
+     */
+    public static Optional<List<FileSignature>> load(ClassLoader classLoader) throws IOException {
+        try (InputStream snapshot = classLoader.getResourceAsStream(RESOURCE);
+             InputStream source = classLoader.getResourceAsStream(SOURCE_RESOURCE)) {
+            if (snapshot == null || source == null) {
+                return Optional.empty();
+            }
+            return read(snapshot, sourceHash(source));
+        }
+    }
+
+    /**
+     * Читает подписи из снимка.
+     *
+     * @param in содержимое снимка
+     * @param expectedSourceHash хэш SQL-скрипта, из которого должен быть собран снимок
+     * @return подписи или пустой {@link Optional}, если снимок собран из другого скрипта
+     *         или в другом формате
+     * @throws IOException если снимок не удалось прочитать или он поврежден
+     */
+    public static Optional<List<FileSignature>> read(InputStream in, String expectedSourceHash) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        String[] fields = header == null ? new String[0] : header.split("\t", -1);
+        if (fields.length != 3 || !MAGIC.equals(fields[0]) || !fields[1].equals(expectedSourceHash)) {
+            return Optional.empty();
+        }
+
+        int count;
+        try {
+            count = Integer.parseInt(fields[2]);
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupted signature snapshot header: " + header);
+        }
+        List<FileSignature> signatures = new ArrayList<>(count);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            signatures.add(parse(line));
+        }
+        if (signatures.size() != count) {
+            throw new IOException("Truncated signature snapshot: " + signatures.size() + " of " + count + " signatures");
+        }
+        return Optional.of(signatures);
+    }
+
+    /**
+     * Записывает снимок.
+     *
+     * @param signatures подписи в порядке идентификаторов
+     * @param sourceHash хэш SQL-скрипта, из которого получены подписи
+     * @param out приемник текста
+     * @throws IOException если не удалось записать снимок
+     */
+    public static void write(List<FileSignature> signatures, String sourceHash, Writer out) throws IOException {
+        out.write(MAGIC + "\t" + sourceHash + "\t" + signatures.size() + "\n");
+        for (FileSignature signature : signatures) {
+            out.write(String.join("\t",
+                    format(signature.getId()),
+                    format(signature.getExtension()),
+                    format(signature.getMimeType()),
+                    format(signature.getHexSignature()),
+                    format(signature.getSignatureOffset()),
+                    format(signature.getSignatureMask()),
+                    format(signature.getSubHexSignature()),
+                    format(signature.getSubSignatureOffset()),
+                    format(signature.getDescription()),
+                    format(signature.getFileType())));
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Вычисляет хэш SQL-скрипта подписей.
+     *
+     * @param source содержимое скрипта
+     * @return SHA-256 в hex-представлении
+     * @throws IOException если скрипт не удалось прочитать
+     */
+    public static String sourceHash(InputStream source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (DigestInputStream in = new DigestInputStream(source, digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Разбирает строку подписи.
+     *
+     * @param line строка снимка
+     * @return подпись файла
+     * @throws IOException если строка повреждена
+     */
+    private static FileSignature parse(String line) throws IOException {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != FIELDS) {
+            throw new IOException("Corrupted signature snapshot line: " + line);
+        }
+        try {
+            String type = value(fields[9]);
+            return new FileSignature(
+                    longValue(fields[0]),
+                    value(fields[1]),
+                    value(fields[2]),
+                    value(fields[3]),
+                    intValue(fields[4]),
+                    value(fields[5]),
+                    value(fields[6]),
+                    intValue(fields[7]),
+                    value(fields[8]),
+                    type == null ? null : FileType.valueOf(type));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted signature snapshot line: " + line, e);
+        }
+    }
+
+    /**
+     * Форматирует значение поля.
+     *
+     * @param value значение или {@code null}
+     * @return экранированное значение
+     */
+    private static String format(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+        String text = value instanceof Enum<?> constant ? constant.name() : value.toString();
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Восстанавливает строковое значение поля.
+     *
+     * @param field поле снимка
+     * @return значение или {@code null}
+     */
+    private static String value(String field) {
+        if (NULL.equals(field)) {
+            return null;
+        }
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder unescaped = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\' || i + 1 == field.length()) {
+                unescaped.append(c);
+                continue;
+            }
+            char next = field.charAt(++i);
+            unescaped.append(switch (next) {
+                case 't' -> '\t';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                default -> next;
+            });
+        }
+        return unescaped.toString();
+    }
+
+    /**
+     * Восстанавливает целочисленное значение поля.
+     *
+     * @param field поле снимка
+     * @return значение или {@code null}
+     */
+    private static Integer intValue(String field) {
+        String value = value(field);
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    /**
+     * Восстанавливает значение идентификатора.
+     *
+     * @param field поле снимка
+     * @return значение или {@code null}
+     */
+    private static Long longValue(String field) {
+        String value = value(field);
+        return value == null ? null : Long.valueOf(value);
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.analysis;
+
+import org.example.model.FileSignature;
+import org.example.model.FileType;
+import org.h2.tools.RunScript;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Генератор снимка каталога подписей, запускаемый при сборке.
+ *
+ * Выполняет SQL-скрипт подписей во временной базе H2 в памяти через JDBC,
+ * без Hibernate, и записывает полученные строки в {@link SignatureSnapshot}.
+ * Таблица создается с теми же столбцами и автоинкрементным ключом, что и
+ * при разворачивании схемы по сущности {@link FileSignature}, поэтому
+ * идентификаторы в снимке совпадают с идентификаторами в базе приложения.
+ *
+ * Аргументы: путь к SQL-скрипту и путь к создаваемому снимку.
+ */
+public final class SignatureSnapshotGenerator {
+    /**
+     * Схема таблицы подписей, соответствующая сущности {@link FileSignature}.
+     */
+    private static final String SCHEMA = """
+            CREATE TABLE file_signatures (
+                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                extension VARCHAR(255),
+                mime_type VARCHAR(255),
+                hex_signature VARCHAR(255),
+                signature_offset INTEGER,
+                signature_mask VARCHAR(255),
+                sub_hex_signature VARCHAR(255),
+                sub_signature_offset INTEGER,
+                description VARCHAR(255),
+                file_type VARCHAR(255)
+            )""";
+
+    private SignatureSnapshotGenerator() {
+    }
+
+    /**
+     * Создает снимок из SQL-скрипта.
+     *
+     * @param args путь к SQL-скрипту и путь к снимку
+     * @throws IOException если не удалось прочитать скрипт или записать снимок
+     * @throws SQLException если скрипт не удалось выполнить
+     */
+    public static void main(String[] args) throws IOException, SQLException {
+        if (args.length != 2) {
+            System.err.println("Usage: SignatureSnapshotGenerator <db.sql> <snapshot>");
+            System.exit(2);
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+
+        List<FileSignature> signatures = execute(source);
+        String sourceHash;
+        try (InputStream in = Files.newInputStream(source)) {
+            sourceHash = SignatureSnapshot.sourceHash(in);
+        }
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            SignatureSnapshot.write(signatures, sourceHash, out);
+        }
+        System.out.println("Signature snapshot: " + signatures.size() + " signatures -> " + target);
+    }
+
+    /**
+     * Выполняет скрипт во временной базе и читает подписи.
+     *
+     * @param source путь к SQL-скрипту
+     * @return подписи в порядке идентификаторов
+     * @throws IOException если скрипт не удалось прочитать
+     * @throws SQLException если скрипт не удалось выполнить
+     */
+    private static List<FileSignature> execute(Path source) throws IOException, SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:");
+             Statement statement = connection.createStatement()) {
+            statement.execute(SCHEMA);
+            try (Reader script = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+                RunScript.execute(connection, script);
+            }
+
+            List<FileSignature> signatures = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery("""
+                    SELECT id, extension, mime_type, hex_signature, signature_offset, signature_mask,
+                           sub_hex_signature, sub_signature_offset, description, file_type
+                    FROM file_signatures ORDER BY id""")) {
+                while (rows.next()) {
+                    String type = rows.getString(10);
+                    signatures.add(new FileSignature(
+                            rows.getLong(1),
+                            rows.getString(2),
+                            rows.getString(3),
+                            rows.getString(4),
+                            rows.getObject(5, Integer.class),
+                            rows.getString(6),
+                            rows.getString(7),
+                            rows.getObject(8, Integer.class),
+                            rows.getString(9),
+                            type == null ? null : FileType.valueOf(type)));
+                }
+            }
+            return signatures;
+        }
+    }
+}
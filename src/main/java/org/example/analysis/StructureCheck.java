@@ -0,0 +1,279 @@
+package org.example.analysis;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+/**
+ * Проверка внутренней структуры заголовка для форматов с короткими подписями.
+ *
+ * Подписи вроде {@code 424D} (BMP) и {@code 4D5A} (EXE) часто встречаются
+ * в произвольных данных. После совпадения подписи {@link SignatureMatcher}
+ * проверяет несколько полей заголовка, согласованных в настоящих файлах,
+ * и отклоняет кандидата при явном противоречии. Каждая проверка читает
+ * не больше {@link #getLength()} байтов от начала файла. Если нужные байты
+ * лежат за пределом данных, кандидат не отклоняется: проверка опровергает
+ * подпись только по прочитанным полям. Все методы используют только
+ * абсолютное чтение из буфера.
+ */
+public enum StructureCheck {
+    /**
+     * BMP: нулевые зарезервированные поля, известный размер заголовка DIB,
+     * положительные размеры, одна плоскость и допустимая глубина цвета.
+     */
+    BMP(30, 30) {
+        @Override
+        boolean check(ByteBuffer le, int start, int end) {
+            if (le.getInt(start + 6) != 0) {
+                return false;
+            }
+            long fileSize = Integer.toUnsignedLong(le.getInt(start + 2));
+            long dataOffset = Integer.toUnsignedLong(le.getInt(start + 10));
+            int dibSize = le.getInt(start + 14);
+            if (fileSize != 0 && dataOffset >= fileSize) {
+                return false;
+            }
+            if (dibSize == 12) {
+                return dataOffset >= 14 + 12
+                        && le.getShort(start + 18) != 0
+                        && le.getShort(start + 20) != 0
+                        && le.getShort(start + 22) == 1
+                        && isBitCount(le.getShort(start + 24), false);
+            }
+            if (dibSize != 16 && dibSize != 40 && dibSize != 52 && dibSize != 56
+                    && dibSize != 64 && dibSize != 108 && dibSize != 124) {
+                return false;
+            }
+            int width = le.getInt(start + 18);
+            int height = le.getInt(start + 22);
+            return dataOffset >= 14 + dibSize
+                    && width > 0 && width <= MAX_DIMENSION
+                    && height != 0 && Math.abs(height) <= MAX_DIMENSION
+                    && le.getShort(start + 26) == 1
+                    && isBitCount(le.getShort(start + 28), true);
+        }
+    },
+
+    /**
+     * Исполняемый файл MZ: поле {@code e_lfanew} указывает на заголовок
+     * {@code PE\0\0} или заголовок NE, LE, LX. Если новый заголовок лежит
+     * за пределом данных, кандидат не отклоняется. Если нового заголовка нет,
+     * файл проверяется как исполняемый файл DOS: количество страниц и байтов
+     * последней страницы, размер заголовка и таблица перемещений согласованы.
+     */
+    PE(0x40, 1024) {
+        @Override
+        boolean check(ByteBuffer le, int start, int end) {
+            long newHeader = Integer.toUnsignedLong(le.getInt(start + 0x3C));
+            if (newHeader >= 0x40) {
+                if (start + newHeader + 4 > end) {
+                    return true;
+                }
+                int pos = start + (int) newHeader;
+                int magic = le.getShort(pos) & 0xFFFF;
+                if (magic == 0x4550) {
+                    return le.getShort(pos + 2) == 0;
+                }
+                if (magic == 0x454E || magic == 0x454C || magic == 0x584C) {
+                    return true;
+                }
+            }
+            return isDosHeader(le, start);
+        }
+    },
+
+    /**
+     * PNG: первым идет блок {@code IHDR} длиной 13 байтов с ненулевыми
+     * размерами и верной контрольной суммой CRC-32.
+     */
+    PNG(33, 33) {
+        @Override
+        boolean check(ByteBuffer le, int start, int end) {
+            ByteBuffer be = le.duplicate().order(ByteOrder.BIG_ENDIAN);
+            if (be.getInt(start + 8) != 13 || be.getInt(start + 12) != 0x49484452
+                    || be.getInt(start + 16) == 0 || be.getInt(start + 20) == 0) {
+                return false;
+            }
+            int expected = be.getInt(start + 29);
+            CRC32 crc = new CRC32();
+            crc.update(be.limit(start + 29).position(start + 12));
+            return (int) crc.getValue() == expected;
+        }
+    },
+
+    /**
+     * JPEG: после SOI идет цепочка сегментов с допустимыми маркерами
+     * и длинами вплоть до начала скана или до предела проверки.
+     */
+    JPEG(2, 1024) {
+        @Override
+        boolean check(ByteBuffer le, int start, int end) {
+            int pos = start + 2;
+            while (pos + 1 < end) {
+                if ((le.get(pos) & 0xFF) != 0xFF) {
+                    return false;
+                }
+                int marker = le.get(pos + 1) & 0xFF;
+                if (marker == 0xFF) {
+                    pos++;
+                    continue;
+                }
+                if (marker == 0x01) {
+                    pos += 2;
+                    continue;
+                }
+                if (marker < 0xC0 || (marker >= 0xD0 && marker <= 0xD9)) {
+                    return false;
+                }
+                if (marker == 0xDA || (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8
+                        && marker != 0xCC)) {
+                    return true;
+                }
+                if (pos + 3 >= end) {
+                    return true;
+                }
+                int length = ((le.get(pos + 2) & 0xFF) << 8) | (le.get(pos + 3) & 0xFF);
+                if (length < 2) {
+                    return false;
+                }
+                pos += 2 + length;
+            }
+            return true;
+        }
+    },
+
+    /**
+     * GZIP: метод сжатия deflate, нулевые зарезервированные флаги,
+     * допустимые дополнительные флаги и код операционной системы.
+     */
+    GZIP(10, 10) {
+        @Override
+        boolean check(ByteBuffer le, int start, int end) {
+            int flags = le.get(start + 3) & 0xFF;
+            int extraFlags = le.get(start + 8) & 0xFF;
+            int os = le.get(start + 9) & 0xFF;
+            return (flags & 0xE0) == 0
+                    && (extraFlags == 0 || extraFlags == 2 || extraFlags == 4)
+                    && (os <= 13 || os == 255);
+        }
+    };
+
+    /**
+     * Версия набора проверок; входит в отпечаток каталога подписей,
+     * чтобы изменение проверок делало недействительными кэшированные результаты.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Максимальная ширина и высота изображения BMP.
+     */
+    private static final int MAX_DIMENSION = 65535;
+
+    /**
+     * Количество байтов от начала файла, без которых проверка не выполняется.
+     */
+    private final int required;
+
+    /**
+     * Количество байтов от начала файла, которое может прочитать проверка.
+     */
+    private final int length;
+
+    StructureCheck(int required, int length) {
+        this.required = required;
+        this.length = length;
+    }
+
+    /**
+     * Находит проверку для расширения из подписи файла.
+     *
+     * @param extension расширение файла
+     * @return проверка или {@code null}, если формат не проверяется
+     */
+    public static StructureCheck forExtension(String extension) {
+        if (extension == null) {
+            return null;
+        }
+        return switch (extension.toLowerCase()) {
+            case "bmp" -> BMP;
+            case "exe", "dll" -> PE;
+            case "png" -> PNG;
+            case "jpg", "jpeg" -> JPEG;
+            case "gz" -> GZIP;
+            default -> null;
+        };
+    }
+
+    /**
+     * Возвращает количество байтов от начала файла, которое может прочитать проверка.
+     *
+     * @return длина в байтах
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Проверяет заголовок файла, начинающегося с указанной позиции.
+     *
+     * @param data буфер с данными
+     * @param start позиция начала файла
+     * @param limit позиция, за которую нельзя читать
+     * @return {@code false}, если поля заголовка противоречат формату
+     */
+    public boolean isValid(ByteBuffer data, int start, int limit) {
+        int end = (int) Math.min(limit, (long) start + length);
+        if (end < start + required) {
+            return true;
+        }
+        return check(data.duplicate().order(ByteOrder.LITTLE_ENDIAN), start, end);
+    }
+
+    /**
+     * Проверяет поля заголовка.
+     *
+     * @param le буфер с порядком байтов little-endian
+     * @param start позиция начала файла
+     * @param end предел проверки, не меньше {@link #required} байтов от начала файла
+     * @return {@code false}, если поля заголовка противоречат формату
+     */
+    abstract boolean check(ByteBuffer le, int start, int end);
+
+    /**
+     * Проверяет заголовок исполняемого файла DOS.
+     *
+     * Размер образа задается количеством 512-байтовых страниц и количеством
+     * байтов последней страницы; заголовок и таблица перемещений должны
+     * помещаться в образ.
+     *
+     * @param le буфер с порядком байтов little-endian
+     * @param start позиция начала файла
+     * @return {@code true}, если поля заголовка согласованы
+     */
+    private static boolean isDosHeader(ByteBuffer le, int start) {
+        int lastPageBytes = le.getShort(start + 2) & 0xFFFF;
+        int pages = le.getShort(start + 4) & 0xFFFF;
+        int relocations = le.getShort(start + 6) & 0xFFFF;
+        int headerSize = (le.getShort(start + 8) & 0xFFFF) * 16;
+        int relocationTable = le.getShort(start + 0x18) & 0xFFFF;
+        if (lastPageBytes >= 512 || pages == 0 || headerSize < 0x1C) {
+            return false;
+        }
+        long imageSize = (pages - 1) * 512L + (lastPageBytes == 0 ? 512 : lastPageBytes);
+        return headerSize <= imageSize
+                && (relocations == 0 || relocationTable >= 0x1C
+                        && relocationTable + relocations * 4L <= headerSize);
+    }
+
+    /**
+     * Проверяет глубину цвета BMP.
+     *
+     * @param bits количество битов на пиксель
+     * @param compressed допускается ли 0 (JPEG или PNG внутри BMP)
+     * @return {@code true}, если значение допустимо
+     */
+    private static boolean isBitCount(short bits, boolean compressed) {
+        return bits == 1 || bits == 4 || bits == 8 || bits == 16 || bits == 24 || bits == 32
+                || (compressed && bits == 0);
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.analysis;
+
+import java.nio.charset.Charset;
+
+/**
+ * Результат классификации содержимого файла как текстового.
+ *
+ * @param text {@code true}, если выборка содержит только текстовые символы
+ * @param encoding предполагаемая кодировка текста или {@code null} для двоичных данных
+ * @param byteOrderMark {@code true}, если кодировка определена по BOM
+ */
+public record TextClassification(boolean text, Charset encoding, boolean byteOrderMark) {
+    /**
+     * Результат для двоичных или пустых данных.
+     */
+    public static final TextClassification BINARY = new TextClassification(false, null, false);
+}
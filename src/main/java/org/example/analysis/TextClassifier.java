@@ -0,0 +1,472 @@
+package org.example.analysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Классификатор текстового содержимого по ограниченной выборке.
+ *
+ * Вместо чтения файла целиком проверяет три окна фиксированного размера:
+ * начало, середину и конец файла. Каждый байт классифицируется по таблице,
+ * многобайтовые последовательности UTF-8 проверяются конечным автоматом
+ * по RFC 3629: после E0, ED, F0 и F4 допустимый диапазон второго байта
+ * сужен, поэтому избыточные формы, суррогаты UTF-16 и значения выше
+ * U+10FFFF отклоняются,
+ * а при наличии BOM содержимое проверяется как UTF-16 или UTF-8.
+ * Проверка прекращается на первом двоичном байте, поэтому затраты памяти
+ * не зависят от размера файла и ограничены одним буфером окна.
+ *
+ * Как {@link Detector} запускается для файлов без подписи и возвращает
+ * подпись {@code txt} из каталога.
+ */
+public final class TextClassifier implements Detector {
+    /**
+     * Имя определителя.
+     */
+    public static final String NAME = "text";
+
+    /**
+     * Версия алгоритма определителя; версия 2 проверяет UTF-8 по RFC 3629.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Расширение подписи текстовых файлов в каталоге.
+     */
+    private static final String TEXT_EXTENSION = "txt";
+
+    /** Печатный символ ASCII или пробельный символ. */
+    private static final byte TEXT = 0;
+    /** Управляющий символ, недопустимый в тексте. */
+    private static final byte BINARY = 1;
+    /** Байт продолжения многобайтовой последовательности UTF-8. */
+    private static final byte CONTINUATION = 2;
+    /** Первый байт двухбайтовой последовательности UTF-8. */
+    private static final byte LEAD_2 = 3;
+    /** Первый байт трехбайтовой последовательности UTF-8. */
+    private static final byte LEAD_3 = 4;
+    /** Первый байт четырехбайтовой последовательности UTF-8. */
+    private static final byte LEAD_4 = 5;
+
+    /**
+     * Таблица классов байтов, индексированная беззнаковым значением байта.
+     */
+    private static final byte[] BYTE_CLASSES = new byte[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            byte cls;
+            if (b >= 0x20 && b <= 0x7E) {
+                cls = TEXT;
+            } else if (b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r') {
+                cls = TEXT;
+            } else if (b >= 0x80 && b <= 0xBF) {
+                cls = CONTINUATION;
+            } else if (b >= 0xC2 && b <= 0xDF) {
+                cls = LEAD_2;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                cls = LEAD_3;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                cls = LEAD_4;
+            } else {
+                cls = BINARY;
+            }
+            BYTE_CLASSES[b] = cls;
+        }
+    }
+
+    /**
+     * Размер каждого окна выборки в байтах.
+     */
+    private final int windowSize;
+
+    /**
+     * Создает классификатор с указанным размером окна выборки.
+     *
+     * @param windowSize размер окна в байтах (не меньше 16)
+     */
+    public TextClassifier(int windowSize) {
+        if (windowSize < 16) {
+            throw new IllegalArgumentException("Window size must be at least 16 bytes: " + windowSize);
+        }
+        this.windowSize = windowSize & ~1;
+    }
+
+    /**
+     * Возвращает размер окна выборки.
+     *
+     * @return размер окна в байтах
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getCost() {
+        return COST_SAMPLE;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public String getConfiguration() {
+        return "window-size=" + windowSize;
+    }
+
+    @Override
+    public int getHeaderLength(SignatureCatalog catalog) {
+        return windowSize;
+    }
+
+    @Override
+    public boolean appliesTo(Detection current) {
+        return current == null;
+    }
+
+    /**
+     * Определяет текстовый файл и возвращает подпись {@code txt} из каталога.
+     *
+     * @param context открытый файл и его заголовок
+     * @param current результат предыдущих определителей
+     * @return результат для текста или {@code current}
+     * @throws IOException если не удалось прочитать файл
+     */
+    @Override
+    public Detection detect(DetectionContext context, Detection current) throws IOException {
+        TextClassification classification = classify(context.channel(), context.size(), context.header());
+        if (!classification.text()) {
+            return current;
+        }
+        return context.catalog().findByExtension(TEXT_EXTENSION)
+                .map(signature -> Detection.text(signature, classification.encoding()))
+                .orElse(current);
+    }
+
+    /**
+     * Классифицирует содержимое файла.
+     *
+     * @param file путь к файлу
+     * @return результат классификации
+     * @throws IOException если не удалось прочитать файл
+     */
+    public TextClassification classify(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return classify(channel, channel.size());
+        }
+    }
+
+    /**
+     * Классифицирует содержимое открытого канала по выборке из трех окон.
+     *
+     * Файлы не длиннее трех окон проверяются целиком, но по одному окну за раз.
+     *
+     * @param channel канал для позиционного чтения
+     * @param size размер данных в канале
+     * @return результат классификации
+     * @throws IOException если не удалось прочитать данные
+     */
+    public TextClassification classify(FileChannel channel, long size) throws IOException {
+        if (size <= 0) {
+            return TextClassification.BINARY;
+        }
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(windowSize, size));
+        readFully(channel, head, 0);
+        return classify(channel, size, head);
+    }
+
+    /**
+     * Классифицирует содержимое открытого канала, используя уже прочитанное начало файла.
+     *
+     * Начало файла служит первым окном выборки, поэтому файлы, целиком
+     * помещающиеся в него, не читаются повторно. Для полной выборки
+     * начало должно быть не короче окна или всего файла.
+     * Буфер начала читается только абсолютными методами и не изменяется.
+     *
+     * @param channel канал для позиционного чтения
+     * @param size размер данных в канале
+     * @param head буфер с байтами файла от позиции 0 до своего предела
+     * @return результат классификации
+     * @throws IOException если не удалось прочитать данные
+     */
+    public TextClassification classify(FileChannel channel, long size, ByteBuffer head) throws IOException {
+        if (size <= 0 || head.limit() == 0) {
+            return TextClassification.BINARY;
+        }
+
+        Encoding encoding = detectEncoding(head);
+        Utf8State state = new Utf8State();
+        if (!scan(head, encoding.bomLength, encoding, state)) {
+            return TextClassification.BINARY;
+        }
+
+        long position = head.limit();
+        if (position >= size) {
+            return result(encoding, state, size > encoding.bomLength);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(windowSize);
+        if (size <= 3L * windowSize) {
+            while (position < size) {
+                buffer.clear();
+                readFully(channel, buffer, position);
+                if (buffer.limit() == 0) {
+                    break;
+                }
+                if (!scan(buffer, 0, encoding, state)) {
+                    return TextClassification.BINARY;
+                }
+                position += buffer.limit();
+            }
+            return result(encoding, state, true);
+        }
+
+        long[] windows = {(size / 2 - windowSize / 2) & ~1L, (size - windowSize) & ~1L};
+        for (long window : windows) {
+            buffer.clear();
+            readFully(channel, buffer, window);
+            state.reset();
+            int from = encoding == Encoding.UTF_8 || encoding == Encoding.UTF_8_BOM ? skipContinuation(buffer) : 0;
+            if (!scan(buffer, from, encoding, state)) {
+                return TextClassification.BINARY;
+            }
+        }
+        return result(encoding, state, true);
+    }
+
+    /**
+     * Классифицирует содержимое массива байтов.
+     *
+     * @param content данные для проверки
+     * @param length количество значимых байтов
+     * @return результат классификации
+     */
+    public TextClassification classify(byte[] content, int length) {
+        if (length <= 0) {
+            return TextClassification.BINARY;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(content, 0, length);
+        Encoding encoding = detectEncoding(buffer);
+        Utf8State state = new Utf8State();
+        if (!scan(buffer, encoding.bomLength, encoding, state)) {
+            return TextClassification.BINARY;
+        }
+        return result(encoding, state, length > encoding.bomLength);
+    }
+
+    /**
+     * Формирует итоговый результат после успешной проверки выборки.
+     *
+     * @param encoding определенная кодировка
+     * @param state состояние автомата UTF-8 после окна, содержащего конец данных
+     * @param hasContent {@code true}, если после BOM есть данные
+     * @return результат классификации
+     */
+    private static TextClassification result(Encoding encoding, Utf8State state, boolean hasContent) {
+        if (!hasContent || state.pending > 0) {
+            return TextClassification.BINARY;
+        }
+        Charset charset = encoding == Encoding.UTF_8 && !state.nonAscii ? StandardCharsets.US_ASCII : encoding.charset;
+        return new TextClassification(true, charset, encoding.bomLength > 0);
+    }
+
+    /**
+     * Определяет кодировку по метке порядка байтов в начале буфера.
+     *
+     * @param buffer буфер с началом файла
+     * @return кодировка; {@link Encoding#UTF_8}, если BOM отсутствует
+     */
+    private static Encoding detectEncoding(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        if (limit >= 3 && (buffer.get(0) & 0xFF) == 0xEF && (buffer.get(1) & 0xFF) == 0xBB && (buffer.get(2) & 0xFF) == 0xBF) {
+            return Encoding.UTF_8_BOM;
+        }
+        if (limit >= 2 && (buffer.get(0) & 0xFF) == 0xFF && (buffer.get(1) & 0xFF) == 0xFE) {
+            return Encoding.UTF_16LE;
+        }
+        if (limit >= 2 && (buffer.get(0) & 0xFF) == 0xFE && (buffer.get(1) & 0xFF) == 0xFF) {
+            return Encoding.UTF_16BE;
+        }
+        return Encoding.UTF_8;
+    }
+
+    /**
+     * Проверяет окно в указанной кодировке.
+     *
+     * @param buffer окно данных
+     * @param from позиция начала проверки
+     * @param encoding кодировка данных
+     * @param state состояние автомата UTF-8, переносимое между смежными окнами
+     * @return {@code false}, если встречен двоичный байт
+     */
+    private static boolean scan(ByteBuffer buffer, int from, Encoding encoding, Utf8State state) {
+        return switch (encoding) {
+            case UTF_16LE -> scanUtf16(buffer, from, false);
+            case UTF_16BE -> scanUtf16(buffer, from, true);
+            default -> scanUtf8(buffer, from, state);
+        };
+    }
+
+    /**
+     * Проверяет окно как UTF-8 с помощью таблицы классов байтов.
+     *
+     * Следующий байт продолжения должен лежать в диапазоне {@code low..high}:
+     * обычно {@code 80..BF}, а сразу после первых байтов E0, ED, F0 и F4 —
+     * в суженном диапазоне из RFC 3629.
+     *
+     * @param buffer окно данных
+     * @param from позиция начала проверки
+     * @param state состояние автомата
+     * @return {@code false}, если встречен двоичный байт или некорректная последовательность
+     */
+    private static boolean scanUtf8(ByteBuffer buffer, int from, Utf8State state) {
+        int pending = state.pending;
+        int low = state.low;
+        int high = state.high;
+        int limit = buffer.limit();
+        for (int i = from; i < limit; i++) {
+            int b = buffer.get(i) & 0xFF;
+            if (pending > 0) {
+                if (b < low || b > high) {
+                    return false;
+                }
+                low = 0x80;
+                high = 0xBF;
+                pending--;
+                continue;
+            }
+            byte cls = BYTE_CLASSES[b];
+            switch (cls) {
+                case TEXT -> { }
+                case LEAD_2 -> pending = 1;
+                case LEAD_3 -> {
+                    pending = 2;
+                    low = b == 0xE0 ? 0xA0 : 0x80;
+                    high = b == 0xED ? 0x9F : 0xBF;
+                }
+                case LEAD_4 -> {
+                    pending = 3;
+                    low = b == 0xF0 ? 0x90 : 0x80;
+                    high = b == 0xF4 ? 0x8F : 0xBF;
+                }
+                default -> {
+                    return false;
+                }
+            }
+            if (cls != TEXT) {
+                state.nonAscii = true;
+            }
+        }
+        state.pending = pending;
+        state.low = low;
+        state.high = high;
+        return true;
+    }
+
+    /**
+     * Проверяет окно как UTF-16 по кодовым единицам.
+     *
+     * @param buffer окно данных
+     * @param from позиция начала проверки (четная относительно начала файла)
+     * @param bigEndian порядок байтов
+     * @return {@code false}, если встречен управляющий символ
+     */
+    private static boolean scanUtf16(ByteBuffer buffer, int from, boolean bigEndian) {
+        int limit = buffer.limit() & ~1;
+        for (int i = from; i < limit; i += 2) {
+            int first = buffer.get(i) & 0xFF;
+            int second = buffer.get(i + 1) & 0xFF;
+            int unit = bigEndian ? (first << 8) | second : (second << 8) | first;
+            if (unit < 0x80 && BYTE_CLASSES[unit] != TEXT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Пропускает байты продолжения UTF-8 в начале окна, попавшего внутрь символа.
+     *
+     * @param buffer окно данных
+     * @return позиция первого байта, с которого можно начинать проверку
+     */
+    private static int skipContinuation(ByteBuffer buffer) {
+        int i = 0;
+        while (i < 3 && i < buffer.limit() && BYTE_CLASSES[buffer.get(i) & 0xFF] == CONTINUATION) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Заполняет буфер данными канала начиная с указанной позиции.
+     *
+     * @param channel канал для чтения
+     * @param buffer буфер; после вызова подготовлен для чтения
+     * @param position позиция в канале
+     * @throws IOException если не удалось прочитать данные
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Кодировки, различаемые классификатором.
+     */
+    private enum Encoding {
+        UTF_8(StandardCharsets.UTF_8, 0),
+        UTF_8_BOM(StandardCharsets.UTF_8, 3),
+        UTF_16LE(StandardCharsets.UTF_16LE, 2),
+        UTF_16BE(StandardCharsets.UTF_16BE, 2);
+
+        private final Charset charset;
+        private final int bomLength;
+
+        Encoding(Charset charset, int bomLength) {
+            this.charset = charset;
+            this.bomLength = bomLength;
+        }
+    }
+
+    /**
+     * Состояние проверки UTF-8 между окнами.
+     */
+    private static final class Utf8State {
+        /** Количество ожидаемых байтов продолжения. */
+        private int pending;
+        /** Наименьшее допустимое значение следующего байта продолжения. */
+        private int low = 0x80;
+        /** Наибольшее допустимое значение следующего байта продолжения. */
+        private int high = 0xBF;
+        /** Встречены ли символы вне ASCII. */
+        private boolean nonAscii;
+
+        /**
+         * Сбрасывает незавершенную последовательность перед несмежным окном.
+         */
+        private void reset() {
+            pending = 0;
+            low = 0x80;
+            high = 0xBF;
+        }
+    }
+}
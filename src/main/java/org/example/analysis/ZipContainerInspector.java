@@ -0,0 +1,467 @@
+package org.example.analysis;
+
+import org.example.model.FileSignature;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Определение точного формата ZIP-контейнера по центральному каталогу.
+ *
+ * Документы OOXML, архивы JAR и пакеты APK начинаются с того же локального
+ * заголовка {@code 504B0304}, что и обычный ZIP. Инспектор читает только
+ * конец файла с записью конца центрального каталога (EOCD, с поддержкой
+ * ZIP64) и сами записи центрального каталога, не распаковывая данные:
+ * <ul>
+ *     <li>{@code AndroidManifest.xml} — {@code apk};</li>
+ *     <li>{@code [Content_Types].xml} вместе с {@code word/}, {@code xl/}
+ *     или {@code ppt/} — {@code docx}, {@code xlsx} или {@code pptx};</li>
+ *     <li>{@code META-INF/MANIFEST.MF} — {@code jar};</li>
+ *     <li>иначе — {@code zip}.</li>
+ * </ul>
+ * Просмотр каталога прекращается, как только формат определен однозначно,
+ * а общий объем прочитанного каталога ограничен, поэтому на файл обычно
+ * приходится несколько килобайт чтения независимо от размера архива.
+ * Экземпляр потокобезопасен.
+ *
+ * Как {@link Detector} запускается только для неоднозначной подписи ZIP.
+ */
+public final class ZipContainerInspector implements Detector {
+    /**
+     * Имя определителя.
+     */
+    public static final String NAME = "zip";
+
+    /**
+     * Версия алгоритма определителя.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Магические числа локального заголовка ZIP.
+     */
+    public static final String ZIP_MAGIC = "504B0304";
+
+    /** Сигнатура записи конца центрального каталога. */
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    /** Сигнатура локатора записи конца центрального каталога ZIP64. */
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    /** Сигнатура записи конца центрального каталога ZIP64. */
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    /** Сигнатура записи центрального каталога. */
+    private static final int ENTRY_SIGNATURE = 0x02014b50;
+
+    /** Размер записи конца центрального каталога без комментария. */
+    private static final int EOCD_SIZE = 22;
+    /** Размер локатора ZIP64. */
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    /** Размер записи конца центрального каталога ZIP64 без расширяемых данных. */
+    private static final int ZIP64_EOCD_SIZE = 56;
+    /** Размер фиксированной части записи центрального каталога. */
+    private static final int ENTRY_SIZE = 46;
+    /** Максимальная длина комментария архива. */
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    /** Имена элементов, определяющие формат. */
+    private static final byte[] ANDROID_MANIFEST = ascii("AndroidManifest.xml");
+    private static final byte[] CONTENT_TYPES = ascii("[Content_Types].xml");
+    private static final byte[] JAR_MANIFEST = ascii("META-INF/MANIFEST.MF");
+    private static final byte[] WORD_PREFIX = ascii("word/");
+    private static final byte[] EXCEL_PREFIX = ascii("xl/");
+    private static final byte[] POWERPOINT_PREFIX = ascii("ppt/");
+
+    /**
+     * Размер буфера чтения в байтах.
+     */
+    private final int bufferSize;
+
+    /**
+     * Максимальный объем читаемого центрального каталога в байтах.
+     */
+    private final long maxDirectoryBytes;
+
+    /**
+     * Создает инспектор.
+     *
+     * @param bufferSize размер буфера чтения конца файла и каталога в байтах
+     * @param maxDirectoryBytes максимальный объем просматриваемого центрального каталога
+     * @throws IllegalArgumentException если буфер меньше записи EOCD или ограничение не положительно
+     */
+    public ZipContainerInspector(int bufferSize, long maxDirectoryBytes) {
+        if (bufferSize < ZIP64_EOCD_SIZE + ZIP64_LOCATOR_SIZE + EOCD_SIZE || maxDirectoryBytes <= 0) {
+            throw new IllegalArgumentException("Invalid ZIP inspector limits: " + bufferSize + ", " + maxDirectoryBytes);
+        }
+        this.bufferSize = bufferSize;
+        this.maxDirectoryBytes = maxDirectoryBytes;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getCost() {
+        return COST_STRUCTURE;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public String getConfiguration() {
+        return "buffer-size=" + bufferSize + ",max-directory-bytes=" + maxDirectoryBytes;
+    }
+
+    @Override
+    public int getHeaderLength(SignatureCatalog catalog) {
+        return 0;
+    }
+
+    @Override
+    public boolean appliesTo(Detection current) {
+        return current != null && isZip(current.signature());
+    }
+
+    @Override
+    public Detection detect(DetectionContext context, Detection current) throws IOException {
+        return Detection.of(refine(context.channel(), current.signature(), context.catalog()), true);
+    }
+
+    /**
+     * Проверяет, является ли подпись подписью ZIP-контейнера.
+     *
+     * @param signature найденная подпись
+     * @return {@code true}, если магические числа подписи — локальный заголовок ZIP по смещению 0
+     */
+    public static boolean isZip(FileSignature signature) {
+        return signature != null
+                && ZIP_MAGIC.equalsIgnoreCase(signature.getHexSignature())
+                && (signature.getSignatureOffset() == null || signature.getSignatureOffset() == 0);
+    }
+
+    /**
+     * Уточняет подпись ZIP-контейнера по его центральному каталогу.
+     *
+     * Позиция канала изменяется.
+     *
+     * @param channel канал файла
+     * @param matched подпись, найденная по магическим числам
+     * @param catalog каталог подписей
+     * @return подпись определенного формата, если она есть в каталоге, иначе {@code matched}
+     * @throws IOException если не удалось прочитать файл
+     */
+    public FileSignature refine(SeekableByteChannel channel, FileSignature matched, SignatureCatalog catalog) throws IOException {
+        if (!isZip(matched)) {
+            return matched;
+        }
+        return inspect(channel)
+                .flatMap(catalog::findByExtension)
+                .orElse(matched);
+    }
+
+    /**
+     * Определяет формат ZIP-контейнера.
+     *
+     * Позиция канала изменяется.
+     *
+     * @param channel канал файла
+     * @return расширение формата ({@code zip}, {@code jar}, {@code apk}, {@code docx},
+     *         {@code xlsx}, {@code pptx}) или пустой {@link Optional}, если центральный
+     *         каталог не найден или поврежден
+     * @throws IOException если не удалось прочитать файл
+     */
+    public Optional<String> inspect(SeekableByteChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < EOCD_SIZE) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        Tail tail = findEndOfDirectory(channel, size, buffer);
+        if (tail == null) {
+            return Optional.empty();
+        }
+        long eocd = tail.eocd();
+        long tailStart = tail.bufferStart();
+        int at = (int) (eocd - tailStart);
+        long entries = Short.toUnsignedLong(buffer.getShort(at + 10));
+        long directorySize = Integer.toUnsignedLong(buffer.getInt(at + 12));
+        long directoryOffset = Integer.toUnsignedLong(buffer.getInt(at + 16));
+        long directoryEnd = eocd;
+        long buffered = tailStart;
+
+        if (entries == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            long[] zip64 = readZip64(channel, eocd, tailStart, buffer);
+            if (zip64 == null) {
+                return Optional.empty();
+            }
+            directorySize = zip64[0];
+            directoryOffset = zip64[1];
+            directoryEnd = zip64[2];
+            buffered = -1;
+        }
+
+        // Начало каталога вычисляется от его конца, что верно и для архивов с данными перед ZIP;
+        // смещение из записи используется, если по вычисленной позиции записи каталога нет
+        String format = null;
+        long directoryStart = directoryEnd - directorySize;
+        if (directoryStart >= 0) {
+            format = scanDirectory(channel, directoryStart, directoryEnd, buffer, buffered);
+        }
+        if (format == null && directoryOffset != directoryStart && directoryOffset < directoryEnd) {
+            format = scanDirectory(channel, directoryOffset, directoryEnd, buffer, -1);
+        }
+        return Optional.ofNullable(format);
+    }
+
+    /**
+     * Ищет запись конца центрального каталога в конце файла.
+     *
+     * Сначала читается блок размером с буфер. Только если запись не найдена,
+     * а файл длиннее блока, просматривается вся область, где может
+     * находиться запись с комментарием максимальной длины.
+     *
+     * @param channel канал файла
+     * @param size размер файла
+     * @param buffer буфер чтения; после возврата содержит запись и предшествующий ей локатор ZIP64
+     * @return найденная запись и позиция начала буфера в файле или {@code null}
+     * @throws IOException если не удалось прочитать файл
+     */
+    private static Tail findEndOfDirectory(SeekableByteChannel channel, long size, ByteBuffer buffer) throws IOException {
+        long tailStart = Math.max(0, size - buffer.capacity());
+        readAt(channel, tailStart, buffer, (int) (size - tailStart));
+        long eocd = scanForEndOfDirectory(buffer, tailStart, size);
+        if (eocd >= 0) {
+            if (eocd - tailStart >= ZIP64_LOCATOR_SIZE || tailStart == 0) {
+                return new Tail(eocd, tailStart);
+            }
+        } else {
+            long searchStart = Math.max(0, size - EOCD_SIZE - MAX_COMMENT);
+            if (searchStart >= tailStart) {
+                return null;
+            }
+            ByteBuffer region = ByteBuffer.allocate((int) (size - searchStart)).order(ByteOrder.LITTLE_ENDIAN);
+            readAt(channel, searchStart, region, region.capacity());
+            eocd = scanForEndOfDirectory(region, searchStart, size);
+            if (eocd < 0) {
+                return null;
+            }
+        }
+        long windowStart = Math.max(0, eocd - ZIP64_LOCATOR_SIZE);
+        readAt(channel, windowStart, buffer, (int) Math.min(buffer.capacity(), size - windowStart));
+        return new Tail(eocd, windowStart);
+    }
+
+    /**
+     * Ищет сигнатуру записи конца каталога в буфере, начиная с конца.
+     *
+     * @param buffer буфер с данными файла от {@code start}
+     * @param start позиция начала буфера в файле
+     * @param size размер файла
+     * @return позиция записи или -1
+     */
+    private static long scanForEndOfDirectory(ByteBuffer buffer, long start, long size) {
+        for (int i = buffer.limit() - EOCD_SIZE; i >= 0; i--) {
+            if (buffer.getInt(i) == EOCD_SIGNATURE) {
+                long position = start + i;
+                int commentLength = Short.toUnsignedInt(buffer.getShort(i + 20));
+                if (position + EOCD_SIZE + commentLength <= size) {
+                    return position;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Читает размер и положение центрального каталога из записей ZIP64.
+     *
+     * @param channel канал файла
+     * @param eocd позиция обычной записи конца каталога
+     * @param tailStart позиция начала буфера в файле
+     * @param buffer буфер с концом файла
+     * @return размер каталога, его смещение и позиция записи ZIP64 или {@code null}
+     * @throws IOException если не удалось прочитать файл
+     */
+    private long[] readZip64(SeekableByteChannel channel, long eocd, long tailStart, ByteBuffer buffer) throws IOException {
+        long locator = eocd - ZIP64_LOCATOR_SIZE;
+        if (locator < tailStart) {
+            return null;
+        }
+        int at = (int) (locator - tailStart);
+        if (buffer.getInt(at) != ZIP64_LOCATOR_SIGNATURE) {
+            return null;
+        }
+        long recordOffset = buffer.getLong(at + 8);
+        // Запись ZIP64 обычно расположена прямо перед локатором
+        long record = locator - ZIP64_EOCD_SIZE;
+        if (record < 0) {
+            return null;
+        }
+        readAt(channel, record, buffer, ZIP64_EOCD_SIZE);
+        if (buffer.limit() < ZIP64_EOCD_SIZE || buffer.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+            record = recordOffset;
+            readAt(channel, record, buffer, ZIP64_EOCD_SIZE);
+            if (buffer.limit() < ZIP64_EOCD_SIZE || buffer.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                return null;
+            }
+        }
+        return new long[] {buffer.getLong(40), buffer.getLong(48), record};
+    }
+
+    /**
+     * Просматривает записи центрального каталога.
+     *
+     * Небольшой каталог обычно уже находится в буфере вместе с концом файла
+     * и не требует дополнительного чтения.
+     *
+     * @param channel канал файла
+     * @param start позиция первой записи
+     * @param end позиция конца каталога
+     * @param buffer буфер чтения
+     * @param buffered позиция в файле, с которой начинается содержимое буфера, или -1
+     * @return расширение формата или {@code null}, если по позиции {@code start} нет записи каталога
+     * @throws IOException если не удалось прочитать файл
+     */
+    private String scanDirectory(SeekableByteChannel channel, long start, long end, ByteBuffer buffer, long buffered)
+            throws IOException {
+        boolean contentTypes = false;
+        boolean jarManifest = false;
+        String officeFormat = null;
+
+        long limit = Math.min(end, start + maxDirectoryBytes);
+        long position = start;
+        long bufferStart = buffered;
+        if (bufferStart < 0 || position < bufferStart) {
+            bufferStart = position;
+            readAt(channel, bufferStart, buffer, (int) Math.min(buffer.capacity(), limit - bufferStart));
+        }
+        while (position + ENTRY_SIZE <= limit) {
+            if (position - bufferStart + ENTRY_SIZE > buffer.limit()) {
+                bufferStart = position;
+                readAt(channel, bufferStart, buffer, (int) Math.min(buffer.capacity(), limit - bufferStart));
+                if (buffer.limit() < ENTRY_SIZE) {
+                    break;
+                }
+            }
+            int at = (int) (position - bufferStart);
+            if (buffer.getInt(at) != ENTRY_SIGNATURE) {
+                if (position == start) {
+                    return null;
+                }
+                break;
+            }
+            int nameLength = Short.toUnsignedInt(buffer.getShort(at + 28));
+            int extraLength = Short.toUnsignedInt(buffer.getShort(at + 30));
+            int commentLength = Short.toUnsignedInt(buffer.getShort(at + 32));
+            if (at + ENTRY_SIZE + nameLength > buffer.limit() && ENTRY_SIZE + nameLength <= buffer.capacity()) {
+                bufferStart = position;
+                readAt(channel, bufferStart, buffer, (int) Math.min(buffer.capacity(), limit - bufferStart));
+                at = 0;
+            }
+            if (at + ENTRY_SIZE + nameLength <= buffer.limit()) {
+                int name = at + ENTRY_SIZE;
+                if (equalsName(buffer, name, nameLength, ANDROID_MANIFEST)) {
+                    return "apk";
+                }
+                if (equalsName(buffer, name, nameLength, CONTENT_TYPES)) {
+                    contentTypes = true;
+                } else if (equalsName(buffer, name, nameLength, JAR_MANIFEST)) {
+                    jarManifest = true;
+                } else if (officeFormat == null) {
+                    officeFormat = startsWith(buffer, name, nameLength, WORD_PREFIX) ? "docx"
+                            : startsWith(buffer, name, nameLength, EXCEL_PREFIX) ? "xlsx"
+                            : startsWith(buffer, name, nameLength, POWERPOINT_PREFIX) ? "pptx"
+                            : null;
+                }
+                if (contentTypes && officeFormat != null) {
+                    return officeFormat;
+                }
+            }
+            position += ENTRY_SIZE + nameLength + extraLength + commentLength;
+        }
+        return jarManifest ? "jar" : "zip";
+    }
+
+    /**
+     * Читает данные по позиции в буфер.
+     *
+     * После возврата буфер подготовлен к чтению от 0 до количества прочитанных байтов.
+     *
+     * @param channel канал файла
+     * @param position позиция в файле
+     * @param buffer буфер
+     * @param length желаемое количество байтов
+     * @throws IOException если не удалось прочитать файл
+     */
+    private static void readAt(SeekableByteChannel channel, long position, ByteBuffer buffer, int length) throws IOException {
+        buffer.clear().limit(Math.max(0, Math.min(length, buffer.capacity())));
+        channel.position(position);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Сравнивает имя элемента с образцом.
+     *
+     * @param buffer буфер с записью каталога
+     * @param offset позиция имени в буфере
+     * @param length длина имени
+     * @param expected образец
+     * @return {@code true}, если имя совпадает с образцом
+     */
+    private static boolean equalsName(ByteBuffer buffer, int offset, int length, byte[] expected) {
+        return length == expected.length && startsWith(buffer, offset, length, expected);
+    }
+
+    /**
+     * Проверяет, начинается ли имя элемента с префикса.
+     *
+     * @param buffer буфер с записью каталога
+     * @param offset позиция имени в буфере
+     * @param length длина имени
+     * @param prefix префикс
+     * @return {@code true}, если имя начинается с префикса
+     */
+    private static boolean startsWith(ByteBuffer buffer, int offset, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Положение записи конца центрального каталога в прочитанном конце файла.
+     *
+     * @param eocd позиция записи в файле
+     * @param bufferStart позиция в файле, с которой начинается содержимое буфера
+     */
+    private record Tail(long eocd, long bufferStart) {
+    }
+
+    /**
+     * Кодирует имя элемента в ASCII.
+     *
+     * @param name имя
+     * @return байты имени
+     */
+    private static byte[] ascii(String name) {
+        return name.getBytes(StandardCharsets.US_ASCII);
+    }
+}
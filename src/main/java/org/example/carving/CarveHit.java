@@ -0,0 +1,12 @@
+package org.example.carving;
+
+import org.example.model.FileSignature;
+
+/**
+ * Кандидат на восстановление, найденный в образе диска.
+ *
+ * @param offset смещение начала подписи от начала образа в байтах
+ * @param signature подпись файла, совпавшая по этому смещению
+ */
+public record CarveHit(long offset, FileSignature signature) {
+}
@@ -0,0 +1,18 @@
+package org.example.carving;
+
+import org.example.model.FileSignature;
+
+import java.nio.file.Path;
+
+/**
+ * Файл, извлеченный из образа диска.
+ *
+ * @param path путь к записанному файлу
+ * @param offset смещение начала файла в образе
+ * @param length длина записанных данных в байтах
+ * @param signature подпись файла; для ZIP-контейнеров уточнена по центральному каталогу
+ * @param complete {@code true}, если конец файла определен по его структуре,
+ *                 {@code false}, если данные обрезаны по ограничению размера
+ */
+public record CarvedFile(Path path, long offset, long length, FileSignature signature, boolean complete) {
+}
@@ -0,0 +1,145 @@
+package org.example.carving;
+
+import org.example.analysis.SignatureCatalog;
+import org.example.analysis.ZipContainerInspector;
+import org.example.model.FileSignature;
+import org.example.model.FileType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Извлечение найденных файлов из образа диска без копирования через кучу.
+ *
+ * Длина файла определяется {@link FileEndLocator} по отображенному в память
+ * участку образа, а сами данные переносятся в выходной файл через
+ * {@link FileChannel#transferTo}. Размер каждого файла ограничен
+ * максимумом для его {@link FileType}. Конец ZIP-архивов ищется через
+ * {@link ZipEndIndex}, поэтому экземпляр предназначен для одного образа
+ * и кандидатов, передаваемых по возрастанию смещения из одного потока.
+ * Формат найденного ZIP-контейнера (docx, xlsx, pptx, jar, apk) уточняется
+ * {@link ZipContainerInspector} по центральному каталогу извлекаемого участка,
+ * так как по магическим числам эти форматы не различаются.
+ */
+public final class CarvedFileExtractor {
+    /**
+     * Максимальный размер извлекаемого файла для каждого типа.
+     */
+    private final Map<FileType, Long> maxSizes;
+
+    /**
+     * Уже найденные записи конца центрального каталога ZIP в образе.
+     */
+    private final ZipEndIndex zipEnds = new ZipEndIndex();
+
+    /**
+     * Инспектор ZIP-контейнеров.
+     */
+    private final ZipContainerInspector zipInspector;
+
+    /**
+     * Каталог подписей для уточненных форматов ZIP-контейнеров.
+     */
+    private final SignatureCatalog catalog;
+
+    /**
+     * Создает экстрактор с ограничениями размера по типам файлов.
+     *
+     * @param maxSizes максимальные размеры в байтах; для отсутствующих типов
+     *                 используется ограничение {@link FileType#UNKNOWN}
+     * @param zipInspector инспектор ZIP-контейнеров
+     * @param catalog каталог подписей
+     */
+    public CarvedFileExtractor(Map<FileType, Long> maxSizes, ZipContainerInspector zipInspector,
+                               SignatureCatalog catalog) {
+        this.maxSizes = new EnumMap<>(maxSizes);
+        this.zipInspector = zipInspector;
+        this.catalog = catalog;
+    }
+
+    /**
+     * Извлекает файл, найденный по указанному смещению.
+     *
+     * Для форматов с известной структурой файл записывается только
+     * если его конец найден в пределах ограничения размера. Для остальных
+     * форматов записываются данные до следующего кандидата или до ограничения.
+     *
+     * @param image канал образа диска
+     * @param hit найденный кандидат
+     * @param limit смещение, до которого можно извлекать данные для форматов
+     *              без определения конца (например, смещение следующего кандидата)
+     * @param outputDir каталог для записи восстановленных файлов
+     * @return извлеченный файл или пустой {@link Optional}, если кандидат отклонен
+     * @throws IOException если не удалось прочитать образ или записать файл
+     */
+    public Optional<CarvedFile> extract(FileChannel image, CarveHit hit, long limit, Path outputDir) throws IOException {
+        FileSignature signature = hit.signature();
+        long available = image.size() - hit.offset();
+        long cap = Math.min(maxSize(signature.getFileType()), available);
+        if (cap <= 0) {
+            return Optional.empty();
+        }
+
+        long length;
+        boolean complete;
+        if (FileEndLocator.isZip(signature.getExtension())) {
+            length = zipEnds.locate(image, hit.offset(), cap);
+            if (length <= 0) {
+                return Optional.empty();
+            }
+            try (ImageRegionChannel archive = new ImageRegionChannel(image, hit.offset(), length)) {
+                signature = zipInspector.refine(archive, signature, catalog);
+            }
+            complete = true;
+        } else if (FileEndLocator.supports(signature.getExtension())) {
+            MappedByteBuffer region = image.map(FileChannel.MapMode.READ_ONLY, hit.offset(), Math.min(cap, Integer.MAX_VALUE));
+            length = FileEndLocator.locate(signature.getExtension(), region);
+            if (length <= 0 || length > cap) {
+                return Optional.empty();
+            }
+            complete = true;
+        } else {
+            length = Math.min(cap, Math.max(limit - hit.offset(), 0));
+            if (length == 0) {
+                return Optional.empty();
+            }
+            complete = false;
+        }
+
+        Path target = outputDir.resolve(String.format("%016x.%s", hit.offset(), signature.getExtension().toLowerCase()));
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = hit.offset();
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = image.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    throw new IOException("Unexpected end of image at offset " + position);
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+        return Optional.of(new CarvedFile(target, hit.offset(), length, signature, complete));
+    }
+
+    /**
+     * Возвращает ограничение размера для типа файла.
+     *
+     * @param fileType тип файла
+     * @return максимальный размер в байтах
+     */
+    private long maxSize(FileType fileType) {
+        Long size = maxSizes.get(fileType);
+        if (size == null) {
+            size = maxSizes.getOrDefault(FileType.UNKNOWN, Long.MAX_VALUE);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,238 @@
+package org.example.carving;
+
+import org.example.analysis.EntropyClassifier;
+import org.example.analysis.SignatureMatcher;
+import org.example.model.FileSignature;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Движок поиска файловых подписей в сырых образах дисков.
+ *
+ * Отображает образ в память последовательными окнами через
+ * {@link FileChannel#map} и проверяет каждое выровненное смещение
+ * скомпилированным {@link SignatureMatcher}. Соседние окна перекрываются
+ * на длину проверки подписей и структуры заголовков без одного байта,
+ * поэтому кандидаты на границе окна проверяются так же, как внутри него,
+ * а каждое смещение проверяется ровно один раз.
+ * Образ не загружается в кучу, что позволяет обрабатывать образы больше
+ * объема оперативной памяти.
+ *
+ * Окно проверяется участками по {@value #REGION_SIZE} байтов. В участке,
+ * состоящем только из нулей, не проверяются смещения, заголовок которых
+ * целиком лежит внутри участка: нулевой заголовок не совпадает ни с одной
+ * подписью, поэтому пропуск не теряет кандидатов. По желанию так же
+ * пропускаются участки, неотличимые от случайных данных
+ * ({@link EntropyClassifier#isRandom}): зашифрованные области и тела
+ * сжатых файлов. Этот пропуск может потерять заголовок, за которым сразу
+ * следуют сжатые данные, поэтому начало такого участка все равно проверяется.
+ * Гистограмма участка дороже проверки нескольких смещений, поэтому случайные
+ * участки пропускаются только при шаге не больше 8 байтов.
+ */
+public final class CarvingEngine {
+    /**
+     * Размер участка, проверяемого на нули и случайные данные, в байтах.
+     */
+    private static final int REGION_SIZE = 4096;
+
+    /**
+     * Минимальное количество проверяемых смещений в участке, при котором
+     * проверка участка на случайные данные окупается.
+     */
+    private static final int MIN_POSITIONS_FOR_RANDOM_CHECK = 512;
+
+    /**
+     * Скомпилированный каталог подписей.
+     */
+    private final SignatureMatcher matcher;
+
+    /**
+     * Шаг проверяемых смещений в байтах (1 — каждый байт, 512 — каждый сектор).
+     */
+    private final int alignment;
+
+    /**
+     * Размер окна отображения без учета перекрытия, кратный {@link #alignment}.
+     */
+    private final int windowSize;
+
+    /**
+     * Размер участка, кратный {@link #alignment}.
+     */
+    private final int regionSize;
+
+    /**
+     * Признак того, что нулевой заголовок не совпадает ни с одной подписью
+     * и нулевые участки можно пропускать.
+     */
+    private final boolean skipZeroRegions;
+
+    /**
+     * Признак пропуска участков, неотличимых от случайных данных.
+     */
+    private final boolean skipRandomRegions;
+
+    /**
+     * Количество байтов, смещения в которых пропущены при последнем сканировании.
+     */
+    private long skippedBytes;
+
+    /**
+     * Создает движок поиска, пропускающий только нулевые участки.
+     *
+     * @param matcher скомпилированный каталог подписей
+     * @param alignment шаг проверяемых смещений в байтах
+     * @param windowSize желаемый размер окна отображения в байтах
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public CarvingEngine(SignatureMatcher matcher, int alignment, int windowSize) {
+        this(matcher, alignment, windowSize, false);
+    }
+
+    /**
+     * Создает движок поиска.
+     *
+     * @param matcher скомпилированный каталог подписей
+     * @param alignment шаг проверяемых смещений в байтах
+     * @param windowSize желаемый размер окна отображения в байтах
+     * @param skipRandomRegions {@code true}, чтобы пропускать участки, неотличимые от случайных данных;
+     *                          действует только при шаге не больше 8 байтов
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public CarvingEngine(SignatureMatcher matcher, int alignment, int windowSize, boolean skipRandomRegions) {
+        if (alignment < 1) {
+            throw new IllegalArgumentException("Alignment must be positive: " + alignment);
+        }
+        int overlap = Math.max(matcher.getValidationLength() - 1, 0);
+        int maxWindow = Integer.MAX_VALUE - overlap;
+        int window = Math.min(windowSize, maxWindow) / alignment * alignment;
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window size must be at least one alignment unit: " + windowSize);
+        }
+        this.matcher = matcher;
+        this.alignment = alignment;
+        this.windowSize = window;
+        this.regionSize = (REGION_SIZE + alignment - 1) / alignment * alignment;
+        int headerLength = Math.max(matcher.getHeaderLength(), 1);
+        this.skipZeroRegions = matcher.match(ByteBuffer.allocate(headerLength), 0, headerLength) == null;
+        this.skipRandomRegions = skipRandomRegions && regionSize / alignment >= MIN_POSITIONS_FOR_RANDOM_CHECK;
+    }
+
+    /**
+     * Сканирует образ и передает найденные кандидаты потребителю.
+     *
+     * Кандидаты передаются в порядке возрастания смещения. Прерывание
+     * вызывающего потока останавливает сканирование на границе окна.
+     *
+     * @param image путь к образу диска
+     * @param sink потребитель найденных кандидатов
+     * @return количество найденных кандидатов
+     * @throws IOException если не удалось прочитать образ
+     * @throws InterruptedIOException если поток был прерван
+     */
+    public long scan(Path image, Consumer<CarveHit> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            return scan(channel, sink);
+        }
+    }
+
+    /**
+     * Сканирует открытый канал образа и передает найденные кандидаты потребителю.
+     *
+     * @param channel канал образа диска
+     * @param sink потребитель найденных кандидатов
+     * @return количество найденных кандидатов
+     * @throws IOException если не удалось прочитать образ
+     * @throws InterruptedIOException если поток был прерван
+     */
+    public long scan(FileChannel channel, Consumer<CarveHit> sink) throws IOException {
+        long size = channel.size();
+        int overlap = Math.max(matcher.getValidationLength() - 1, 0);
+        long hits = 0;
+        skippedBytes = 0;
+
+        for (long base = 0; base < size; base += windowSize) {
+            int mappedLength = (int) Math.min((long) windowSize + overlap, size - base);
+            int scanEnd = Math.min(windowSize, mappedLength);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, base, mappedLength);
+
+            for (int region = 0; region < scanEnd; region += regionSize) {
+                int regionEnd = Math.min(region + regionSize, scanEnd);
+                int dataEnd = Math.min(region + regionSize, mappedLength);
+                int from = region;
+                if (skipZeroRegions && EntropyClassifier.isZeroFilled(window, region, dataEnd)) {
+                    from = firstUnskipped(region, dataEnd);
+                } else if (skipRandomRegions && EntropyClassifier.isRandom(window, region, dataEnd)) {
+                    hits += match(window, base, region, mappedLength, sink);
+                    from = Math.max(region + alignment, firstUnskipped(region, dataEnd));
+                }
+                skippedBytes += Math.min(from, regionEnd) - region;
+
+                for (int pos = from; pos < regionEnd; pos += alignment) {
+                    hits += match(window, base, pos, mappedLength, sink);
+                }
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Carving interrupted at offset " + (base + scanEnd));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Проверяет одно смещение окна и передает найденный кандидат потребителю.
+     *
+     * @param window отображенное окно образа
+     * @param base смещение окна в образе
+     * @param pos проверяемая позиция в окне
+     * @param mappedLength длина отображенных данных окна
+     * @param sink потребитель найденных кандидатов
+     * @return 1, если кандидат найден, иначе 0
+     */
+    private int match(ByteBuffer window, long base, int pos, int mappedLength, Consumer<CarveHit> sink) {
+        FileSignature signature = matcher.match(window, pos, mappedLength);
+        if (signature == null) {
+            return 0;
+        }
+        sink.accept(new CarveHit(base + pos, signature));
+        return 1;
+    }
+
+    /**
+     * Вычисляет первую позицию участка, заголовок которой выходит за его пределы.
+     *
+     * @param region начало участка
+     * @param dataEnd конец данных участка
+     * @return первая проверяемая позиция, кратная шагу относительно начала участка
+     */
+    private int firstUnskipped(int region, int dataEnd) {
+        int inside = Math.max(dataEnd - matcher.getHeaderLength() + 1 - region, 0);
+        return region + (inside + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * Возвращает количество байтов, смещения в которых пропущены при последнем сканировании.
+     *
+     * @return количество пропущенных байтов
+     */
+    public long getSkippedBytes() {
+        return skippedBytes;
+    }
+
+    /**
+     * Возвращает шаг проверяемых смещений.
+     *
+     * @return шаг в байтах
+     */
+    public int getAlignment() {
+        return alignment;
+    }
+}
@@ -0,0 +1,291 @@
+package org.example.carving;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Определение конца файла по его внутренней структуре.
+ *
+ * Для каждого поддерживаемого формата разбирает заголовки и блоки,
+ * начиная с подписи, и вычисляет длину файла: по маркеру EOI для JPEG,
+ * по блоку IEND для PNG, по записи конца центрального каталога для ZIP,
+ * по полю размера для RIFF и по завершающему байту для GIF.
+ * Все методы используют только абсолютное чтение из буфера.
+ */
+public final class FileEndLocator {
+    /**
+     * Признак того, что конец файла не найден.
+     */
+    public static final long NOT_FOUND = -1;
+
+    /**
+     * Признак того, что формат не поддерживает определение конца.
+     */
+    public static final long UNSUPPORTED = -2;
+
+    /**
+     * Сигнатура записи конца центрального каталога ZIP.
+     */
+    static final int ZIP_EOCD_SIGNATURE = 0x06054B50;
+
+    /**
+     * Размер записи конца центрального каталога ZIP без комментария.
+     */
+    static final int ZIP_EOCD_SIZE = 22;
+
+    private FileEndLocator() {
+    }
+
+    /**
+     * Проверяет, умеет ли локатор определять конец файлов с указанным расширением.
+     *
+     * @param extension расширение из подписи файла
+     * @return {@code true}, если формат поддерживается
+     */
+    public static boolean supports(String extension) {
+        return switch (extension.toLowerCase()) {
+            case "jpg", "jpeg", "png", "gif", "zip", "docx", "xlsx", "pptx", "jar", "apk", "webp", "avi", "wav" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Проверяет, определяется ли конец файлов с указанным расширением по записи конца центрального каталога ZIP.
+     *
+     * @param extension расширение из подписи файла
+     * @return {@code true} для ZIP, JAR, APK и документов OOXML
+     */
+    static boolean isZip(String extension) {
+        return switch (extension.toLowerCase()) {
+            case "zip", "docx", "xlsx", "pptx", "jar", "apk" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Вычисляет длину файла, начинающегося в позиции 0 буфера.
+     *
+     * @param extension расширение из подписи файла
+     * @param data данные образа, начиная с подписи
+     * @return длина файла в байтах, {@link #NOT_FOUND}, если конец не найден в пределах буфера,
+     *         или {@link #UNSUPPORTED} для форматов без определения конца
+     */
+    public static long locate(String extension, ByteBuffer data) {
+        return switch (extension.toLowerCase()) {
+            case "jpg", "jpeg" -> locateJpeg(data);
+            case "png" -> locatePng(data);
+            case "gif" -> locateGif(data);
+            case "zip", "docx", "xlsx", "pptx", "jar", "apk" -> locateZip(data);
+            case "webp", "avi", "wav" -> locateRiff(data);
+            default -> UNSUPPORTED;
+        };
+    }
+
+    /**
+     * Находит конец JPEG, проходя по маркерам сегментов до EOI ({@code FFD9}).
+     *
+     * Данные после SOS просматриваются до следующего маркера, отличного
+     * от заполнителя {@code FF00} и маркеров RST.
+     *
+     * @param data данные, начиная с SOI
+     * @return длина файла или {@link #NOT_FOUND}
+     */
+    static long locateJpeg(ByteBuffer data) {
+        int limit = data.limit();
+        int pos = 2;
+        while (pos + 1 < limit) {
+            if ((data.get(pos) & 0xFF) != 0xFF) {
+                return NOT_FOUND;
+            }
+            int marker = data.get(pos + 1) & 0xFF;
+            if (marker == 0xFF) {
+                pos++;
+                continue;
+            }
+            if (marker == 0xD9) {
+                return pos + 2;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                pos += 2;
+                continue;
+            }
+            if (pos + 3 >= limit) {
+                return NOT_FOUND;
+            }
+            int length = ((data.get(pos + 2) & 0xFF) << 8) | (data.get(pos + 3) & 0xFF);
+            if (length < 2) {
+                return NOT_FOUND;
+            }
+            pos += 2 + length;
+            if (marker == 0xDA) {
+                pos = skipEntropyCodedData(data, pos);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Пропускает сжатые данные скана JPEG.
+     *
+     * @param data данные JPEG
+     * @param pos позиция начала сжатых данных
+     * @return позиция следующего маркера или предел буфера
+     */
+    private static int skipEntropyCodedData(ByteBuffer data, int pos) {
+        int limit = data.limit();
+        while (pos + 1 < limit) {
+            if ((data.get(pos) & 0xFF) == 0xFF) {
+                int next = data.get(pos + 1) & 0xFF;
+                if (next != 0x00 && !(next >= 0xD0 && next <= 0xD7)) {
+                    return pos;
+                }
+                pos += 2;
+            } else {
+                pos++;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Находит конец PNG, проходя по блокам до IEND.
+     *
+     * @param data данные, начиная с подписи PNG
+     * @return длина файла или {@link #NOT_FOUND}
+     */
+    static long locatePng(ByteBuffer data) {
+        int limit = data.limit();
+        long pos = 8;
+        while (pos + 8 <= limit) {
+            long length = data.getInt((int) pos) & 0xFFFFFFFFL;
+            int type = data.getInt((int) pos + 4);
+            long end = pos + 12 + length;
+            if (type == 0x49454E44) {
+                return end <= limit ? end : NOT_FOUND;
+            }
+            pos = end;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Находит конец GIF, проходя по дескрипторам изображений и расширениям до {@code 0x3B}.
+     *
+     * @param data данные, начиная с подписи GIF
+     * @return длина файла или {@link #NOT_FOUND}
+     */
+    static long locateGif(ByteBuffer data) {
+        int limit = data.limit();
+        if (limit < 13) {
+            return NOT_FOUND;
+        }
+        int pos = 13;
+        int flags = data.get(10) & 0xFF;
+        if ((flags & 0x80) != 0) {
+            pos += 3 * (1 << ((flags & 0x07) + 1));
+        }
+        while (pos < limit) {
+            int block = data.get(pos) & 0xFF;
+            if (block == 0x3B) {
+                return pos + 1;
+            }
+            if (block == 0x21) {
+                pos = skipSubBlocks(data, pos + 2);
+            } else if (block == 0x2C) {
+                if (pos + 10 > limit) {
+                    return NOT_FOUND;
+                }
+                int localFlags = data.get(pos + 9) & 0xFF;
+                pos += 10;
+                if ((localFlags & 0x80) != 0) {
+                    pos += 3 * (1 << ((localFlags & 0x07) + 1));
+                }
+                pos = skipSubBlocks(data, pos + 1);
+            } else {
+                return NOT_FOUND;
+            }
+            if (pos < 0) {
+                return NOT_FOUND;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Пропускает цепочку подблоков GIF, завершающуюся блоком нулевой длины.
+     *
+     * @param data данные GIF
+     * @param pos позиция первого подблока
+     * @return позиция после завершающего блока или {@code -1}, если данные закончились
+     */
+    private static int skipSubBlocks(ByteBuffer data, int pos) {
+        int limit = data.limit();
+        while (pos < limit) {
+            int size = data.get(pos) & 0xFF;
+            pos += 1 + size;
+            if (size == 0) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Находит конец ZIP по записи конца центрального каталога.
+     *
+     * Запись принимается только если смещение и размер центрального каталога
+     * указывают точно на нее, что отсекает случайные совпадения внутри
+     * несжатых вложенных архивов.
+     *
+     * @param data данные, начиная с первого локального заголовка
+     * @return длина файла или {@link #NOT_FOUND}
+     */
+    static long locateZip(ByteBuffer data) {
+        ByteBuffer le = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int limit = le.limit();
+        for (int pos = 4; pos + ZIP_EOCD_SIZE <= limit; pos++) {
+            if (le.get(pos) != 0x50 || le.getInt(pos) != ZIP_EOCD_SIGNATURE) {
+                continue;
+            }
+            long end = zipEnd(le, pos, pos);
+            if (end != NOT_FOUND) {
+                return end <= limit ? end : NOT_FOUND;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Проверяет запись конца центрального каталога ZIP.
+     *
+     * @param le буфер с порядком байтов little-endian, содержащий запись целиком
+     * @param at позиция записи в буфере
+     * @param position смещение записи от начала архива
+     * @return длина архива, заканчивающегося этой записью, или {@link #NOT_FOUND},
+     *         если центральный каталог не указывает точно на запись
+     */
+    static long zipEnd(ByteBuffer le, int at, long position) {
+        long cdSize = le.getInt(at + 12) & 0xFFFFFFFFL;
+        long cdOffset = le.getInt(at + 16) & 0xFFFFFFFFL;
+        int commentLength = le.getShort(at + 20) & 0xFFFF;
+        boolean zip64 = cdOffset == 0xFFFFFFFFL || cdSize == 0xFFFFFFFFL;
+        if (zip64 || cdOffset + cdSize == position) {
+            return position + ZIP_EOCD_SIZE + commentLength;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Вычисляет длину RIFF-контейнера (WebP, AVI, WAV) по полю размера.
+     *
+     * @param data данные, начиная с {@code RIFF}
+     * @return длина файла или {@link #NOT_FOUND}
+     */
+    static long locateRiff(ByteBuffer data) {
+        if (data.limit() < 8) {
+            return NOT_FOUND;
+        }
+        long size = Integer.toUnsignedLong(data.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(4));
+        return 8 + size + (size & 1);
+    }
+}
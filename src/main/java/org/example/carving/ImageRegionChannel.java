@@ -0,0 +1,131 @@
+package org.example.carving;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Канал только для чтения участка образа диска.
+ *
+ * Позволяет разбирать найденный в образе файл кодом, работающим с каналом
+ * отдельного файла, без копирования данных: позиция и размер отсчитываются
+ * от начала участка, а чтение выполняется абсолютными операциями канала
+ * образа, поэтому его позиция не изменяется. Закрытие участка не закрывает образ.
+ */
+final class ImageRegionChannel implements SeekableByteChannel {
+    /**
+     * Канал образа диска.
+     */
+    private final FileChannel image;
+
+    /**
+     * Смещение начала участка в образе.
+     */
+    private final long start;
+
+    /**
+     * Длина участка в байтах.
+     */
+    private final long length;
+
+    /**
+     * Текущая позиция относительно начала участка.
+     */
+    private long position;
+
+    /**
+     * Признак открытого канала.
+     */
+    private boolean open = true;
+
+    /**
+     * Создает канал участка образа.
+     *
+     * @param image канал образа диска
+     * @param start смещение начала участка
+     * @param length длина участка в байтах
+     */
+    ImageRegionChannel(FileChannel image, long start, long length) {
+        this.image = image;
+        this.start = start;
+        this.length = length;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= length) {
+            return -1;
+        }
+        int limit = dst.limit();
+        long remaining = length - position;
+        if (dst.remaining() > remaining) {
+            dst.limit(dst.position() + (int) remaining);
+        }
+        try {
+            int read = image.read(dst, start + position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return length;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    /**
+     * Проверяет, что канал не закрыт.
+     *
+     * @throws ClosedChannelException если канал закрыт
+     */
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
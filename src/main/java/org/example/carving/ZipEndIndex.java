@@ -0,0 +1,127 @@
+package org.example.carving;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поиск конца ZIP-архивов в образе без повторного просмотра одних и тех же байтов.
+ *
+ * Каждый локальный заголовок архива — отдельный кандидат, поэтому у поврежденного
+ * или фрагментированного архива без записи конца центрального каталога (EOCD)
+ * все кандидаты ищут ее в одном и том же участке. Индекс запоминает уже
+ * просмотренный участок образа и смещения всех сигнатур EOCD в нем: следующий
+ * кандидат внутри участка проверяет только эти смещения и просматривает
+ * побайтно лишь данные за пределами участка. Суммарный объем побайтного
+ * просмотра при извлечении кандидатов по возрастанию смещения не превышает
+ * размера образа. Экземпляр не потокобезопасен и предназначен для одного образа.
+ */
+final class ZipEndIndex {
+    /**
+     * Размер участка образа, отображаемого в память за один раз.
+     */
+    private static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Начало просмотренного участка образа.
+     */
+    private long scannedFrom = -1;
+
+    /**
+     * Первое смещение, с которого сигнатуры EOCD еще не искались.
+     */
+    private long scannedUntil = -1;
+
+    /**
+     * Смещения сигнатур EOCD в просмотренном участке по возрастанию.
+     */
+    private final List<Long> records = new ArrayList<>();
+
+    /**
+     * Буфер для чтения одной записи EOCD.
+     */
+    private final ByteBuffer record = ByteBuffer.allocate(FileEndLocator.ZIP_EOCD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Находит длину ZIP-архива, начинающегося с указанного смещения.
+     *
+     * Принимается первая запись EOCD, центральный каталог которой указывает
+     * точно на нее относительно начала архива, как в {@link FileEndLocator#locateZip}.
+     *
+     * @param image канал образа диска
+     * @param start смещение первого локального заголовка
+     * @param cap максимальная длина архива
+     * @return длина архива или {@link FileEndLocator#NOT_FOUND}
+     * @throws IOException если не удалось прочитать образ
+     */
+    long locate(FileChannel image, long start, long cap) throws IOException {
+        long limit = start + cap;
+        long lastRecord = limit - FileEndLocator.ZIP_EOCD_SIZE;
+        if (start < scannedFrom || start >= scannedUntil) {
+            scannedFrom = start;
+            scannedUntil = start;
+            records.clear();
+        }
+
+        for (long position : records) {
+            if (position < start + 4) {
+                continue;
+            }
+            if (position > lastRecord) {
+                return FileEndLocator.NOT_FOUND;
+            }
+            long end = check(image, start, position, limit);
+            if (end != FileEndLocator.NOT_FOUND) {
+                return end;
+            }
+        }
+
+        long from = Math.max(scannedUntil, start + 4);
+        while (from <= lastRecord) {
+            long chunkEnd = Math.min(from + CHUNK_SIZE, lastRecord + 1);
+            MappedByteBuffer chunk = image.map(FileChannel.MapMode.READ_ONLY, from, chunkEnd - from + 3);
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+            int count = (int) (chunkEnd - from);
+            for (int i = 0; i < count; i++) {
+                if (chunk.get(i) != 0x50 || chunk.getInt(i) != FileEndLocator.ZIP_EOCD_SIGNATURE) {
+                    continue;
+                }
+                long position = from + i;
+                records.add(position);
+                long end = check(image, start, position, limit);
+                if (end != FileEndLocator.NOT_FOUND) {
+                    scannedUntil = position + 1;
+                    return end;
+                }
+            }
+            from = chunkEnd;
+            scannedUntil = chunkEnd;
+        }
+        return FileEndLocator.NOT_FOUND;
+    }
+
+    /**
+     * Проверяет запись EOCD относительно начала архива.
+     *
+     * @param image канал образа диска
+     * @param start смещение начала архива
+     * @param position смещение записи в образе
+     * @param limit смещение, за которым архив не может продолжаться
+     * @return длина архива или {@link FileEndLocator#NOT_FOUND}
+     * @throws IOException если не удалось прочитать образ
+     */
+    private long check(FileChannel image, long start, long position, long limit) throws IOException {
+        record.clear();
+        while (record.hasRemaining()) {
+            if (image.read(record, position + record.position()) < 0) {
+                return FileEndLocator.NOT_FOUND;
+            }
+        }
+        long end = FileEndLocator.zipEnd(record, 0, position - start);
+        return end != FileEndLocator.NOT_FOUND && start + end <= limit ? end : FileEndLocator.NOT_FOUND;
+    }
+}
@@ -0,0 +1,349 @@
+package org.example.cli;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.analysis.Detection;
+import org.example.analysis.DetectionContext;
+import org.example.analysis.DetectorCascade;
+import org.example.analysis.EntropyClassifier;
+import org.example.analysis.FileHeader;
+import org.example.analysis.HeaderReader;
+import org.example.analysis.SignatureCatalog;
+import org.example.analysis.SignatureDetector;
+import org.example.analysis.SignatureSnapshot;
+import org.example.analysis.TextClassifier;
+import org.example.analysis.ZipContainerInspector;
+import org.example.model.FileAnalysisResult;
+import org.example.model.FileSignature;
+import org.example.util.ResultRecords;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.example.cli.HeadlessCommandRunner.EXIT_FAILURE;
+import static org.example.cli.HeadlessCommandRunner.EXIT_OK;
+import static org.example.cli.HeadlessCommandRunner.EXIT_PARTIAL;
+import static org.example.cli.HeadlessCommandRunner.EXIT_USAGE;
+
+/**
+ * Точка входа команд {@code analyze} и {@code batch} без Spring-контекста.
+ *
+ * Каталог подписей строится из снимка {@link SignatureSnapshot} в classpath,
+ * а {@link HeaderReader} и {@link DetectorCascade} создаются напрямую
+ * с параметрами {@code analysis.*} из {@code application.properties},
+ * которые можно переопределить системными свойствами. Контекст Spring,
+ * Actuator, метрики Micrometer и база кэша результатов не создаются:
+ * кэш не используется, поэтому повторное сканирование большого неизменного
+ * дерева выгоднее выполнять через {@link HeadlessApplication}.
+ *
+ * Остальные команды, а также запуск без актуального снимка передаются
+ * {@link HeadlessApplication}. Формат вывода и коды завершения совпадают
+ * с {@link HeadlessCommandRunner}.
+ *
+ * Запуск через Gradle: {@code ./gradlew runCliDirect --args="analyze file.bin"}.
+ */
+public final class DirectCli {
+    /**
+     * Файл параметров приложения в classpath.
+     */
+    private static final String PROPERTIES = "application.properties";
+
+    /**
+     * Параметры приложения с учетом системных свойств.
+     */
+    private final Properties properties;
+
+    /**
+     * Снимок каталога подписей.
+     */
+    private final SignatureCatalog catalog;
+
+    /**
+     * Читатель заголовков файлов.
+     */
+    private final HeaderReader headerReader;
+
+    /**
+     * Каскад определителей формата.
+     */
+    private final DetectorCascade cascade;
+
+    /**
+     * Длина заголовка, достаточная всем определителям.
+     */
+    private final int headerLength;
+
+    /**
+     * Сериализатор JSON.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Создает исполнитель команд с определителями, настроенными так же, как в {@code AnalysisConfig}.
+     *
+     * @param properties параметры приложения
+     * @param catalog снимок каталога подписей
+     */
+    private DirectCli(Properties properties, SignatureCatalog catalog) {
+        this.properties = properties;
+        this.catalog = catalog;
+        this.headerReader = new HeaderReader(intProperty("analysis.header.buffer-size", 4096),
+                intProperty("analysis.header.pool-size", 256));
+        this.cascade = new DetectorCascade(List.of(
+                new SignatureDetector(),
+                new ZipContainerInspector(intProperty("analysis.zip.buffer-size", 4096),
+                        Long.parseLong(property("analysis.zip.max-directory-bytes", "16384"))),
+                new TextClassifier(intProperty("analysis.text.window-size", 4096)),
+                new EntropyClassifier(intProperty("analysis.entropy.window-size", 4096))));
+        this.headerLength = cascade.getHeaderLength(catalog);
+    }
+
+    /**
+     * Точка входа.
+     *
+     * @param args команда и ее аргументы
+     * @throws IOException если не удалось прочитать снимок или параметры приложения
+     */
+    public static void main(String[] args) throws IOException {
+        if (isDirect(args)) {
+            Optional<List<FileSignature>> signatures = SignatureSnapshot.load(DirectCli.class.getClassLoader());
+            if (signatures.isPresent()) {
+                DirectCli cli = new DirectCli(loadProperties(), SignatureCatalog.of(1, signatures.get()));
+                System.exit(cli.run(args));
+            }
+            System.err.println("The signature snapshot is missing or stale, starting the full application");
+        }
+        HeadlessApplication.main(args);
+    }
+
+    /**
+     * Проверяет, может ли команда быть выполнена без Spring-контекста.
+     *
+     * @param args команда и ее аргументы
+     * @return {@code true} для {@code analyze} и {@code batch} без параметров {@code --}
+     */
+    private static boolean isDirect(String[] args) {
+        if (args.length < 2 || Arrays.stream(args).anyMatch(arg -> arg.startsWith("--"))) {
+            return false;
+        }
+        return "analyze".equals(args[0]) || ("batch".equals(args[0]) && args.length == 2);
+    }
+
+    /**
+     * Выполняет команду.
+     *
+     * @param args команда и ее аргументы
+     * @return код завершения
+     */
+    private int run(String[] args) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try {
+            return "analyze".equals(args[0])
+                    ? analyze(Arrays.asList(args).subList(1, args.length), out)
+                    : batch(Path.of(args[1]), out);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return e instanceof IllegalArgumentException ? EXIT_USAGE : EXIT_FAILURE;
+        } finally {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Failed to flush the output: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Анализирует перечисленные файлы.
+     *
+     * @param files пути к файлам
+     * @param out поток вывода
+     * @return код завершения
+     */
+    private int analyze(List<String> files, Writer out) {
+        int code = EXIT_OK;
+        for (String file : files) {
+            FileAnalysisResult result = analyze(Path.of(file));
+            if (!result.isDetected()) {
+                code = EXIT_PARTIAL;
+            }
+            writeLine(out, ResultRecords.analysis(result));
+        }
+        return code;
+    }
+
+    /**
+     * Анализирует все обычные файлы в дереве каталогов.
+     *
+     * Каждый файл анализируется в отдельном виртуальном потоке, количество
+     * одновременно анализируемых файлов ограничено параметром
+     * {@code analysis.batch.concurrency}. Результаты выводятся в порядке
+     * завершения анализа.
+     *
+     * @param root корневой каталог
+     * @param out поток вывода
+     * @return код завершения
+     * @throws IOException если обход каталога прерван
+     * @throws UncheckedIOException если не удалось записать результат
+     */
+    private int batch(Path root, Writer out) throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Not a directory: " + root);
+        }
+        Semaphore permits = new Semaphore(intProperty("analysis.batch.concurrency", 64));
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicReference<UncheckedIOException> writeError = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        permits.acquireUninterruptibly();
+                        executor.execute(() -> {
+                            try {
+                                emit(out, analyze(file), failed);
+                            } catch (UncheckedIOException e) {
+                                writeError.compareAndSet(null, e);
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    }
+                    return writeError.get() == null ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    emit(out, new FileAnalysisResult(file, null, exc.toString()), failed);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        if (writeError.get() != null) {
+            throw writeError.get();
+        }
+        return failed.get() ? EXIT_PARTIAL : EXIT_OK;
+    }
+
+    /**
+     * Анализирует один файл за одно открытие.
+     *
+     * @param file путь к файлу
+     * @return результат анализа; ошибка чтения возвращается в поле {@link FileAnalysisResult#error()}
+     */
+    private FileAnalysisResult analyze(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return new FileAnalysisResult(file, null, "Not a regular file: " + file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             FileHeader header = headerReader.read(channel, headerLength)) {
+            if (header.isEmpty()) {
+                return new FileAnalysisResult(file, null, null);
+            }
+            DetectionContext context = new DetectionContext(file, channel, channel.size(), header.buffer(), catalog);
+            Detection detection = cascade.detect(context, (detector, started) -> {
+            });
+            return detection == null
+                    ? new FileAnalysisResult(file, null, null)
+                    : new FileAnalysisResult(file, detection.signature(), null, detection.content());
+        } catch (IOException | RuntimeException e) {
+            return new FileAnalysisResult(file, null, e.toString());
+        }
+    }
+
+    /**
+     * Выводит результат пакетного анализа; вызывается из потоков анализа.
+     *
+     * @param out поток вывода
+     * @param result результат анализа
+     * @param failed признак ошибки, устанавливаемый при неудачном анализе
+     */
+    private void emit(Writer out, FileAnalysisResult result, AtomicBoolean failed) {
+        if (result.isFailed()) {
+            failed.set(true);
+        }
+        Map<String, Object> record = ResultRecords.analysis(result);
+        synchronized (out) {
+            writeLine(out, record);
+        }
+    }
+
+    /**
+     * Записывает запись в вывод одной строкой JSON.
+     *
+     * @param out поток вывода
+     * @param record поля записи
+     */
+    private void writeLine(Writer out, Map<String, Object> record) {
+        try {
+            out.write(objectMapper.writeValueAsString(record));
+            out.write('\n');
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize the result", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Возвращает значение параметра приложения.
+     *
+     * @param name имя параметра
+     * @param defaultValue значение по умолчанию
+     * @return значение без пробелов по краям
+     */
+    private String property(String name, String defaultValue) {
+        return properties.getProperty(name, defaultValue).trim();
+    }
+
+    /**
+     * Возвращает целочисленное значение параметра приложения.
+     *
+     * @param name имя параметра
+     * @param defaultValue значение по умолчанию
+     * @return значение параметра
+     * @throws IllegalArgumentException если значение не является числом
+     */
+    private int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(property(name, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Читает {@code application.properties} и накладывает на него системные свойства.
+     *
+     * @return параметры приложения
+     * @throws IOException если не удалось прочитать файл параметров
+     */
+    private static Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = DirectCli.class.getClassLoader().getResourceAsStream(PROPERTIES)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        }
+        properties.putAll(System.getProperties());
+        return properties;
+    }
+}
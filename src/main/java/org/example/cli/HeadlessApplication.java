@@ -0,0 +1,48 @@
+package org.example.cli;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Точка входа для запуска без графического интерфейса.
+ *
+ * Поднимает Spring-контекст с профилем {@code headless}, без веб-сервера
+ * и без классов JavaFX: пакет контроллеров не сканируется, поэтому
+ * аннотации JavaFX не загружаются даже при чтении метаданных классов.
+ * Команды выполняет {@link HeadlessCommandRunner}.
+ *
+ * Запуск из собранного jar:
+ * {@code java -Dloader.main=org.example.cli.HeadlessApplication
+ * -cp filerecovery.jar org.springframework.boot.loader.launch.PropertiesLauncher batch /data}
+ * или через Gradle: {@code ./gradlew runCli --args="batch /data"}.
+ * Команды {@code analyze} и {@code batch} без Spring-контекста выполняет {@link DirectCli}.
+ */
+@SpringBootApplication(scanBasePackages = {
+        "org.example.cli",
+        "org.example.config",
+        "org.example.monitoring",
+        "org.example.service"
+})
+@Profile(HeadlessApplication.PROFILE)
+public class HeadlessApplication {
+    /**
+     * Имя профиля режима командной строки.
+     */
+    public static final String PROFILE = "headless";
+
+    /**
+     * Точка входа в режим командной строки.
+     *
+     * @param args команда и ее аргументы
+     */
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(HeadlessApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setAdditionalProfiles(PROFILE);
+        application.setBannerMode(Banner.Mode.OFF);
+        System.exit(SpringApplication.exit(application.run(args)));
+    }
+}
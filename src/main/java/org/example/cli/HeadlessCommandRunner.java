@@ -0,0 +1,470 @@
+package org.example.cli;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.carving.CarvedFile;
+import org.example.dedup.DuplicateGroup;
+import org.example.dedup.DuplicateReport;
+import org.example.model.FileAnalysisResult;
+import org.example.recovery.RenameOutcome;
+import org.example.recovery.RenamePlan;
+import org.example.service.BatchAnalyzeService;
+import org.example.service.CarvingService;
+import org.example.service.DropFolderService;
+import org.example.service.DuplicateService;
+import org.example.service.ExtensionRecoveryService;
+import org.example.service.FileAnalyzeService;
+import org.example.util.ResultRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Исполнитель команд режима командной строки.
+ *
+ * Поддерживает команды:
+ * - {@code analyze <файл>...} — определение типа отдельных файлов
+ * - {@code batch <каталог>} — пакетный анализ дерева каталогов
+ * - {@code carve <образ> [--align=N]} — поиск подписей в образе диска
+ * - {@code dedup <каталог>} — поиск одинаковых файлов в дереве каталогов
+ * - {@code recover <образ> <каталог> [--align=N] [--dedup]} — извлечение файлов из образа
+ * - {@code rename <каталог> [--dry-run] [--journal=файл]} — массовое восстановление расширений
+ * - {@code resume <журнал>} — продолжение прерванного восстановления расширений
+ * - {@code undo <журнал>} — отмена восстановления расширений
+ * - {@code watch <каталог> [--fix]} — наблюдение за каталогом приема файлов
+ *
+ * Каждый результат выводится в стандартный вывод отдельной строкой JSON (NDJSON).
+ */
+@Component
+@Profile(HeadlessApplication.PROFILE)
+public class HeadlessCommandRunner implements ApplicationRunner, ExitCodeGenerator {
+    /**
+     * Логгер для записи информационных и отладочных сообщений.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessCommandRunner.class);
+
+    /** Код завершения при успешном выполнении. */
+    static final int EXIT_OK = 0;
+    /** Код завершения, если часть файлов не удалось обработать. */
+    static final int EXIT_PARTIAL = 1;
+    /** Код завершения при неверных аргументах. */
+    static final int EXIT_USAGE = 2;
+    /** Код завершения при ошибке выполнения команды. */
+    static final int EXIT_FAILURE = 3;
+
+    /**
+     * Сервис анализа отдельных файлов.
+     */
+    @Autowired
+    private FileAnalyzeService analyzeService;
+
+    /**
+     * Сервис пакетного анализа.
+     */
+    @Autowired
+    private BatchAnalyzeService batchAnalyzeService;
+
+    /**
+     * Сервис поиска и извлечения файлов из образов.
+     */
+    @Autowired
+    private CarvingService carvingService;
+
+    /**
+     * Сервис массового восстановления расширений.
+     */
+    @Autowired
+    private ExtensionRecoveryService recoveryService;
+
+    /**
+     * Сервис поиска дубликатов.
+     */
+    @Autowired
+    private DuplicateService duplicateService;
+
+    /**
+     * Сервис каталога приема файлов.
+     */
+    @Autowired
+    private DropFolderService dropFolderService;
+
+    /**
+     * Сериализатор JSON.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Код завершения последней выполненной команды.
+     */
+    private int exitCode = EXIT_OK;
+
+    /**
+     * Выполняет команду, переданную в аргументах командной строки.
+     *
+     * @param args аргументы командной строки
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> command = args.getNonOptionArgs();
+        if (command.isEmpty()) {
+            exitCode = usage();
+            return;
+        }
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try {
+            exitCode = switch (command.get(0)) {
+                case "analyze" -> command.size() < 2 ? usage() : analyze(command.subList(1, command.size()), out);
+                case "batch" -> command.size() != 2 ? usage() : batch(Path.of(command.get(1)), out);
+                case "dedup" -> command.size() != 2 ? usage() : dedup(Path.of(command.get(1)), out);
+                case "carve" -> command.size() != 2 ? usage() : carve(Path.of(command.get(1)), alignment(args), out);
+                case "recover" -> command.size() != 3 ? usage()
+                        : recover(Path.of(command.get(1)), Path.of(command.get(2)), alignment(args),
+                                args.containsOption("dedup"), out);
+                case "rename" -> command.size() != 2 ? usage()
+                        : rename(Path.of(command.get(1)), args.containsOption("dry-run"), journal(args), out);
+                case "resume" -> command.size() != 2 ? usage() : resume(Path.of(command.get(1)), out);
+                case "undo" -> command.size() != 2 ? usage() : undo(Path.of(command.get(1)), out);
+                case "watch" -> command.size() != 2 ? usage() : watch(Path.of(command.get(1)), args.containsOption("fix"), out);
+                default -> usage();
+            };
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            logger.error("Command failed: {}", command, e);
+            System.err.println("Error: " + e.getMessage());
+            exitCode = e instanceof IllegalArgumentException ? EXIT_USAGE : EXIT_FAILURE;
+        } finally {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                logger.error("Failed to flush the output", e);
+            }
+        }
+    }
+
+    /**
+     * Возвращает код завершения приложения.
+     *
+     * @return код завершения
+     */
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * Анализирует перечисленные файлы.
+     *
+     * @param files пути к файлам
+     * @param out поток вывода
+     * @return код завершения
+     * @throws IOException если не удалось записать результат
+     */
+    private int analyze(List<String> files, Writer out) throws IOException {
+        int code = EXIT_OK;
+        for (String file : files) {
+            FileAnalysisResult result = analyzeService.analyze(Path.of(file));
+            if (!result.isDetected()) {
+                code = EXIT_PARTIAL;
+            }
+            writeLine(out, ResultRecords.analysis(result));
+        }
+        return code;
+    }
+
+    /**
+     * Выполняет пакетный анализ каталога.
+     *
+     * @param root корневой каталог
+     * @param out поток вывода
+     * @return код завершения
+     */
+    private int batch(Path root, Writer out) {
+        boolean[] failed = {false};
+        try (Stream<FileAnalysisResult> results = batchAnalyzeService.analyzeDirectory(root)) {
+            results.forEach(result -> {
+                failed[0] |= result.isFailed();
+                writeLine(out, ResultRecords.analysis(result));
+            });
+        }
+        return failed[0] ? EXIT_PARTIAL : EXIT_OK;
+    }
+
+    /**
+     * Находит одинаковые файлы в дереве каталогов.
+     *
+     * Выводится одна запись на группу одинаковых файлов.
+     *
+     * @param root корневой каталог
+     * @param out поток вывода
+     * @return код завершения
+     * @throws IOException если поиск прерван
+     */
+    private int dedup(Path root, Writer out) throws IOException {
+        DuplicateReport<FileAnalysisResult> report = duplicateService.findDuplicates(root);
+        for (DuplicateGroup<FileAnalysisResult> group : report.groups()) {
+            writeLine(out, ResultRecords.duplicates(group));
+        }
+        return report.failed() > 0 ? EXIT_PARTIAL : EXIT_OK;
+    }
+
+    /**
+     * Ищет подписи в образе диска.
+     *
+     * @param image путь к образу
+     * @param alignment шаг смещений или {@code null} для значения по умолчанию
+     * @param out поток вывода
+     * @return код завершения
+     * @throws IOException если не удалось прочитать образ
+     */
+    private int carve(Path image, Integer alignment, Writer out) throws IOException {
+        if (alignment == null) {
+            carvingService.scanImage(image, hit -> writeLine(out, ResultRecords.hit(hit)));
+        } else {
+            carvingService.scanImage(image, alignment, hit -> writeLine(out, ResultRecords.hit(hit)));
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Извлекает файлы из образа диска.
+     *
+     * С удалением дубликатов записи выводятся после извлечения всех файлов,
+     * а у удаленных копий указывается оригинал.
+     *
+     * @param image путь к образу
+     * @param outputDir каталог для восстановленных файлов
+     * @param alignment шаг смещений или {@code null} для значения по умолчанию
+     * @param dedup {@code true}, чтобы удалить копии одинаковых файлов
+     * @param out поток вывода
+     * @return код завершения
+     * @throws IOException если не удалось прочитать образ, записать или удалить файлы
+     */
+    private int recover(Path image, Path outputDir, Integer alignment, boolean dedup, Writer out) throws IOException {
+        List<CarvedFile> recovered = new ArrayList<>();
+        Consumer<CarvedFile> sink = dedup ? recovered::add : carved -> writeLine(out, ResultRecords.carved(carved));
+        if (alignment == null) {
+            carvingService.recoverImage(image, outputDir, sink);
+        } else {
+            carvingService.recoverImage(image, outputDir, alignment, sink);
+        }
+        if (dedup) {
+            Map<Path, Path> removed = duplicateService.removeCarvedCopies(duplicateService.findCarvedDuplicates(recovered));
+            for (CarvedFile carved : recovered) {
+                writeLine(out, ResultRecords.carved(carved, removed.get(carved.path())));
+            }
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Восстанавливает расширения файлов в дереве каталогов.
+     *
+     * При пробном запуске выводится план, файлы не переименовываются
+     * и журнал не создается.
+     *
+     * @param root корневой каталог
+     * @param dryRun {@code true} для пробного запуска
+     * @param journal путь к журналу или {@code null} для пути по умолчанию
+     * @param out поток вывода
+     * @return код завершения
+     * @throws IOException если не удалось записать журнал
+     */
+    private int rename(Path root, boolean dryRun, Path journal, Writer out) throws IOException {
+        RenamePlan plan = recoveryService.plan(root);
+        if (dryRun) {
+            plan.renames().forEach(rename ->
+                    writeLine(out, ResultRecords.rename(new RenameOutcome(rename, RenameOutcome.Status.PLANNED, null))));
+            return plan.failed() > 0 ? EXIT_PARTIAL : EXIT_OK;
+        }
+        Path journalPath = journal != null ? journal : recoveryService.newJournalPath();
+        System.err.println("Journal: " + journalPath);
+        AtomicBoolean failed = new AtomicBoolean(plan.failed() > 0);
+        recoveryService.execute(plan, journalPath, outcome -> writeOutcome(out, outcome, failed));
+        return failed.get() ? EXIT_PARTIAL : EXIT_OK;
+    }
+
+    /**
+     * Продолжает прерванное восстановление расширений.
+     *
+     * @param journal путь к журналу
+     * @param out поток вывода
+     * @return код завершения
+     * @throws IOException если не удалось прочитать или записать журнал
+     */
+    private int resume(Path journal, Writer out) throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        recoveryService.resume(journal, outcome -> writeOutcome(out, outcome, failed));
+        return failed.get() ? EXIT_PARTIAL : EXIT_OK;
+    }
+
+    /**
+     * Отменяет восстановление расширений по журналу.
+     *
+     * @param journal путь к журналу
+     * @param out поток вывода
+     * @return код завершения
+     * @throws IOException если не удалось прочитать или записать журнал
+     */
+    private int undo(Path journal, Writer out) throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        recoveryService.undo(journal, outcome -> writeOutcome(out, outcome, failed));
+        return failed.get() ? EXIT_PARTIAL : EXIT_OK;
+    }
+
+    /**
+     * Наблюдает за каталогом приема файлов до завершения приложения.
+     *
+     * Вывод сбрасывается после каждого пакета.
+     *
+     * @param root каталог приема
+     * @param fix {@code true}, чтобы восстанавливать расширения
+     * @param out поток вывода
+     * @return код завершения
+     * @throws IOException если не удалось начать наблюдение или записать журнал
+     */
+    private int watch(Path root, boolean fix, Writer out) throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            dropFolderService.watch(root, fix, new DropFolderService.Listener() {
+                @Override
+                public void analyzed(FileAnalysisResult result) {
+                    if (result.isFailed()) {
+                        failed.set(true);
+                    }
+                    Map<String, Object> record = ResultRecords.analysis(result);
+                    synchronized (out) {
+                        writeLine(out, record);
+                    }
+                }
+
+                @Override
+                public void renamed(RenameOutcome outcome) {
+                    writeOutcome(out, outcome, failed);
+                }
+
+                @Override
+                public void batchFinished() {
+                    synchronized (out) {
+                        try {
+                            out.flush();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return failed.get() ? EXIT_PARTIAL : EXIT_OK;
+    }
+
+    /**
+     * Выводит результат переименования; вызывается из потоков восстановления.
+     *
+     * @param out поток вывода
+     * @param outcome результат переименования
+     * @param failed признак ошибки, устанавливаемый при неудачном переименовании
+     */
+    private void writeOutcome(Writer out, RenameOutcome outcome, AtomicBoolean failed) {
+        if (outcome.isFailed()) {
+            failed.set(true);
+        }
+        Map<String, Object> record = ResultRecords.rename(outcome);
+        synchronized (out) {
+            writeLine(out, record);
+        }
+    }
+
+    /**
+     * Записывает запись в вывод одной строкой JSON.
+     *
+     * @param out поток вывода
+     * @param record поля записи
+     */
+    private void writeLine(Writer out, Map<String, Object> record) {
+        try {
+            out.write(objectMapper.writeValueAsString(record));
+            out.write('\n');
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize the result", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Читает шаг смещений из параметра {@code --align}.
+     *
+     * @param args аргументы командной строки
+     * @return шаг смещений или {@code null}, если параметр не указан
+     * @throws IllegalArgumentException если значение некорректно
+     */
+    private static Integer alignment(ApplicationArguments args) {
+        List<String> values = args.getOptionValues("align");
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(values.get(0));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid --align value: " + values.get(0));
+        }
+    }
+
+    /**
+     * Читает путь к журналу из параметра {@code --journal}.
+     *
+     * @param args аргументы командной строки
+     * @return путь к журналу или {@code null}, если параметр не указан
+     */
+    private static Path journal(ApplicationArguments args) {
+        List<String> values = args.getOptionValues("journal");
+        return values == null || values.isEmpty() ? null : Path.of(values.get(0));
+    }
+
+    /**
+     * Выводит справку по командам.
+     *
+     * @return код завершения для неверных аргументов
+     */
+    private static int usage() {
+        System.err.println("""
+                Usage:
+                  analyze <file>...                      detect the type of individual files
+                  batch <directory>                      analyze a directory tree
+                  dedup <directory>                      find files with identical content
+                  carve <image> [--align=N]              list signature hits in a raw disk image
+                  recover <image> <output> [--align=N] [--dedup]
+                                                         extract files from a raw disk image,
+                                                         removing identical copies with --dedup
+                  rename <directory> [--dry-run] [--journal=<file>]
+                                                         restore file extensions in a directory tree
+                  resume <journal>                       continue an interrupted rename run
+                  undo <journal>                         revert the renames recorded in a journal
+                  watch <directory> [--fix]              analyze files dropped into a directory,
+                                                         restoring their extensions with --fix
+                Results are written to stdout as newline-delimited JSON.""");
+        return EXIT_USAGE;
+    }
+}
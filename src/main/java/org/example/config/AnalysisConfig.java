@@ -0,0 +1,93 @@
+package org.example.config;
+
+import org.example.analysis.Detector;
+import org.example.analysis.DetectorCascade;
+import org.example.analysis.EntropyClassifier;
+import org.example.analysis.HeaderReader;
+import org.example.analysis.SignatureDetector;
+import org.example.analysis.TextClassifier;
+import org.example.analysis.ZipContainerInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Конфигурация компонентов анализа содержимого файлов.
+ *
+ * Создает движки анализа, не зависящие от Spring, и передает им
+ * параметры из {@code application.properties}. Все бины {@link Detector},
+ * включая объявленные в других конфигурациях, собираются в {@link DetectorCascade}.
+ */
+@Configuration
+public class AnalysisConfig {
+    /**
+     * Создает классификатор текстового содержимого.
+     *
+     * @param windowSize размер каждого из трех окон выборки в байтах
+     * @return классификатор текста
+     */
+    @Bean
+    public TextClassifier textClassifier(@Value("${analysis.text.window-size:4096}") int windowSize) {
+        return new TextClassifier(windowSize);
+    }
+
+    /**
+     * Создает классификатор содержимого по энтропии.
+     *
+     * @param windowSize размер каждого из трех окон выборки в байтах
+     * @return классификатор содержимого
+     */
+    @Bean
+    public EntropyClassifier entropyClassifier(@Value("${analysis.entropy.window-size:4096}") int windowSize) {
+        return new EntropyClassifier(windowSize);
+    }
+
+    /**
+     * Создает читатель заголовков файлов с пулом прямых буферов.
+     *
+     * @param bufferSize емкость каждого буфера в байтах
+     * @param poolSize максимальное количество буферов в пуле
+     * @return читатель заголовков
+     */
+    @Bean
+    public HeaderReader headerReader(@Value("${analysis.header.buffer-size:4096}") int bufferSize,
+                                     @Value("${analysis.header.pool-size:256}") int poolSize) {
+        return new HeaderReader(bufferSize, poolSize);
+    }
+
+    /**
+     * Создает инспектор ZIP-контейнеров.
+     *
+     * @param bufferSize размер буфера чтения конца файла и центрального каталога в байтах
+     * @param maxDirectoryBytes максимальный объем просматриваемого центрального каталога в байтах
+     * @return инспектор ZIP-контейнеров
+     */
+    @Bean
+    public ZipContainerInspector zipContainerInspector(@Value("${analysis.zip.buffer-size:4096}") int bufferSize,
+                                                       @Value("${analysis.zip.max-directory-bytes:16384}") long maxDirectoryBytes) {
+        return new ZipContainerInspector(bufferSize, maxDirectoryBytes);
+    }
+
+    /**
+     * Создает определитель формата по подписям каталога.
+     *
+     * @return определитель по подписям
+     */
+    @Bean
+    public SignatureDetector signatureDetector() {
+        return new SignatureDetector();
+    }
+
+    /**
+     * Создает каскад определителей формата.
+     *
+     * @param detectors все определители приложения
+     * @return каскад, упорядоченный по стоимости
+     */
+    @Bean
+    public DetectorCascade detectorCascade(List<Detector> detectors) {
+        return new DetectorCascade(detectors);
+    }
+}
\ No newline at end of file
@@ -3,6 +3,7 @@ package org.example.config;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.config.BootstrapMode;
 
 /**
  * Конфигурация базы данных для Spring Boot приложения.
@@ -10,9 +11,15 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
  * Этот класс настраивает сканирование JPA репозиториев и сущностей.
  * Используется для автоматической настройки Spring Data JPA и определения
  * базовых пакетов для репозиториев и сущностей.
+ *
+ * Репозитории создаются при первом обращении: аннотация явно отключает
+ * ленивую инициализацию своих бинов, и без режима {@link BootstrapMode#LAZY}
+ * репозиторий вместе с фабрикой JPA создавался бы при запуске даже в профиле
+ * быстрого запуска. В этом профиле автоконфигурация источника данных
+ * и Hibernate отключена, а их бины объявляет {@link LazyDatabaseConfig}.
  */
 @Configuration
-@EnableJpaRepositories(basePackages = "org.example.repository")
+@EnableJpaRepositories(basePackages = "org.example.repository", bootstrapMode = BootstrapMode.LAZY)
 @EntityScan(basePackages = "org.example.model")
 public class DatabaseConfig {
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package org.example.config;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
@@ -14,6 +15,9 @@ import javax.sql.DataSource;
  * Этот класс автоматически загружает предопределенные SQL-скрипты
  * при инициализации Spring-контекста, используя аннотацию {@code @PostConstruct}.
  * Помогает заполнить базу данных начальными данными из SQL-файла.
+ * Выполняется после фабрики JPA, которая создает таблицы по сущностям;
+ * в профиле быстрого запуска компонент вместе с фабрикой создается только
+ * при первом изменении подписей (см. {@link LazyDatabaseConfig}).
  */
 @Component
 public class DatabaseInitializer {
@@ -23,6 +27,12 @@ public class DatabaseInitializer {
     @Autowired
     private DataSource dataSource;
 
+    /**
+     * Фабрика JPA; к моменту внедрения таблицы по сущностям уже созданы.
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     /**
      * Метод инициализации базы данных, вызываемый после создания бина.
      *
@@ -33,6 +43,7 @@ public class DatabaseInitializer {
      */
     @PostConstruct
     public void initializeDatabase() {
+        entityManagerFactory.getMetamodel();
         try {
             ResourceDatabasePopulator resourceDatabasePopulator = new ResourceDatabasePopulator(false, false, "UTF-8", new ClassPathResource("database/db.sql"));
             resourceDatabasePopulator.execute(dataSource);
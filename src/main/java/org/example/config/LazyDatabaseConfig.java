@@ -0,0 +1,92 @@
+package org.example.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.domain.EntityScanPackages;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Ленивая база подписей для профиля быстрого запуска.
+ *
+ * При {@code signatures.snapshot.enabled=true} каталог подписей читается
+ * из снимка в ресурсах, а автоконфигурация источника данных и Hibernate
+ * отключена в {@code application-fast-start.properties}: Spring создает
+ * фабрику JPA из автоконфигурации при запуске даже при ленивой
+ * инициализации. Этот класс объявляет те же бины с теми же свойствами
+ * {@code spring.datasource.*} и {@code spring.jpa.*}, но фабрика возвращается
+ * как {@link EntityManagerFactory}, а не как фабричный бин, поэтому все они
+ * создаются при первом обращении — при первом изменении подписей
+ * через {@link org.example.service.FileSignatureService}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "signatures.snapshot.enabled", havingValue = "true")
+@EnableConfigurationProperties({DataSourceProperties.class, JpaProperties.class, HibernateProperties.class})
+public class LazyDatabaseConfig {
+    /**
+     * Источник данных базы подписей; подключение открывается при первом запросе.
+     *
+     * @param properties свойства источника данных
+     * @return источник данных
+     */
+    @Bean
+    @Lazy
+    public DataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().build();
+    }
+
+    /**
+     * Фабрика JPA; при создании Hibernate создает таблицы по сущностям.
+     *
+     * @param dataSource источник данных
+     * @param jpaProperties свойства JPA
+     * @param hibernateProperties свойства Hibernate
+     * @param beanFactory фабрика бинов с пакетами из {@code @EntityScan}
+     * @return фабрика JPA
+     */
+    @Bean
+    @Lazy
+    public EntityManagerFactory entityManagerFactory(DataSource dataSource, JpaProperties jpaProperties,
+                                                     HibernateProperties hibernateProperties, BeanFactory beanFactory) {
+        HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        vendorAdapter.setShowSql(jpaProperties.isShowSql());
+        if (jpaProperties.getDatabasePlatform() != null) {
+            vendorAdapter.setDatabasePlatform(jpaProperties.getDatabasePlatform());
+        }
+        Map<String, Object> properties = hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings().ddlAuto(() -> "none"));
+        LocalContainerEntityManagerFactoryBean factory = new EntityManagerFactoryBuilder(vendorAdapter, properties, null)
+                .dataSource(dataSource)
+                .packages(EntityScanPackages.get(beanFactory).getPackageNames().toArray(String[]::new))
+                .build();
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    /**
+     * Менеджер транзакций репозиториев.
+     *
+     * @param entityManagerFactory фабрика JPA
+     * @return менеджер транзакций
+     */
+    @Bean
+    @Lazy
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Конфигурация веб-слоя.
+ *
+ * Асинхронные ответы, в том числе потоки результатов заданий сканирования,
+ * выполняются в отдельных виртуальных потоках, а не в общем пуле
+ * {@code applicationTaskExecutor}: ответ в режиме ожидания занимает поток
+ * до завершения задания, и несколько таких клиентов исчерпали бы
+ * небольшой пул для остальных асинхронных запросов.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication
+public class WebConfig implements WebMvcConfigurer {
+    /**
+     * Назначает исполнитель асинхронных запросов.
+     *
+     * @param configurer настройка асинхронной обработки запросов
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new VirtualThreadTaskExecutor("mvc-async-"));
+    }
+}
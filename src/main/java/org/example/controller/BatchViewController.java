@@ -0,0 +1,340 @@
+package org.example.controller;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.stage.DirectoryChooser;
+import javafx.util.StringConverter;
+import org.example.model.FileAnalysisResult;
+import org.example.model.FileType;
+import org.example.service.BatchAnalyzeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Контроллер JavaFX окна пакетного анализа каталога.
+ *
+ * Результаты {@link BatchAnalyzeService} собираются в фоновом виртуальном
+ * потоке в неблокирующую очередь, а {@link AnimationTimer} раз в кадр
+ * переносит накопившиеся строки в таблицу одним изменением списка,
+ * поэтому поток JavaFX не получает отдельную задачу на каждый файл.
+ * {@link TableView} создает ячейки только для видимых строк, а строки
+ * {@link ScanResultRow} хранят минимум данных. Таблица фильтруется
+ * по типу файла и по необходимости восстановления расширения.
+ * Сортировка столбцов отключена: поддержание порядка при непрерывной
+ * вставке миллионов строк обходится дороже самого анализа.
+ *
+ * Для каждого окна создается отдельный экземпляр контроллера.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class BatchViewController {
+    /**
+     * Логгер для записи информационных и отладочных сообщений.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(BatchViewController.class);
+
+    /** Максимальное количество строк, добавляемых в таблицу за один кадр. */
+    private static final int MAX_ROWS_PER_FRAME = 10_000;
+
+    /** Текстовое поле с путем к анализируемому каталогу. */
+    @FXML private TextField directoryField;
+    /** Кнопка запуска анализа. */
+    @FXML private Button startButton;
+    /** Кнопка остановки анализа. */
+    @FXML private Button stopButton;
+    /** Фильтр по типу файла; {@code null} означает все типы. */
+    @FXML private ComboBox<FileType> typeFilter;
+    /** Фильтр файлов, требующих восстановления расширения. */
+    @FXML private CheckBox recoveryFilter;
+    /** Таблица результатов. */
+    @FXML private TableView<ScanResultRow> resultsTable;
+    /** Столбец пути к файлу. */
+    @FXML private TableColumn<ScanResultRow, String> pathColumn;
+    /** Столбец текущего расширения. */
+    @FXML private TableColumn<ScanResultRow, String> extensionColumn;
+    /** Столбец расширения по подписи. */
+    @FXML private TableColumn<ScanResultRow, String> detectedColumn;
+    /** Столбец типа файла. */
+    @FXML private TableColumn<ScanResultRow, FileType> typeColumn;
+    /** Столбец статуса файла. */
+    @FXML private TableColumn<ScanResultRow, String> statusColumn;
+    /** Метка со счетчиками результатов. */
+    @FXML private Label statusLabel;
+    /** Индикатор выполняющегося анализа. */
+    @FXML private ProgressIndicator scanProgress;
+
+    /** Сервис пакетного анализа. */
+    @Autowired
+    private BatchAnalyzeService batchAnalyzeService;
+
+    /** Все полученные строки. */
+    private final ObservableList<ScanResultRow> rows = FXCollections.observableArrayList();
+    /** Строки, прошедшие фильтры. */
+    private final FilteredList<ScanResultRow> filteredRows = new FilteredList<>(rows);
+
+    /** Перенос строк из очереди в таблицу раз в кадр. */
+    private final AnimationTimer drainTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            drainPendingRows();
+        }
+    };
+
+    /** Текущий анализ или {@code null}, если анализ не выполняется. */
+    private volatile ScanRun currentRun;
+
+    /** Количество файлов, требующих восстановления. */
+    private long recoveryCount;
+    /** Количество файлов, которые не удалось прочитать. */
+    private long failedCount;
+
+    /**
+     * Инициализация контроллера после загрузки FXML.
+     *
+     * Настраивает столбцы, фильтры и исходное состояние кнопок.
+     */
+    @FXML
+    public void initialize() {
+        pathColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getPath()));
+        extensionColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getExtension()));
+        detectedColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(
+                cell.getValue().getSignature() != null ? cell.getValue().getSignature().getExtension() : ""));
+        typeColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getFileType()));
+        statusColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getStatus()));
+        resultsTable.setItems(filteredRows);
+
+        List<FileType> types = new ArrayList<>();
+        types.add(null);
+        types.addAll(List.of(FileType.values()));
+        typeFilter.setItems(FXCollections.observableList(types));
+        typeFilter.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(FileType type) {
+                return type == null ? "Все типы" : type.name();
+            }
+
+            @Override
+            public FileType fromString(String text) {
+                return null;
+            }
+        });
+        typeFilter.valueProperty().addListener((observable, oldValue, newValue) -> updateFilter());
+        recoveryFilter.selectedProperty().addListener((observable, oldValue, newValue) -> updateFilter());
+
+        scanProgress.managedProperty().bind(scanProgress.visibleProperty());
+        scanProgress.setVisible(false);
+        stopButton.setDisable(true);
+        updateStatus();
+    }
+
+    /**
+     * Обработчик выбора каталога через диалоговое окно.
+     */
+    @FXML
+    public void handleDirectorySelection() {
+        DirectoryChooser chooser = new DirectoryChooser();
+        File directory = chooser.showDialog(resultsTable.getScene().getWindow());
+        if (directory != null) {
+            directoryField.setText(directory.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Обработчик запуска пакетного анализа.
+     *
+     * Очищает таблицу и запускает анализ каталога в виртуальном потоке.
+     */
+    @FXML
+    public void handleStartScan() {
+        String directory = directoryField.getText();
+        if (directory == null || directory.isBlank()) {
+            showAlert("Ошибка", "Сначала выберите каталог!");
+            return;
+        }
+
+        stopScan();
+        rows.clear();
+        recoveryCount = 0;
+        failedCount = 0;
+
+        ScanRun run = new ScanRun(Path.of(directory));
+        currentRun = run;
+        startButton.setDisable(true);
+        stopButton.setDisable(false);
+        scanProgress.setVisible(true);
+        updateStatus();
+        drainTimer.start();
+        Thread.ofVirtual().name("batch-view").start(run);
+    }
+
+    /**
+     * Обработчик остановки пакетного анализа.
+     *
+     * Уже полученные результаты остаются в таблице.
+     */
+    @FXML
+    public void handleStopScan() {
+        ScanRun run = currentRun;
+        if (run != null) {
+            run.stopped = true;
+        }
+    }
+
+    /**
+     * Останавливает анализ и обновление таблицы при закрытии окна.
+     */
+    public void shutdown() {
+        stopScan();
+    }
+
+    /**
+     * Останавливает текущий анализ, не дожидаясь его завершения.
+     */
+    private void stopScan() {
+        ScanRun run = currentRun;
+        if (run != null) {
+            run.stopped = true;
+            currentRun = null;
+        }
+        drainTimer.stop();
+    }
+
+    /**
+     * Переносит накопившиеся строки из очереди в таблицу.
+     *
+     * Вызывается в потоке JavaFX раз в кадр. Завершает обновление,
+     * когда анализ окончен и очередь пуста.
+     */
+    private void drainPendingRows() {
+        ScanRun run = currentRun;
+        if (run == null) {
+            drainTimer.stop();
+            return;
+        }
+        boolean finished = run.finished;
+        List<ScanResultRow> chunk = new ArrayList<>();
+        ScanResultRow row;
+        while (chunk.size() < MAX_ROWS_PER_FRAME && (row = run.pending.poll()) != null) {
+            chunk.add(row);
+            if (row.isRecoveryNeeded()) {
+                recoveryCount++;
+            }
+            if (row.getError() != null) {
+                failedCount++;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            rows.addAll(chunk);
+            updateStatus();
+        }
+        if (finished && run.pending.isEmpty()) {
+            drainTimer.stop();
+            currentRun = null;
+            startButton.setDisable(false);
+            stopButton.setDisable(true);
+            scanProgress.setVisible(false);
+            if (run.error != null) {
+                showAlert("Ошибка", "Не удалось выполнить анализ: " + run.error.getMessage());
+            }
+            updateStatus();
+        }
+    }
+
+    /**
+     * Применяет выбранные фильтры к таблице.
+     */
+    private void updateFilter() {
+        FileType type = typeFilter.getValue();
+        boolean recoveryOnly = recoveryFilter.isSelected();
+        Predicate<ScanResultRow> predicate = row -> (type == null || row.getFileType() == type)
+                && (!recoveryOnly || row.isRecoveryNeeded());
+        filteredRows.setPredicate(type == null && !recoveryOnly ? null : predicate);
+        updateStatus();
+    }
+
+    /**
+     * Обновляет метку со счетчиками результатов.
+     */
+    private void updateStatus() {
+        statusLabel.setText("Проанализировано: " + rows.size()
+                + "   Показано: " + filteredRows.size()
+                + "   Требуют восстановления: " + recoveryCount
+                + "   Ошибок: " + failedCount);
+    }
+
+    /**
+     * Отображает диалоговое окно с сообщением об ошибке.
+     *
+     * @param title заголовок окна ошибки
+     * @param message текст сообщения об ошибке
+     */
+    private void showAlert(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.show();
+    }
+
+    /**
+     * Один запуск пакетного анализа в фоновом потоке.
+     *
+     * Строки передаются в собственную очередь запуска, поэтому остановленный
+     * запуск не смешивает свои результаты с результатами нового. Каталоги
+     * интернируются в пределах запуска: строка пути каталога хранится один раз.
+     */
+    private final class ScanRun implements Runnable {
+        /** Корневой каталог. */
+        private final Path root;
+        /** Строки, полученные фоновым потоком и еще не добавленные в таблицу. */
+        private final Queue<ScanResultRow> pending = new ConcurrentLinkedQueue<>();
+        /** Признак запрошенной остановки. */
+        private volatile boolean stopped;
+        /** Признак завершения фонового потока. */
+        private volatile boolean finished;
+        /** Ошибка, прервавшая анализ, или {@code null}. */
+        private volatile RuntimeException error;
+
+        private ScanRun(Path root) {
+            this.root = root;
+        }
+
+        @Override
+        public void run() {
+            Map<Path, String> directories = new HashMap<>();
+            try (Stream<FileAnalysisResult> results = batchAnalyzeService.analyzeDirectory(root)) {
+                Iterator<FileAnalysisResult> iterator = results.iterator();
+                while (!stopped && iterator.hasNext()) {
+                    pending.add(ScanResultRow.of(iterator.next(), directories));
+                }
+            } catch (RuntimeException e) {
+                logger.error("Batch analysis of {} failed", root, e);
+                error = e;
+            } finally {
+                finished = true;
+            }
+        }
+    }
+}
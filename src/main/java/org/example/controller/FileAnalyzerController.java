@@ -1,16 +1,28 @@
 package org.example.controller;
 
+import jakarta.annotation.PreDestroy;
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.example.model.FileInspection;
 import org.example.model.FileSignature;
 import org.example.service.FileAnalyzeService;
 import org.example.util.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Контроллер JavaFX для графического интерфейса анализатора файловых подписей.
@@ -20,11 +32,22 @@ import java.io.File;
  * - Анализа файловой подписи
  * - Отображения информации о файле
  * - Восстановления расширения файла
+ * - Открытия окна пакетного анализа каталога
  *
  * Связывает логику {@link FileAnalyzeService} с визуальными компонентами.
+ * Анализ выполняется задачей {@link Task} в виртуальном потоке, поэтому
+ * поток JavaFX не блокируется чтением файла. Ввод пути откладывает анализ
+ * до паузы в наборе, а новый запрос отменяет предыдущий: результат
+ * отмененной задачи не отображается.
  */
 @Component
 public class FileAnalyzerController {
+    /** Количество байтов начала файла, отображаемых как магические числа. */
+    private static final int MAGIC_NUMBERS_LENGTH = 16;
+
+    /** Пауза в наборе пути, после которой запускается автоматический анализ. */
+    private static final Duration INPUT_DEBOUNCE = Duration.millis(300);
+
     /** Текстовое поле для отображения пути к выбранному файлу. */
     @FXML private TextField filePathField;
     /** Метка для отображения текущего расширения файла. */
@@ -41,16 +64,29 @@ public class FileAnalyzerController {
     @FXML private Button recoverButton;
     /** Кнопка для очистки полей интерфейса. */
     @FXML private Button clearButton;
+    /** Индикатор выполняющегося анализа. */
+    @FXML private ProgressIndicator analysisProgress;
 
     /** Выбранный файл для анализа. */
     private File selectedFile;
     /** Текущая подпись файла, определенная в результате анализа. */
     private FileSignature currentSignature;
+    /** Задержка автоматического анализа до паузы в наборе пути. */
+    private PauseTransition analysisDelay;
+    /** Текущая задача анализа или {@code null}, если анализ не выполняется. */
+    private Task<FileInspection> analysisTask;
+
+    /** Исполнитель задач анализа: каждая задача получает виртуальный поток. */
+    private final ExecutorService analysisExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     /** Сервис для анализа файлов. */
     @Autowired
     private FileAnalyzeService analyzeService;
 
+    /** Контекст приложения для создания контроллеров дополнительных окон. */
+    @Autowired
+    private ApplicationContext applicationContext;
+
     /**
      * Инициализация контроллера после загрузки FXML.
      *
@@ -59,17 +95,35 @@ public class FileAnalyzerController {
      */
     @FXML
     public void initialize() {
+        analysisDelay = new PauseTransition(INPUT_DEBOUNCE);
+        analysisProgress.managedProperty().bind(analysisProgress.visibleProperty());
         resetUI();
         setupFilePathFieldListener();
     }
 
+    /**
+     * Отменяет анализ и освобождает потоки при завершении приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        analysisExecutor.shutdownNow();
+    }
+
     /**
      * Сбрасывает элементы пользовательского интерфейса в начальное состояние.
      *
      * Очищает все поля, метки и возвращает кнопки в исходное положение.
      */
     private void resetUI() {
+        cancelAnalysis();
         filePathField.clear();
+        resetResults();
+    }
+
+    /**
+     * Сбрасывает результаты анализа, не изменяя введенный путь.
+     */
+    private void resetResults() {
         currentExtensionLabel.setText("Не определено");
         mimeTypeLabel.setText("Не определено");
         magicNumbersLabel.setText("Не определено");
@@ -83,34 +137,121 @@ public class FileAnalyzerController {
     /**
      * Настраивает прослушиватель для поля ввода пути файла.
      *
-     * При изменении текста в поле проверяет существование файла
-     * и автоматически запускает его анализ.
+     * Каждое изменение текста отменяет текущий анализ и перезапускает
+     * задержку: анализ начинается, когда ввод не менялся
+     * {@link #INPUT_DEBOUNCE}. Несуществующий путь сбрасывает результаты,
+     * но не очищает поле, чтобы не мешать набору.
      */
     private void setupFilePathFieldListener() {
         filePathField.textProperty().addListener((observable, oldValue, newValue) -> {
+            cancelAnalysis();
             if (newValue != null && !newValue.isEmpty()) {
-                selectedFile = new File(newValue);
-                if (selectedFile.exists()) {
-                    analyzeFileAutomatically();
+                File file = new File(newValue);
+                selectedFile = file;
+                currentSignature = null;
+                recoverButton.setDisable(true);
+                analysisDelay.setOnFinished(event -> startAnalysis(file, true));
+                analysisDelay.playFromStart();
+            }
+        });
+    }
+
+    /**
+     * Запускает анализ файла в фоновом потоке.
+     *
+     * Результат отображается в потоке JavaFX, только если задача
+     * не была заменена более новой.
+     *
+     * @param file файл для анализа
+     * @param automatic {@code true} для анализа при вводе пути,
+     *                  {@code false} для анализа по кнопке
+     */
+    private void startAnalysis(File file, boolean automatic) {
+        cancelAnalysis();
+        Task<FileInspection> task = new Task<>() {
+            @Override
+            protected FileInspection call() {
+                if (isCancelled() || !file.isFile()) {
+                    return null;
+                }
+                return analyzeService.inspectFile(file, MAGIC_NUMBERS_LENGTH);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            if (finishAnalysis(task)) {
+                FileInspection inspection = task.getValue();
+                if (inspection == null) {
+                    resetResults();
+                } else if (inspection.isFailed()) {
+                    resultTextArea.setText("Ошибка анализа: " + inspection.error());
+                    analyzeButton.setDisable(false);
+                } else if (automatic) {
+                    showAutomaticResult(inspection);
                 } else {
-                    resetUI();
+                    showManualResult(inspection);
                 }
             }
         });
+        task.setOnFailed(event -> {
+            if (finishAnalysis(task)) {
+                resultTextArea.setText("Ошибка анализа: " + task.getException().getMessage());
+                analyzeButton.setDisable(false);
+            }
+        });
+        analysisTask = task;
+        analysisProgress.setVisible(true);
+        analysisExecutor.execute(task);
+    }
+
+    /**
+     * Отменяет отложенный и выполняющийся анализ.
+     *
+     * Поток задачи не прерывается: прерывание закрыло бы каналы файлов
+     * и кэша анализа, а чтение заголовка ограничено по объему.
+     * Результат отмененной задачи не отображается.
+     */
+    private void cancelAnalysis() {
+        if (analysisDelay != null) {
+            analysisDelay.stop();
+        }
+        if (analysisTask != null) {
+            analysisTask.cancel(false);
+            analysisTask = null;
+        }
+        if (analysisProgress != null) {
+            analysisProgress.setVisible(false);
+        }
+    }
+
+    /**
+     * Завершает задачу анализа, если она текущая.
+     *
+     * @param task завершившаяся задача
+     * @return {@code true}, если результат задачи нужно отобразить
+     */
+    private boolean finishAnalysis(Task<FileInspection> task) {
+        if (task != analysisTask) {
+            return false;
+        }
+        analysisTask = null;
+        analysisProgress.setVisible(false);
+        return true;
     }
 
     /**
-     * Автоматически анализирует выбранный файл.
+     * Отображает результат автоматического анализа выбранного файла.
+     *
+     * Показывает подпись и hex-сигнатуру, полученные сервисом
+     * за одно открытие файла, и текущее расширение.
      *
-     * Получает hex-сигнатуру, определяет расширение,
-     * анализирует файл с помощью сервиса и обновляет интерфейс.
+     * @param inspection результат анализа
      */
-    private void analyzeFileAutomatically() {
-        String hexSignature = FileUtils.getFileHexSignature(selectedFile, 16);
+    private void showAutomaticResult(FileInspection inspection) {
+        String hexSignature = inspection.magicNumbers();
         magicNumbersLabel.setText(hexSignature != null ? hexSignature : "Не удалось определить");
         currentExtensionLabel.setText(FileUtils.getFileExtension(selectedFile));
 
-        currentSignature = analyzeService.analyzeFile(selectedFile);
+        currentSignature = inspection.signature();
 
         if (currentSignature != null) {
             mimeTypeLabel.setText(currentSignature.getMimeType());
@@ -128,7 +269,8 @@ public class FileAnalyzerController {
             analyzeButton.setDisable(true);
             recoverButton.setDisable(!needExtensionRecovery);
         } else {
-            resultTextArea.setText("Не удалось определить тип файла");
+            resultTextArea.setText("Не удалось определить тип файла"
+                    + (inspection.content() != null ? "\nСодержимое: " + ScanResultRow.describe(inspection.content()) : ""));
             analyzeButton.setDisable(false);
             recoverButton.setDisable(true);
         }
@@ -150,6 +292,33 @@ public class FileAnalyzerController {
         }
     }
 
+    /**
+     * Открывает окно пакетного анализа каталога.
+     *
+     * Каждое окно получает собственный контроллер; при закрытии окна
+     * его анализ останавливается.
+     */
+    @FXML
+    public void handleOpenBatchView() {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/ui/BatchView.fxml"));
+            loader.setControllerFactory(applicationContext::getBean);
+            Parent root = loader.load();
+            BatchViewController controller = loader.getController();
+
+            Scene scene = new Scene(root, 1000, 700);
+            scene.getStylesheets().addAll(filePathField.getScene().getStylesheets());
+
+            Stage stage = new Stage();
+            stage.setTitle("Пакетный анализ");
+            stage.setScene(scene);
+            stage.setOnHidden(event -> controller.shutdown());
+            stage.show();
+        } catch (IOException e) {
+            showAlert("Ошибка", "Не удалось открыть окно пакетного анализа");
+        }
+    }
+
     /**
      * Отображает справочный диалог с инструкциями по использованию приложения.
      *
@@ -184,8 +353,8 @@ public class FileAnalyzerController {
     /**
      * Обработчик ручного запуска анализа файла.
      *
-     * Проверяет наличие выбранного файла и запускает его анализ,
-     * обновляя интерфейс результатами.
+     * Проверяет наличие выбранного файла и запускает его анализ
+     * в фоновом потоке.
      */
     @FXML
     public void handleAnalyzeFile() {
@@ -194,10 +363,19 @@ public class FileAnalyzerController {
             return;
         }
 
-        String hexSignature = FileUtils.getFileHexSignature(selectedFile, 16);
+        startAnalysis(selectedFile, false);
+    }
+
+    /**
+     * Отображает результат анализа, запущенного по кнопке.
+     *
+     * @param inspection результат анализа
+     */
+    private void showManualResult(FileInspection inspection) {
+        String hexSignature = inspection.magicNumbers();
         magicNumbersLabel.setText(hexSignature != null ? hexSignature : "Не удалось определить");
 
-        currentSignature = analyzeService.analyzeFile(selectedFile);
+        currentSignature = inspection.signature();
 
         if (currentSignature != null) {
             mimeTypeLabel.setText(currentSignature.getMimeType());
@@ -213,7 +391,8 @@ public class FileAnalyzerController {
 
             recoverButton.setDisable(!needExtensionRecovery);
         } else {
-            resultTextArea.setText("Не удалось определить тип файла");
+            resultTextArea.setText("Не удалось определить тип файла"
+                    + (inspection.content() != null ? "\nСодержимое: " + ScanResultRow.describe(inspection.content()) : ""));
             recoverButton.setDisable(true);
         }
     }
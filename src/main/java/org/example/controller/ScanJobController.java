@@ -0,0 +1,197 @@
+package org.example.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.model.ScanJobRequest;
+import org.example.model.ScanJobStatus;
+import org.example.service.ScanJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * REST-контроллер заданий сканирования.
+ *
+ * Позволяет удаленно запускать анализ каталогов и образов дисков,
+ * следить за ходом выполнения через Server-Sent Events, получать
+ * результаты потоком NDJSON по мере их появления и отменять задания.
+ * Пути вне разрешенных корневых каталогов {@link ScanJobService}
+ * отклоняются с кодом 403.
+ */
+@RestController
+@RequestMapping("/api/scan-jobs")
+public class ScanJobController {
+    /**
+     * Логгер для записи информационных и отладочных сообщений.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ScanJobController.class);
+
+    /**
+     * Тип содержимого для потока результатов.
+     */
+    private static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * Интервал отправки событий о ходе выполнения, в миллисекундах.
+     */
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    /**
+     * Тайм-аут асинхронного запроса, отключающий ограничение по времени.
+     */
+    private static final long NO_TIMEOUT = 0L;
+
+    /**
+     * Сервис заданий сканирования.
+     */
+    @Autowired
+    private ScanJobService scanJobService;
+
+    /**
+     * Создает задание сканирования.
+     *
+     * @param request параметры задания
+     * @return состояние созданного задания с кодом 202
+     * @throws IOException если не удалось создать файл результатов
+     */
+    @PostMapping
+    public ResponseEntity<ScanJobStatus> submit(@RequestBody ScanJobRequest request) throws IOException {
+        try {
+            ScanJobStatus status = scanJobService.submit(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/scan-jobs/" + status.id()))
+                    .body(status);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (SecurityException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Возвращает список заданий.
+     *
+     * @return состояния всех хранимых заданий
+     */
+    @GetMapping
+    public List<ScanJobStatus> list() {
+        return scanJobService.listJobs();
+    }
+
+    /**
+     * Возвращает состояние задания.
+     *
+     * @param id идентификатор задания
+     * @return состояние задания
+     */
+    @GetMapping("/{id}")
+    public ScanJobStatus status(@PathVariable("id") String id) {
+        return scanJobService.getStatus(id).orElseThrow(() -> notFound(id));
+    }
+
+    /**
+     * Отправляет события о ходе выполнения задания до его завершения.
+     *
+     * Каждую секунду отправляется событие {@code progress} с состоянием задания,
+     * по завершении — событие {@code done}.
+     *
+     * @param id идентификатор задания
+     * @return поток событий
+     */
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable("id") String id) {
+        scanJobService.getStatus(id).orElseThrow(() -> notFound(id));
+
+        SseEmitter emitter = new SseEmitter(NO_TIMEOUT);
+        Thread.ofVirtual().name("scan-job-events-" + id).start(() -> {
+            try {
+                while (true) {
+                    ScanJobStatus status = scanJobService.getStatus(id).orElse(null);
+                    if (status == null) {
+                        break;
+                    }
+                    if (status.state().isFinished()) {
+                        emitter.send(SseEmitter.event().name("done").data(status));
+                        break;
+                    }
+                    emitter.send(SseEmitter.event().name("progress").data(status));
+                    Thread.sleep(PROGRESS_INTERVAL_MS);
+                }
+                emitter.complete();
+            } catch (IOException e) {
+                logger.debug("Progress client disconnected from scan job {}", id);
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Отдает результаты задания потоком NDJSON.
+     *
+     * Ответ пишется в потоке исполнителя асинхронных запросов. В режиме
+     * ожидания запрос не ограничен по времени, так как длится до завершения
+     * задания; без ожидания действует общий тайм-аут асинхронных запросов.
+     *
+     * @param id идентификатор задания
+     * @param follow ожидать новые результаты до завершения задания
+     * @param response ответ, в который записываются результаты
+     * @return асинхронная задача записи результатов
+     */
+    @GetMapping(path = "/{id}/results", produces = NDJSON)
+    public WebAsyncTask<Void> results(@PathVariable("id") String id,
+                                      @RequestParam(name = "follow", defaultValue = "true") boolean follow,
+                                      HttpServletResponse response) {
+        scanJobService.getStatus(id).orElseThrow(() -> notFound(id));
+        response.setContentType(NDJSON);
+        Callable<Void> body = () -> {
+            scanJobService.streamResults(id, response.getOutputStream(), follow);
+            return null;
+        };
+        return follow ? new WebAsyncTask<>(NO_TIMEOUT, body) : new WebAsyncTask<>(body);
+    }
+
+    /**
+     * Отменяет задание.
+     *
+     * @param id идентификатор задания
+     * @return состояние задания с кодом 202
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ScanJobStatus> cancel(@PathVariable("id") String id) {
+        return ResponseEntity.accepted().body(scanJobService.cancel(id).orElseThrow(() -> notFound(id)));
+    }
+
+    /**
+     * Создает исключение для неизвестного задания.
+     *
+     * @param id идентификатор задания
+     * @return исключение с кодом 404
+     */
+    private static ResponseStatusException notFound(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown scan job: " + id);
+    }
+}
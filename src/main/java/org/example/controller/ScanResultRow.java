@@ -0,0 +1,183 @@
+package org.example.controller;
+
+import org.example.analysis.ContentClass;
+import org.example.model.FileAnalysisResult;
+import org.example.model.FileSignature;
+import org.example.model.FileType;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Строка таблицы результатов пакетного анализа.
+ *
+ * Хранит только необходимое для отображения и фильтрации: строку каталога,
+ * общую для всех файлов каталога, имя файла и ссылку на подпись из каталога
+ * подписей, которая тоже общая для всех файлов одного типа. Отображаемые
+ * значения (полный путь, расширение, статус) вычисляются при обращении,
+ * то есть только для видимых ячеек таблицы.
+ */
+public final class ScanResultRow {
+    /**
+     * Каталог файла; один экземпляр строки на каталог.
+     */
+    private final String directory;
+
+    /**
+     * Имя файла.
+     */
+    private final String name;
+
+    /**
+     * Определенная подпись или {@code null}.
+     */
+    private final FileSignature signature;
+
+    /**
+     * Описание ошибки анализа или {@code null}.
+     */
+    private final String error;
+
+    /**
+     * Класс содержимого файла без подписи или {@code null}.
+     */
+    private final ContentClass content;
+
+    /**
+     * Признак того, что расширение файла не соответствует подписи.
+     */
+    private final boolean recoveryNeeded;
+
+    private ScanResultRow(String directory, String name, FileSignature signature, String error, ContentClass content) {
+        this.directory = directory;
+        this.name = name;
+        this.signature = signature;
+        this.error = error;
+        this.content = content;
+        this.recoveryNeeded = signature != null && needsRecovery(extensionOf(name), signature);
+    }
+
+    /**
+     * Создает строку из результата анализа.
+     *
+     * @param result результат анализа
+     * @param directories строки уже встречавшихся каталогов; дополняется новыми
+     * @return строка таблицы
+     */
+    public static ScanResultRow of(FileAnalysisResult result, Map<Path, String> directories) {
+        Path parent = result.path().getParent();
+        String directory = parent == null ? "" : directories.computeIfAbsent(parent, Path::toString);
+        Path fileName = result.path().getFileName();
+        return new ScanResultRow(directory, fileName == null ? "" : fileName.toString(),
+                result.signature(), result.error(), result.content());
+    }
+
+    /**
+     * Возвращает полный путь к файлу.
+     *
+     * @return путь к файлу
+     */
+    public String getPath() {
+        return directory.isEmpty() ? name : directory + File.separator + name;
+    }
+
+    /**
+     * Возвращает текущее расширение файла.
+     *
+     * @return расширение в нижнем регистре или пустая строка
+     */
+    public String getExtension() {
+        return extensionOf(name);
+    }
+
+    /**
+     * Возвращает тип файла по подписи.
+     *
+     * @return тип файла; {@link FileType#UNKNOWN}, если тип не определен
+     */
+    public FileType getFileType() {
+        return signature != null && signature.getFileType() != null ? signature.getFileType() : FileType.UNKNOWN;
+    }
+
+    /**
+     * Возвращает определенную подпись.
+     *
+     * @return подпись или {@code null}
+     */
+    public FileSignature getSignature() {
+        return signature;
+    }
+
+    /**
+     * Возвращает описание ошибки анализа.
+     *
+     * @return описание ошибки или {@code null}
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Проверяет, требуется ли восстановление расширения.
+     *
+     * @return {@code true}, если расширение отсутствует или не соответствует подписи
+     */
+    public boolean isRecoveryNeeded() {
+        return recoveryNeeded;
+    }
+
+    /**
+     * Возвращает текстовый статус файла для таблицы.
+     *
+     * @return статус файла
+     */
+    public String getStatus() {
+        if (error != null) {
+            return "Ошибка: " + error;
+        }
+        if (signature == null) {
+            return content != null ? "Не определено: " + describe(content) : "Не определено";
+        }
+        return recoveryNeeded ? "Требует восстановления" : "Исправен";
+    }
+
+    /**
+     * Возвращает описание класса содержимого для пользователя.
+     *
+     * @param content класс содержимого
+     * @return описание
+     */
+    static String describe(ContentClass content) {
+        return switch (content) {
+            case RANDOM -> "зашифрованные или случайные данные";
+            case COMPRESSED -> "сжатые данные";
+            case TEXT -> "текстоподобные данные";
+            case SPARSE -> "пустые или обнуленные данные";
+            case BINARY -> "двоичные данные";
+        };
+    }
+
+    /**
+     * Проверяет, соответствует ли расширение подписи, по тому же правилу,
+     * что и анализ отдельного файла.
+     *
+     * @param extension текущее расширение
+     * @param signature подпись файла
+     * @return {@code true}, если расширение требует восстановления
+     */
+    private static boolean needsRecovery(String extension, FileSignature signature) {
+        return extension.isEmpty() || !signature.getExtension().toLowerCase().contains(extension);
+    }
+
+    /**
+     * Выделяет расширение из имени файла.
+     *
+     * @param name имя файла
+     * @return расширение в нижнем регистре или пустая строка
+     */
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase();
+    }
+}
@@ -0,0 +1,382 @@
+package org.example.dedup;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Поэтапный поиск файлов с одинаковым содержимым.
+ *
+ * Файлы сначала группируются по размеру. В группах из нескольких файлов
+ * вычисляется SHA-256 первого и последнего блоков, и только файлы,
+ * совпавшие и по нему, читаются целиком для полного SHA-256. Файл,
+ * оказавшийся единственным в своей группе на любом этапе, дальше
+ * не читается, поэтому большинство файлов не читается вовсе или
+ * читается только двумя блоками, а каждый дубликат подтверждается
+ * хэшем всего содержимого. Файлы не длиннее двух блоков читаются
+ * целиком уже на втором этапе. Пустые файлы не рассматриваются.
+ *
+ * Хэши вычисляются в виртуальных потоках с ограничением количества
+ * одновременно читаемых файлов. Файл, который не удалось прочитать
+ * или размер которого изменился во время чтения, исключается из поиска.
+ * Экземпляр не потокобезопасен и предназначен для одного поиска.
+ *
+ * @param <T> тип описания файла, возвращаемого в группах
+ */
+public final class DuplicateFinder<T> {
+    /**
+     * Размер буфера полного чтения файла.
+     */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Размер блока, читаемого в начале и в конце файла.
+     */
+    private final int blockSize;
+
+    /**
+     * Максимальное количество одновременно читаемых файлов.
+     */
+    private final int concurrency;
+
+    /**
+     * Файлы, сгруппированные по размеру.
+     */
+    private final Map<Long, List<Candidate<T>>> bySize = new HashMap<>();
+
+    /**
+     * Количество рассмотренных файлов.
+     */
+    private long files;
+
+    /**
+     * Количество файлов, у которых прочитаны первый и последний блоки.
+     */
+    private final AtomicLong sampled = new AtomicLong();
+
+    /**
+     * Количество файлов, прочитанных целиком.
+     */
+    private final AtomicLong hashed = new AtomicLong();
+
+    /**
+     * Количество файлов, которые не удалось прочитать.
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Создает поиск дубликатов.
+     *
+     * @param blockSize размер блока, читаемого в начале и в конце файла
+     * @param concurrency максимальное количество одновременно читаемых файлов
+     * @throws IllegalArgumentException если параметры не положительны
+     */
+    public DuplicateFinder(int blockSize, int concurrency) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        }
+        this.blockSize = blockSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Добавляет файл, размер которого определяется по файловой системе.
+     *
+     * @param item описание файла
+     * @param path путь к файлу
+     */
+    public void add(T item, Path path) {
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            files++;
+            failed.incrementAndGet();
+            return;
+        }
+        add(item, path, size);
+    }
+
+    /**
+     * Добавляет файл известного размера.
+     *
+     * @param item описание файла
+     * @param path путь к файлу
+     * @param size размер файла в байтах
+     */
+    public void add(T item, Path path, long size) {
+        files++;
+        if (size > 0) {
+            bySize.computeIfAbsent(size, key -> new ArrayList<>()).add(new Candidate<>(item, path, size));
+        }
+    }
+
+    /**
+     * Находит группы одинаковых файлов среди добавленных.
+     *
+     * @return результат поиска
+     * @throws InterruptedIOException если поток прерван
+     */
+    public DuplicateReport<T> find() throws InterruptedIOException {
+        List<Candidate<T>> sameSize = new ArrayList<>();
+        for (List<Candidate<T>> bucket : bySize.values()) {
+            if (bucket.size() > 1) {
+                sameSize.addAll(bucket);
+            }
+        }
+
+        List<DuplicateGroup<T>> groups = new ArrayList<>();
+        List<Candidate<T>> sameSample = new ArrayList<>();
+        digest(sameSize, this::sample);
+        for (List<Candidate<T>> bucket : group(sameSize)) {
+            if (isWhole(bucket.get(0).size)) {
+                groups.add(toGroup(bucket));
+            } else {
+                sameSample.addAll(bucket);
+            }
+        }
+
+        digest(sameSample, this::hash);
+        for (List<Candidate<T>> bucket : group(sameSample)) {
+            groups.add(toGroup(bucket));
+        }
+
+        groups.sort(Comparator.comparingLong((DuplicateGroup<T> group) -> group.size() * (group.files().size() - 1))
+                .reversed());
+        return new DuplicateReport<>(List.copyOf(groups), files, sampled.get(), hashed.get(), failed.get());
+    }
+
+    /**
+     * Вычисляет хэши файлов в виртуальных потоках.
+     *
+     * Файлы, которые не удалось прочитать, получают пустой хэш.
+     *
+     * @param candidates файлы
+     * @param hasher способ вычисления хэша
+     * @throws InterruptedIOException если поток прерван
+     */
+    private void digest(List<Candidate<T>> candidates, Hasher hasher) throws InterruptedIOException {
+        Semaphore permits = new Semaphore(concurrency);
+        Thread.Builder workers = Thread.ofVirtual().name("dedup-", 0);
+        boolean interrupted = false;
+        for (Candidate<T> candidate : candidates) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                break;
+            }
+            workers.start(() -> {
+                try {
+                    candidate.digest = hasher.digest(candidate.path, candidate.size);
+                } catch (IOException e) {
+                    candidate.digest = null;
+                    failed.incrementAndGet();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+        permits.acquireUninterruptibly(concurrency);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Duplicate search interrupted");
+        }
+    }
+
+    /**
+     * Группирует файлы по размеру и последнему вычисленному хэшу.
+     *
+     * @param candidates файлы
+     * @return группы из нескольких файлов в порядке добавления файлов
+     */
+    private List<List<Candidate<T>>> group(List<Candidate<T>> candidates) {
+        Map<Key, List<Candidate<T>>> buckets = new LinkedHashMap<>();
+        for (Candidate<T> candidate : candidates) {
+            if (candidate.digest != null) {
+                buckets.computeIfAbsent(new Key(candidate.size, candidate.digest), key -> new ArrayList<>())
+                        .add(candidate);
+            }
+        }
+        List<List<Candidate<T>>> groups = new ArrayList<>();
+        for (List<Candidate<T>> bucket : buckets.values()) {
+            if (bucket.size() > 1) {
+                groups.add(bucket);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Вычисляет SHA-256 первого и последнего блоков файла.
+     *
+     * Файл не длиннее двух блоков читается целиком, и результат равен
+     * SHA-256 всего содержимого.
+     *
+     * @param path путь к файлу
+     * @param size ожидаемый размер файла
+     * @return хэш в hex-представлении
+     * @throws IOException если файл не удалось прочитать или его размер изменился
+     */
+    private String sample(Path path, long size) throws IOException {
+        if (isWhole(size)) {
+            sampled.incrementAndGet();
+            return hash(path, size);
+        }
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != size) {
+                throw new IOException("File changed during duplicate search: " + path);
+            }
+            readBlock(channel, buffer, 0);
+            digest.update(buffer);
+            readBlock(channel, buffer, size - blockSize);
+            digest.update(buffer);
+        }
+        sampled.incrementAndGet();
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Вычисляет SHA-256 всего содержимого файла.
+     *
+     * @param path путь к файлу
+     * @param size ожидаемый размер файла
+     * @return хэш в hex-представлении
+     * @throws IOException если файл не удалось прочитать или его размер изменился
+     */
+    private String hash(Path path, long size) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int read;
+            while ((read = channel.read(buffer)) >= 0) {
+                total += read;
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        if (total != size) {
+            throw new IOException("File changed during duplicate search: " + path);
+        }
+        hashed.incrementAndGet();
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Читает блок файла целиком.
+     *
+     * @param channel канал файла
+     * @param buffer буфер размером в блок; после чтения готов к обработке
+     * @param position смещение блока
+     * @throws IOException если файл закончился раньше блока
+     */
+    private static void readBlock(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of file during duplicate search");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Проверяет, читается ли файл целиком уже при чтении первого и последнего блоков.
+     *
+     * @param size размер файла
+     * @return {@code true}, если файл не длиннее двух блоков
+     */
+    private boolean isWhole(long size) {
+        return size <= 2L * blockSize;
+    }
+
+    /**
+     * Создает группу из файлов с одинаковым полным хэшем.
+     *
+     * @param bucket файлы группы
+     * @return группа дубликатов
+     */
+    private DuplicateGroup<T> toGroup(List<Candidate<T>> bucket) {
+        List<T> items = new ArrayList<>(bucket.size());
+        for (Candidate<T> candidate : bucket) {
+            items.add(candidate.item);
+        }
+        Candidate<T> first = bucket.get(0);
+        return new DuplicateGroup<>(first.size, first.digest, List.copyOf(items));
+    }
+
+    /**
+     * Создает вычислитель SHA-256.
+     *
+     * @return вычислитель хэша
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Способ вычисления хэша файла.
+     */
+    @FunctionalInterface
+    private interface Hasher {
+        String digest(Path path, long size) throws IOException;
+    }
+
+    /**
+     * Ключ группы: размер и хэш.
+     *
+     * @param size размер файла
+     * @param digest хэш в hex-представлении
+     */
+    private record Key(long size, String digest) {
+    }
+
+    /**
+     * Файл, участвующий в поиске.
+     *
+     * @param <T> тип описания файла
+     */
+    private static final class Candidate<T> {
+        /** Описание файла. */
+        private final T item;
+        /** Путь к файлу. */
+        private final Path path;
+        /** Размер файла. */
+        private final long size;
+        /** Хэш последнего этапа или {@code null}, если файл не удалось прочитать. */
+        private volatile String digest;
+
+        private Candidate(T item, Path path, long size) {
+            this.item = item;
+            this.path = path;
+            this.size = size;
+        }
+    }
+}
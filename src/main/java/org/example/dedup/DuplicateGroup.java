@@ -0,0 +1,31 @@
+package org.example.dedup;
+
+import java.util.List;
+
+/**
+ * Группа файлов с одинаковым содержимым.
+ *
+ * @param size размер каждого файла в байтах
+ * @param sha256 SHA-256 содержимого в hex-представлении
+ * @param files файлы группы в порядке добавления; первый считается оригиналом
+ * @param <T> тип описания файла
+ */
+public record DuplicateGroup<T>(long size, String sha256, List<T> files) {
+    /**
+     * Возвращает оригинал — первый добавленный файл группы.
+     *
+     * @return оригинал
+     */
+    public T original() {
+        return files.get(0);
+    }
+
+    /**
+     * Возвращает копии оригинала.
+     *
+     * @return файлы группы, кроме первого
+     */
+    public List<T> copies() {
+        return files.subList(1, files.size());
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.dedup;
+
+import java.util.List;
+
+/**
+ * Результат поиска дубликатов.
+ *
+ * @param groups группы одинаковых файлов, начиная с занимающих больше всего лишнего места
+ * @param files количество рассмотренных файлов
+ * @param sampled количество файлов, у которых прочитаны первый и последний блоки
+ * @param hashed количество файлов, прочитанных целиком
+ * @param failed количество файлов, которые не удалось прочитать
+ * @param <T> тип описания файла
+ */
+public record DuplicateReport<T>(List<DuplicateGroup<T>> groups, long files, long sampled, long hashed, long failed) {
+    /**
+     * Возвращает количество копий во всех группах.
+     *
+     * @return количество файлов, которые можно удалить без потери содержимого
+     */
+    public long duplicates() {
+        return groups.stream().mapToLong(group -> group.files().size() - 1).sum();
+    }
+
+    /**
+     * Возвращает объем, занимаемый копиями.
+     *
+     * @return размер копий в байтах
+     */
+    public long redundantBytes() {
+        return groups.stream().mapToLong(group -> group.size() * (group.files().size() - 1)).sum();
+    }
+}
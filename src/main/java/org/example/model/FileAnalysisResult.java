@@ -0,0 +1,44 @@
+package org.example.model;
+
+import org.example.analysis.ContentClass;
+
+import java.nio.file.Path;
+
+/**
+ * Результат анализа одного файла в пакетном режиме.
+ *
+ * @param path путь к проанализированному файлу
+ * @param signature определенная подпись файла или {@code null}, если тип не определен
+ * @param error описание ошибки доступа к файлу или {@code null}
+ * @param content класс содержимого файла без подписи или {@code null}, если подпись найдена
+ *                или содержимое не удалось прочитать
+ */
+public record FileAnalysisResult(Path path, FileSignature signature, String error, ContentClass content) {
+    /**
+     * Создает результат без класса содержимого.
+     *
+     * @param path путь к проанализированному файлу
+     * @param signature определенная подпись файла или {@code null}
+     * @param error описание ошибки доступа к файлу или {@code null}
+     */
+    public FileAnalysisResult(Path path, FileSignature signature, String error) {
+        this(path, signature, error, null);
+    }
+    /**
+     * Проверяет, удалось ли определить тип файла.
+     *
+     * @return {@code true}, если подпись найдена
+     */
+    public boolean isDetected() {
+        return signature != null;
+    }
+
+    /**
+     * Проверяет, завершился ли анализ ошибкой.
+     *
+     * @return {@code true}, если файл не удалось прочитать
+     */
+    public boolean isFailed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.model;
+
+import org.example.analysis.ContentClass;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+
+/**
+ * Результат подробного анализа одного файла для отображения пользователю.
+ *
+ * Все поля получены за одно открытие файла из одного прочитанного заголовка.
+ *
+ * @param path путь к проанализированному файлу
+ * @param signature определенная подпись файла или {@code null}, если тип не определен
+ * @param magicNumbers hex-представление начала файла или {@code null}, если файл не удалось прочитать
+ * @param textEncoding кодировка текстового файла или {@code null} для двоичных файлов
+ * @param content класс содержимого файла без подписи или {@code null}, если подпись найдена
+ *                или содержимое не удалось прочитать
+ * @param error описание ошибки чтения файла или {@code null}
+ */
+public record FileInspection(Path path, FileSignature signature, String magicNumbers, Charset textEncoding,
+                             ContentClass content, String error) {
+    /**
+     * Создает результат успешного анализа.
+     *
+     * @param path путь к проанализированному файлу
+     * @param signature определенная подпись файла или {@code null}
+     * @param magicNumbers hex-представление начала файла или {@code null}
+     * @param textEncoding кодировка текстового файла или {@code null}
+     * @param content класс содержимого файла без подписи или {@code null}
+     */
+    public FileInspection(Path path, FileSignature signature, String magicNumbers, Charset textEncoding,
+                          ContentClass content) {
+        this(path, signature, magicNumbers, textEncoding, content, null);
+    }
+
+    /**
+     * Создает результат анализа, завершившегося ошибкой.
+     *
+     * @param path путь к файлу
+     * @param error описание ошибки
+     * @return результат без подписи и содержимого
+     */
+    public static FileInspection failed(Path path, String error) {
+        return new FileInspection(path, null, null, null, null, error);
+    }
+
+    /**
+     * Проверяет, удалось ли определить тип файла.
+     *
+     * @return {@code true}, если подпись найдена
+     */
+    public boolean isDetected() {
+        return signature != null;
+    }
+
+    /**
+     * Проверяет, завершился ли анализ ошибкой.
+     *
+     * @return {@code true}, если файл не удалось прочитать
+     */
+    public boolean isFailed() {
+        return error != null;
+    }
+}
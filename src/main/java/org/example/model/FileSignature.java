@@ -9,7 +9,8 @@ import lombok.NoArgsConstructor;
  * Представляет сущность подписи файла в базе данных.
  *
  * Класс описывает характеристики файла, такие как расширение, MIME-тип,
- * магические числа (hex-сигнатура) и тип файла.
+ * магические числа (hex-сигнатура) с их смещением и маской, дополнительную
+ * подпись для различения форматов с общим заголовком и тип файла.
  * Используется для идентификации и классификации файлов.
  */
 @Data
@@ -40,6 +41,28 @@ public class FileSignature {
      */
     private String hexSignature;
 
+    /**
+     * Смещение магических чисел от начала файла в байтах ({@code null} означает 0).
+     */
+    private Integer signatureOffset;
+
+    /**
+     * Hex-маска той же длины, что и {@link #hexSignature}: сравниваются только биты,
+     * установленные в маске ({@code null} означает точное совпадение всех байтов).
+     */
+    private String signatureMask;
+
+    /**
+     * Hex-представление дополнительной подписи, уточняющей тип
+     * (например, {@code WEBP} внутри контейнера {@code RIFF}).
+     */
+    private String subHexSignature;
+
+    /**
+     * Смещение дополнительной подписи от начала файла в байтах.
+     */
+    private Integer subSignatureOffset;
+
     /**
      * Описание типа файла.
      */
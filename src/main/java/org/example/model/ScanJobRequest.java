@@ -0,0 +1,12 @@
+package org.example.model;
+
+/**
+ * Запрос на создание задания сканирования.
+ *
+ * @param type тип задания
+ * @param path путь к каталогу или образу диска на сервере
+ * @param outputDir каталог для извлеченных файлов (только для {@link ScanJobType#RECOVERY})
+ * @param alignment шаг проверяемых смещений в образе или {@code null} для значения по умолчанию
+ */
+public record ScanJobRequest(ScanJobType type, String path, String outputDir, Integer alignment) {
+}
@@ -0,0 +1,35 @@
+package org.example.model;
+
+/**
+ * Состояние задания сканирования.
+ */
+public enum ScanJobState {
+    /**
+     * Задание выполняется.
+     */
+    RUNNING,
+
+    /**
+     * Задание успешно завершено.
+     */
+    COMPLETED,
+
+    /**
+     * Задание завершилось ошибкой.
+     */
+    FAILED,
+
+    /**
+     * Задание отменено пользователем.
+     */
+    CANCELLED;
+
+    /**
+     * Проверяет, завершено ли задание.
+     *
+     * @return {@code true} для всех состояний, кроме {@link #RUNNING}
+     */
+    public boolean isFinished() {
+        return this != RUNNING;
+    }
+}
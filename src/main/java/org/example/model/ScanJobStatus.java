@@ -0,0 +1,19 @@
+package org.example.model;
+
+import java.time.Instant;
+
+/**
+ * Снимок состояния задания сканирования.
+ *
+ * @param id идентификатор задания
+ * @param type тип задания
+ * @param path путь к каталогу или образу
+ * @param state текущее состояние
+ * @param results количество записанных результатов
+ * @param startedAt время запуска
+ * @param finishedAt время завершения или {@code null}, если задание выполняется
+ * @param error описание ошибки или {@code null}
+ */
+public record ScanJobStatus(String id, ScanJobType type, String path, ScanJobState state, long results,
+                            Instant startedAt, Instant finishedAt, String error) {
+}
@@ -0,0 +1,21 @@
+package org.example.model;
+
+/**
+ * Тип задания сканирования.
+ */
+public enum ScanJobType {
+    /**
+     * Пакетный анализ дерева каталогов.
+     */
+    DIRECTORY,
+
+    /**
+     * Поиск подписей в образе диска без извлечения.
+     */
+    IMAGE,
+
+    /**
+     * Поиск и извлечение файлов из образа диска.
+     */
+    RECOVERY
+}
@@ -0,0 +1,364 @@
+package org.example.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.example.analysis.Detector;
+import org.example.analysis.DetectorCascade;
+import org.example.analysis.EntropyClassifier;
+import org.example.analysis.SignatureDetector;
+import org.example.analysis.TextClassifier;
+import org.example.analysis.ZipContainerInspector;
+import org.example.model.FileSignature;
+import org.example.model.FileType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Метрики анализа файлов в Micrometer.
+ *
+ * Регистрирует все метры один раз при запуске, поэтому на горячем пути
+ * анализа нет поиска по реестру и создания тегов:
+ * <ul>
+ *     <li>{@code analysis.stage} — таймер этапов с тегом {@code stage}
+ *     (чтение заголовка, каскад определителей, сопоставление подписей, проверка
+ *     текста, определение класса содержимого, переименование, обращение к кэшу);</li>
+ *     <li>{@code analysis.detector} — таймер определителей каскада с тегом {@code detector};</li>
+ *     <li>{@code analysis.files} — счетчик результатов с тегами {@code result}
+ *     ({@code detected}, {@code unknown}, {@code failed}) и {@code type};</li>
+ *     <li>{@code analysis.cache.requests} — счетчик обращений к кэшу результатов
+ *     с тегом {@code result} ({@code hit}, {@code miss});</li>
+ *     <li>{@code analysis.batch.queue.depth}, {@code analysis.batch.in.flight}
+ *     и {@code analysis.batch.active} — датчики пакетного анализа;</li>
+ *     <li>{@code analysis.startup.first.result} — время от запуска JVM
+ *     до первого результата анализа.</li>
+ * </ul>
+ * В веб-режиме метрики доступны через Spring Boot Actuator
+ * по адресу {@code /actuator/metrics}.
+ */
+@Component
+public class AnalysisMetrics {
+    /**
+     * Этапы анализа, время которых измеряется.
+     */
+    public enum Stage {
+        /** Открытие файла и чтение заголовка. */
+        HEADER_READ("header.read"),
+        /** Определение формата каскадом определителей. */
+        DETECTION("detection"),
+        /** Сопоставление заголовка с подписями каталога и уточнение ZIP-контейнеров. */
+        SIGNATURE_MATCH("signature.match"),
+        /** Проверка, является ли файл текстовым. */
+        TEXT_DETECTION("text.detection"),
+        /** Определение класса содержимого файла без подписи. */
+        CONTENT_CLASSIFICATION("content.classification"),
+        /** Переименование файла при восстановлении расширения. */
+        RENAME("rename"),
+        /** Поиск результата в постоянном кэше. */
+        CACHE_LOOKUP("cache.lookup");
+
+        /** Значение тега {@code stage}. */
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Значение тега {@code type} для результатов без типа.
+     */
+    private static final String NO_TYPE = "none";
+
+    /**
+     * Логгер для записи времени до первого результата.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisMetrics.class);
+
+    /**
+     * Реестр метрик.
+     */
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Каскад определителей, для которых регистрируются таймеры.
+     */
+    @Autowired
+    private DetectorCascade detectorCascade;
+
+    /**
+     * Таймеры этапов анализа.
+     */
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+
+    /**
+     * Таймеры определителей по имени; заполняются при запуске и далее только читаются.
+     */
+    private final Map<String, Timer> detectorTimers = new HashMap<>();
+
+    /**
+     * Счетчики определенных файлов по типам.
+     */
+    private final Map<FileType, Counter> detectedCounters = new EnumMap<>(FileType.class);
+
+    /**
+     * Счетчик файлов, тип которых не определен.
+     */
+    private Counter unknownCounter;
+
+    /**
+     * Счетчик файлов, которые не удалось проанализировать.
+     */
+    private Counter failedCounter;
+
+    /**
+     * Счетчик попаданий в кэш результатов.
+     */
+    private Counter cacheHitCounter;
+
+    /**
+     * Счетчик промахов кэша результатов.
+     */
+    private Counter cacheMissCounter;
+
+    /**
+     * Очереди результатов выполняющихся пакетных анализов.
+     */
+    private final Set<Collection<?>> batchQueues = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Количество файлов, анализируемых в пакетном режиме в данный момент.
+     */
+    private final AtomicInteger batchInFlight = new AtomicInteger();
+
+    /**
+     * Время работы JVM к первому результату анализа в миллисекундах; {@code -1} до него.
+     */
+    private final AtomicLong firstResultUptime = new AtomicLong(-1);
+
+    /**
+     * Регистрирует метры в реестре.
+     */
+    @PostConstruct
+    public void initialize() {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("analysis.stage")
+                    .description("Duration of a file analysis stage")
+                    .tag("stage", stage.tag)
+                    .register(registry));
+        }
+        for (Detector detector : detectorCascade.getDetectors()) {
+            detectorTimers.put(detector.getName(), Timer.builder("analysis.detector")
+                    .description("Duration of a file type detector")
+                    .tag("detector", detector.getName())
+                    .register(registry));
+        }
+        for (FileType type : FileType.values()) {
+            detectedCounters.put(type, filesCounter("detected", type.name()));
+        }
+        unknownCounter = filesCounter("unknown", NO_TYPE);
+        failedCounter = filesCounter("failed", NO_TYPE);
+        cacheHitCounter = cacheCounter("hit");
+        cacheMissCounter = cacheCounter("miss");
+
+        Gauge.builder("analysis.batch.queue.depth", batchQueues, AnalysisMetrics::totalSize)
+                .description("Analysis results waiting in batch queues")
+                .register(registry);
+        Gauge.builder("analysis.batch.in.flight", batchInFlight, AtomicInteger::get)
+                .description("Files being analyzed by batch runs")
+                .register(registry);
+        Gauge.builder("analysis.batch.active", batchQueues, Set::size)
+                .description("Running batch analyses")
+                .register(registry);
+        TimeGauge.builder("analysis.startup.first.result", firstResultUptime, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("JVM uptime when the first file analysis completed")
+                .register(registry);
+    }
+
+    /**
+     * Возвращает текущее время для последующего вызова {@link #record(Stage, long)}.
+     *
+     * @return отметка времени в наносекундах
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Записывает длительность этапа.
+     *
+     * @param stage этап анализа
+     * @param startNanos отметка времени, полученная от {@link #start()}
+     * @return длительность этапа в наносекундах
+     */
+    public long record(Stage stage, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        stageTimers.get(stage).record(elapsed, TimeUnit.NANOSECONDS);
+        return elapsed;
+    }
+
+    /**
+     * Записывает длительность запуска определителя.
+     *
+     * Встроенные определители дополнительно учитываются в таймерах этапов
+     * {@code signature.match}, {@code text.detection} и {@code content.classification}.
+     *
+     * @param detector определитель каскада
+     * @param startNanos отметка времени перед его запуском
+     * @return длительность запуска в наносекундах
+     */
+    public long recordDetector(Detector detector, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        Timer timer = detectorTimers.get(detector.getName());
+        if (timer != null) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        Stage stage = switch (detector.getName()) {
+            case SignatureDetector.NAME, ZipContainerInspector.NAME -> Stage.SIGNATURE_MATCH;
+            case TextClassifier.NAME -> Stage.TEXT_DETECTION;
+            case EntropyClassifier.NAME -> Stage.CONTENT_CLASSIFICATION;
+            default -> null;
+        };
+        if (stage != null) {
+            stageTimers.get(stage).record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        return elapsed;
+    }
+
+    /**
+     * Учитывает результат анализа файла.
+     *
+     * @param signature найденная подпись или {@code null}, если тип не определен
+     */
+    public void recordResult(FileSignature signature) {
+        recordFirstResult();
+        if (signature == null) {
+            unknownCounter.increment();
+            return;
+        }
+        FileType type = signature.getFileType() != null ? signature.getFileType() : FileType.UNKNOWN;
+        detectedCounters.get(type).increment();
+    }
+
+    /**
+     * Учитывает файл, который не удалось проанализировать.
+     */
+    public void recordFailure() {
+        recordFirstResult();
+        failedCounter.increment();
+    }
+
+    /**
+     * Запоминает время до первого результата анализа.
+     *
+     * После первого результата стоит одно чтение атомарной переменной.
+     */
+    private void recordFirstResult() {
+        if (firstResultUptime.get() < 0) {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            if (firstResultUptime.compareAndSet(-1, uptime)) {
+                logger.info("First analysis result {} ms after JVM start", uptime);
+            }
+        }
+    }
+
+    /**
+     * Учитывает обращение к кэшу результатов.
+     *
+     * @param hit {@code true}, если результат найден в кэше
+     */
+    public void recordCacheLookup(boolean hit) {
+        (hit ? cacheHitCounter : cacheMissCounter).increment();
+    }
+
+    /**
+     * Регистрирует очередь результатов начатого пакетного анализа.
+     *
+     * @param queue очередь результатов
+     */
+    public void batchStarted(Collection<?> queue) {
+        batchQueues.add(queue);
+    }
+
+    /**
+     * Снимает с учета очередь завершенного или отмененного пакетного анализа.
+     *
+     * @param queue очередь результатов
+     */
+    public void batchFinished(Collection<?> queue) {
+        batchQueues.remove(queue);
+    }
+
+    /**
+     * Учитывает начало анализа файла в пакетном режиме.
+     */
+    public void fileStarted() {
+        batchInFlight.incrementAndGet();
+    }
+
+    /**
+     * Учитывает окончание анализа файла в пакетном режиме.
+     */
+    public void fileFinished() {
+        batchInFlight.decrementAndGet();
+    }
+
+    /**
+     * Создает счетчик результатов анализа.
+     *
+     * @param result значение тега {@code result}
+     * @param type значение тега {@code type}
+     * @return зарегистрированный счетчик
+     */
+    private Counter filesCounter(String result, String type) {
+        return Counter.builder("analysis.files")
+                .description("Analyzed files by result and file type")
+                .tag("result", result)
+                .tag("type", type)
+                .register(registry);
+    }
+
+    /**
+     * Создает счетчик обращений к кэшу результатов.
+     *
+     * @param result значение тега {@code result}
+     * @return зарегистрированный счетчик
+     */
+    private Counter cacheCounter(String result) {
+        return Counter.builder("analysis.cache.requests")
+                .description("Analysis result cache lookups")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Суммирует размеры очередей пакетных анализов.
+     *
+     * @param queues очереди результатов
+     * @return общее количество ожидающих результатов
+     */
+    private static double totalSize(Set<Collection<?>> queues) {
+        int total = 0;
+        for (Collection<?> queue : queues) {
+            total += queue.size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JDK Flight Recorder об анализе одного файла.
+ *
+ * Длительность события — полное время анализа, поток записывается
+ * JFR автоматически. По умолчанию фиксируются только файлы, анализ которых
+ * занял не менее 10 мс, поэтому событие можно держать включенным
+ * в рабочей среде; порог и другие настройки задаются профилем
+ * {@code jfr/filerecovery.jfc}. Поля, требующие создания строк,
+ * заполняются только если событие будет записано.
+ */
+@Name(FileAnalysisEvent.NAME)
+@Label("File Analysis")
+@Description("File type detection of a single file")
+@Category({"File Recovery", "Analysis"})
+@Threshold("10 ms")
+@StackTrace(false)
+public class FileAnalysisEvent extends jdk.jfr.Event {
+    /**
+     * Имя события в записи JFR.
+     */
+    public static final String NAME = "org.example.FileAnalysis";
+
+    /** Путь к файлу. */
+    @Label("Path")
+    public String path;
+
+    /** Размер файла. */
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+
+    /** Количество байтов прочитанного заголовка. */
+    @Label("Header Bytes")
+    @DataAmount
+    public long headerBytes;
+
+    /** Результат: {@code detected}, {@code unknown} или {@code failed}. */
+    @Label("Result")
+    public String result;
+
+    /** Расширение найденной подписи. */
+    @Label("Extension")
+    public String extension;
+
+    /** Тип найденной подписи. */
+    @Label("File Type")
+    public String fileType;
+
+    /** Класс содержимого файла без подписи. */
+    @Label("Content Class")
+    public String contentClass;
+
+    /** Признак того, что результат взят из кэша. */
+    @Label("Cached")
+    public boolean cached;
+
+    /** Время поиска в кэше результатов. */
+    @Label("Cache Lookup")
+    @Timespan
+    public long cacheLookup;
+
+    /** Время открытия файла и чтения заголовка. */
+    @Label("Header Read")
+    @Timespan
+    public long headerRead;
+
+    /** Время работы каскада определителей. */
+    @Label("Detection")
+    @Timespan
+    public long detection;
+
+    /** Имена запущенных определителей в порядке запуска. */
+    @Label("Detectors")
+    public String detectors;
+
+    /** Время сопоставления подписей. */
+    @Label("Signature Match")
+    @Timespan
+    public long signatureMatch;
+
+    /** Время уточнения формата ZIP-контейнера. */
+    @Label("Zip Inspection")
+    @Timespan
+    public long zipInspection;
+
+    /** Время проверки текста. */
+    @Label("Text Detection")
+    @Timespan
+    public long textDetection;
+
+    /** Время определения класса содержимого. */
+    @Label("Content Classification")
+    @Timespan
+    public long contentClassification;
+
+    /** Суммарное время определителей, не входящих в приложение. */
+    @Label("Other Detectors")
+    @Timespan
+    public long otherDetectors;
+}
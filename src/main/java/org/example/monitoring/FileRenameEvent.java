@@ -0,0 +1,37 @@
+package org.example.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JDK Flight Recorder о переименовании файла при восстановлении расширения.
+ *
+ * Записывается для каждого переименования: их на порядки меньше,
+ * чем проанализированных файлов.
+ */
+@Name(FileRenameEvent.NAME)
+@Label("File Rename")
+@Description("Rename of a file to restore its extension")
+@Category({"File Recovery", "Recovery"})
+@StackTrace(false)
+public class FileRenameEvent extends jdk.jfr.Event {
+    /**
+     * Имя события в записи JFR.
+     */
+    public static final String NAME = "org.example.FileRename";
+
+    /** Исходный путь к файлу. */
+    @Label("Source")
+    public String source;
+
+    /** Новый путь к файлу. */
+    @Label("Target")
+    public String target;
+
+    /** Признак успешного переименования. */
+    @Label("Renamed")
+    public boolean renamed;
+}
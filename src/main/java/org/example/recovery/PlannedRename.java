@@ -0,0 +1,17 @@
+package org.example.recovery;
+
+import org.example.model.FileSignature;
+
+import java.nio.file.Path;
+
+/**
+ * Запланированное переименование одного файла.
+ *
+ * @param index порядковый номер в плане и журнале
+ * @param source текущий путь к файлу
+ * @param target путь после восстановления расширения
+ * @param signature определенная подпись файла или {@code null}, если план прочитан из журнала
+ * @param collision {@code true}, если к имени добавлен суффикс, чтобы не перезаписать существующий файл
+ */
+public record PlannedRename(int index, Path source, Path target, FileSignature signature, boolean collision) {
+}
@@ -0,0 +1,400 @@
+package org.example.recovery;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Журнал массового восстановления расширений, допускающий только дозапись.
+ *
+ * Текстовый файл UTF-8, одна запись в строке:
+ * <pre>
+ * FRJ1                      заголовок
+ * Psource\ttarget           запланированное переименование, номер — порядок строки
+ * E                         конец плана
+ * +N                        переименование N выполнено
+ * !N\tошибка                переименование N завершилось ошибкой
+ * -N                        переименование N отменено
+ * </pre>
+ * Пути записываются абсолютными, чтобы журнал можно было продолжить или
+ * отменить из любого рабочего каталога. Табуляция, перевод строки
+ * и обратная косая черта в путях экранируются.
+ * План записывается и сбрасывается на диск до первого переименования.
+ * Отметки сбрасываются пачками: отметка, потерянная при сбое,
+ * восстанавливается при продолжении или отмене по состоянию файловой
+ * системы (исходного файла нет, а целевой есть). Неполная последняя
+ * строка при чтении отбрасывается. Методы записи потокобезопасны.
+ */
+public final class RenameJournal implements AutoCloseable {
+    /**
+     * Состояние переименования по журналу.
+     */
+    public enum State {
+        /** Отметок нет: переименование не выполнялось или отметка потеряна. */
+        PENDING,
+        /** Переименование выполнено. */
+        DONE,
+        /** Переименование завершилось ошибкой. */
+        FAILED,
+        /** Переименование отменено. */
+        UNDONE
+    }
+
+    /**
+     * Заголовок журнала.
+     */
+    private static final String MAGIC = "FRJ1";
+
+    /**
+     * Количество отметок, после которого буфер записывается в файл.
+     */
+    private static final int FLUSH_EVERY = 256;
+
+    /**
+     * Путь к журналу.
+     */
+    private final Path path;
+
+    /**
+     * Канал файла журнала.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Буферизованная запись в канал.
+     */
+    private final Writer writer;
+
+    /**
+     * Переименования плана.
+     */
+    private final List<PlannedRename> renames;
+
+    /**
+     * Состояния переименований по номерам.
+     */
+    private final State[] states;
+
+    /**
+     * Количество отметок, не записанных в файл.
+     */
+    private int unflushed;
+
+    private RenameJournal(Path path, FileChannel channel, List<PlannedRename> renames, State[] states) {
+        this.path = path;
+        this.channel = channel;
+        this.writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+        this.renames = renames;
+        this.states = states;
+    }
+
+    /**
+     * Создает журнал и записывает в него план.
+     *
+     * @param path путь к новому журналу; файл не должен существовать
+     * @param plan план переименований
+     * @return журнал, открытый для записи отметок
+     * @throws IOException если не удалось создать или записать журнал
+     */
+    public static RenameJournal create(Path path, RenamePlan plan) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        State[] states = new State[plan.size()];
+        Arrays.fill(states, State.PENDING);
+        RenameJournal journal = new RenameJournal(path, channel, plan.renames(), states);
+        try {
+            journal.writer.write(MAGIC);
+            journal.writer.write('\n');
+            for (PlannedRename rename : plan.renames()) {
+                journal.writer.write('P');
+                journal.writer.write(escape(rename.source().toAbsolutePath().normalize().toString()));
+                journal.writer.write('\t');
+                journal.writer.write(escape(rename.target().toAbsolutePath().normalize().toString()));
+                journal.writer.write('\n');
+            }
+            journal.writer.write("E\n");
+            journal.sync();
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Открывает существующий журнал для продолжения или отмены.
+     *
+     * @param path путь к журналу
+     * @return журнал с прочитанным планом и состояниями, открытый для дозаписи
+     * @throws IOException если журнал не удалось прочитать или план в нем неполон
+     */
+    public static RenameJournal open(Path path) throws IOException {
+        List<PlannedRename> renames = new ArrayList<>();
+        List<String> markers = new ArrayList<>();
+        boolean[] header = {false};
+        boolean[] planComplete = {false};
+        boolean truncated;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            truncated = readLines(reader, line -> {
+                if (!header[0]) {
+                    header[0] = MAGIC.equals(line);
+                } else if (!planComplete[0]) {
+                    if (line.equals("E")) {
+                        planComplete[0] = true;
+                    } else if (line.startsWith("P")) {
+                        int tab = line.indexOf('\t');
+                        if (tab > 0) {
+                            renames.add(new PlannedRename(renames.size(),
+                                    Path.of(unescape(line.substring(1, tab))),
+                                    Path.of(unescape(line.substring(tab + 1))), null, false));
+                        }
+                    }
+                } else {
+                    markers.add(line);
+                }
+            });
+        }
+        if (!header[0]) {
+            throw new IOException("Not a rename journal: " + path);
+        }
+        if (!planComplete[0]) {
+            throw new IOException("The rename plan in the journal is incomplete, no files were renamed: " + path);
+        }
+
+        State[] states = new State[renames.size()];
+        Arrays.fill(states, State.PENDING);
+        for (String marker : markers) {
+            applyMarker(marker, states);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        RenameJournal journal = new RenameJournal(path, channel, List.copyOf(renames), states);
+        if (truncated) {
+            // Завершаем оборванную строку, чтобы следующая отметка читалась отдельно
+            journal.writer.write('\n');
+        }
+        return journal;
+    }
+
+    /**
+     * Возвращает путь к журналу.
+     *
+     * @return путь к файлу журнала
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Возвращает переименования плана.
+     *
+     * @return переименования в порядке номеров
+     */
+    public List<PlannedRename> getRenames() {
+        return renames;
+    }
+
+    /**
+     * Возвращает состояние переименования.
+     *
+     * @param index номер переименования
+     * @return состояние по журналу
+     */
+    public synchronized State getState(int index) {
+        return states[index];
+    }
+
+    /**
+     * Отмечает переименование выполненным.
+     *
+     * @param index номер переименования
+     * @throws IOException если не удалось записать отметку
+     */
+    public void markDone(int index) throws IOException {
+        mark(index, State.DONE, "+" + index);
+    }
+
+    /**
+     * Отмечает переименование завершившимся ошибкой.
+     *
+     * @param index номер переименования
+     * @param error описание ошибки
+     * @throws IOException если не удалось записать отметку
+     */
+    public void markFailed(int index, String error) throws IOException {
+        mark(index, State.FAILED, "!" + index + "\t" + escape(String.valueOf(error)));
+    }
+
+    /**
+     * Отмечает переименование отмененным.
+     *
+     * @param index номер переименования
+     * @throws IOException если не удалось записать отметку
+     */
+    public void markUndone(int index) throws IOException {
+        mark(index, State.UNDONE, "-" + index);
+    }
+
+    /**
+     * Записывает буферизованные отметки и сбрасывает журнал на диск.
+     *
+     * @throws IOException если не удалось записать журнал
+     */
+    public synchronized void sync() throws IOException {
+        writer.flush();
+        channel.force(false);
+        unflushed = 0;
+    }
+
+    /**
+     * Сбрасывает журнал на диск и закрывает его.
+     *
+     * @throws IOException если не удалось записать журнал
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Добавляет отметку и обновляет состояние.
+     *
+     * @param index номер переименования
+     * @param state новое состояние
+     * @param line строка отметки
+     * @throws IOException если не удалось записать отметку
+     */
+    private synchronized void mark(int index, State state, String line) throws IOException {
+        states[index] = state;
+        writer.write(line);
+        writer.write('\n');
+        if (++unflushed >= FLUSH_EVERY) {
+            writer.flush();
+            unflushed = 0;
+        }
+    }
+
+    /**
+     * Применяет прочитанную отметку к состояниям.
+     *
+     * Некорректные отметки пропускаются.
+     *
+     * @param marker строка отметки
+     * @param states состояния переименований
+     */
+    private static void applyMarker(String marker, State[] states) {
+        if (marker.length() < 2) {
+            return;
+        }
+        State state = switch (marker.charAt(0)) {
+            case '+' -> State.DONE;
+            case '!' -> State.FAILED;
+            case '-' -> State.UNDONE;
+            default -> null;
+        };
+        if (state == null) {
+            return;
+        }
+        int end = marker.indexOf('\t');
+        try {
+            int index = Integer.parseInt(marker.substring(1, end < 0 ? marker.length() : end));
+            if (index >= 0 && index < states.length) {
+                states[index] = state;
+            }
+        } catch (NumberFormatException e) {
+            // Поврежденная отметка: состояние будет определено по файловой системе
+        }
+    }
+
+    /**
+     * Читает завершенные строки; последняя строка без перевода строки отбрасывается.
+     *
+     * @param reader источник символов
+     * @param consumer обработчик строк
+     * @return {@code true}, если последняя строка оборвана
+     * @throws IOException если не удалось прочитать журнал
+     */
+    private static boolean readLines(Reader reader, Consumer<String> consumer) throws IOException {
+        char[] chunk = new char[8192];
+        StringBuilder line = new StringBuilder();
+        int read;
+        while ((read = reader.read(chunk)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                char c = chunk[i];
+                if (c == '\n') {
+                    consumer.accept(line.toString());
+                    line.setLength(0);
+                } else {
+                    line.append(c);
+                }
+            }
+        }
+        return !line.isEmpty();
+    }
+
+    /**
+     * Экранирует разделители записей журнала.
+     *
+     * @param value исходная строка
+     * @return строка без табуляций и переводов строки
+     */
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Восстанавливает строку, экранированную {@link #escape(String)}.
+     *
+     * @param value экранированная строка
+     * @return исходная строка
+     */
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                unescaped.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            unescaped.append(switch (next) {
+                case 't' -> '\t';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                default -> next;
+            });
+        }
+        return unescaped.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.recovery;
+
+/**
+ * Результат обработки одного запланированного переименования.
+ *
+ * @param rename запланированное переименование
+ * @param status итог обработки
+ * @param error описание ошибки или {@code null}
+ */
+public record RenameOutcome(PlannedRename rename, Status status, String error) {
+    /**
+     * Итог обработки переименования.
+     */
+    public enum Status {
+        /** Переименование только запланировано (пробный запуск). */
+        PLANNED,
+        /** Файл переименован. */
+        RENAMED,
+        /** Файл уже был переименован до сбоя, это зафиксировано в журнале. */
+        ALREADY_RENAMED,
+        /** Переименование отменено, файлу возвращено исходное имя. */
+        RESTORED,
+        /** Пропущено: файл по целевому пути появился после планирования. */
+        TARGET_EXISTS,
+        /** Пропущено: исходный файл больше не существует. */
+        SOURCE_MISSING,
+        /** Переименование завершилось ошибкой. */
+        FAILED
+    }
+
+    /**
+     * Проверяет, завершилась ли обработка ошибкой.
+     *
+     * @return {@code true} для статуса {@link Status#FAILED}
+     */
+    public boolean isFailed() {
+        return status == Status.FAILED;
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.recovery;
+
+import java.util.List;
+
+/**
+ * План массового восстановления расширений.
+ *
+ * Содержит только файлы, которые нужно переименовать; остальные
+ * проанализированные файлы учитываются счетчиками.
+ *
+ * @param renames запланированные переименования в порядке номеров
+ * @param unchanged количество файлов, расширение которых уже соответствует типу
+ * @param undetected количество файлов, тип которых не определен
+ * @param failed количество файлов, которые не удалось проанализировать
+ */
+public record RenamePlan(List<PlannedRename> renames, long unchanged, long undetected, long failed) {
+    /**
+     * Возвращает количество запланированных переименований.
+     *
+     * @return размер плана
+     */
+    public int size() {
+        return renames.size();
+    }
+}
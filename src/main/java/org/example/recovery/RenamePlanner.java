@@ -0,0 +1,186 @@
+package org.example.recovery;
+
+import org.example.analysis.SignatureCatalog;
+import org.example.model.FileAnalysisResult;
+import org.example.model.FileSignature;
+import org.example.util.FileUtils;
+
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Составление плана массового восстановления расширений по результатам анализа.
+ *
+ * Планирование не изменяет файловую систему, поэтому пробный запуск
+ * стоит ровно столько, сколько анализ. Для каждого файла с определенным
+ * типом вычисляется новое имя по тем же правилам, что и
+ * {@link FileUtils#renameFile}. Файл не переименовывается, если текущее
+ * расширение принадлежит подписи с теми же магическими числами
+ * (например, {@code jpeg} и {@code jpg}, {@code docx} и {@code zip}),
+ * а файлы, определенные как текст, получают расширение только
+ * при его отсутствии. Если новое имя занято существующим файлом
+ * или другим переименованием плана, к имени добавляется суффикс
+ * {@code _1}, {@code _2} и т. д.
+ * Экземпляр не потокобезопасен.
+ */
+public final class RenamePlanner {
+    /**
+     * Снимок каталога подписей, использованный при анализе.
+     */
+    private final SignatureCatalog catalog;
+
+    /**
+     * Запланированные переименования.
+     */
+    private final List<PlannedRename> renames = new ArrayList<>();
+
+    /**
+     * Целевые пути, уже занятые переименованиями плана.
+     */
+    private final Set<Path> claimed = new HashSet<>();
+
+    /**
+     * Количество файлов с корректным расширением.
+     */
+    private long unchanged;
+
+    /**
+     * Количество файлов без определенного типа.
+     */
+    private long undetected;
+
+    /**
+     * Количество файлов, которые не удалось проанализировать.
+     */
+    private long failed;
+
+    /**
+     * Создает планировщик.
+     *
+     * @param catalog снимок каталога подписей
+     */
+    public RenamePlanner(SignatureCatalog catalog) {
+        this.catalog = Objects.requireNonNull(catalog, "catalog");
+    }
+
+    /**
+     * Учитывает результат анализа одного файла.
+     *
+     * @param result результат анализа
+     */
+    public void add(FileAnalysisResult result) {
+        if (result.isFailed()) {
+            failed++;
+            return;
+        }
+        FileSignature signature = result.signature();
+        if (signature == null) {
+            undetected++;
+            return;
+        }
+        Path source = result.path();
+        if (!needsRename(source, signature)) {
+            unchanged++;
+            return;
+        }
+
+        Path target = FileUtils.renameTarget(source.toFile(), signature.getExtension()).toPath();
+        boolean collision = isTaken(target);
+        if (collision) {
+            target = withSuffix(target);
+        }
+        claimed.add(target);
+        renames.add(new PlannedRename(renames.size(), source, target, signature, collision));
+    }
+
+    /**
+     * Возвращает составленный план.
+     *
+     * @return план переименований
+     */
+    public RenamePlan build() {
+        return new RenamePlan(List.copyOf(renames), unchanged, undetected, failed);
+    }
+
+    /**
+     * Проверяет, требуется ли восстановление расширения файла.
+     *
+     * @param file путь к файлу
+     * @param signature определенная подпись
+     * @return {@code true}, если файл нужно переименовать
+     */
+    private boolean needsRename(Path file, FileSignature signature) {
+        String current = FileUtils.getFileExtension(file.toFile());
+        if (current.equals(signature.getExtension().toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        if (signature.getHexSignature() == null || signature.getHexSignature().isEmpty()) {
+            return current.isEmpty();
+        }
+        if (current.isEmpty()) {
+            return true;
+        }
+        Optional<FileSignature> declared = catalog.findByExtension(current);
+        return declared.isEmpty() || !sameMagic(declared.get(), signature);
+    }
+
+    /**
+     * Проверяет, совпадают ли магические числа двух подписей.
+     *
+     * @param first первая подпись
+     * @param second вторая подпись
+     * @return {@code true}, если магические числа и их смещения совпадают
+     */
+    private static boolean sameMagic(FileSignature first, FileSignature second) {
+        return first.getHexSignature() != null
+                && first.getHexSignature().equalsIgnoreCase(second.getHexSignature())
+                && offset(first) == offset(second);
+    }
+
+    /**
+     * Возвращает смещение магических чисел подписи.
+     *
+     * @param signature подпись
+     * @return смещение в байтах
+     */
+    private static int offset(FileSignature signature) {
+        return signature.getSignatureOffset() != null ? signature.getSignatureOffset() : 0;
+    }
+
+    /**
+     * Проверяет, занят ли путь существующим файлом или другим переименованием.
+     *
+     * @param target проверяемый путь
+     * @return {@code true}, если путь занят
+     */
+    private boolean isTaken(Path target) {
+        return claimed.contains(target) || Files.exists(target, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    /**
+     * Подбирает свободное имя, добавляя к имени файла числовой суффикс.
+     *
+     * @param target занятый путь
+     * @return свободный путь вида {@code имя_N.расширение}
+     */
+    private Path withSuffix(Path target) {
+        String name = target.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int n = 1; ; n++) {
+            Path candidate = target.resolveSibling(stem + "_" + n + extension);
+            if (!isTaken(candidate)) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.analysis.ContentClass;
+import org.example.analysis.DetectorCascade;
+import org.example.analysis.SignatureCatalog;
+import org.example.model.FileSignature;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Постоянный кэш результатов анализа файлов.
+ *
+ * Хранит идентификатор найденной подписи или класс содержимого файла
+ * без подписи для каждого проанализированного файла в отдельной файловой базе H2, не связанной с базой подписей.
+ * Запись считается действительной, пока у файла не изменились размер,
+ * время модификации и идентификатор файла в файловой системе (inode),
+ * а каталог подписей и каскад определителей имеют те же отпечатки:
+ * в столбце {@code catalog} хранятся оба отпечатка через двоеточие. Поэтому повторное
+ * сканирование неизменного дерева сводится к чтению метаданных.
+ * Устаревшие записи удаляются по возрасту, а при превышении предельного
+ * количества — начиная с давно не использовавшихся.
+ * Ошибки кэша не прерывают анализ: при недоступности базы кэш отключается.
+ */
+@Service
+public class AnalysisCacheService {
+    /**
+     * Логгер для записи информационных и отладочных сообщений кэша.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisCacheService.class);
+
+    /**
+     * Минимальный интервал между обновлениями времени последнего обращения к записи.
+     */
+    private static final long TOUCH_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Количество сохранений, после которого запускается очистка кэша.
+     */
+    private static final long EVICT_EVERY = 10_000;
+
+    /**
+     * Создание таблицы кэша.
+     */
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS analysis_cache (
+                path VARCHAR PRIMARY KEY,
+                file_size BIGINT NOT NULL,
+                modified BIGINT NOT NULL,
+                file_key VARCHAR,
+                signature_id BIGINT,
+                catalog VARCHAR(129) NOT NULL,
+                last_access BIGINT NOT NULL,
+                content_class VARCHAR(16)
+            )""";
+
+    /**
+     * Добавление столбца класса содержимого в кэш, созданный предыдущими версиями.
+     */
+    private static final String ADD_CONTENT_CLASS =
+            "ALTER TABLE analysis_cache ADD COLUMN IF NOT EXISTS content_class VARCHAR(16)";
+
+    /**
+     * Расширение столбца отпечатков в кэше, созданном предыдущими версиями,
+     * где хранился только отпечаток каталога. Такие записи не совпадут
+     * ни с одной парой отпечатков и будут вытеснены обычной очисткой.
+     */
+    private static final String WIDEN_CATALOG =
+            "ALTER TABLE analysis_cache ALTER COLUMN catalog SET DATA TYPE VARCHAR(129)";
+
+    /**
+     * Создание индекса по времени последнего обращения.
+     */
+    private static final String CREATE_INDEX =
+            "CREATE INDEX IF NOT EXISTS analysis_cache_last_access ON analysis_cache(last_access)";
+
+    /**
+     * Чтение записи по пути.
+     */
+    private static final String SELECT =
+            "SELECT file_size, modified, file_key, signature_id, catalog, last_access, content_class "
+                    + "FROM analysis_cache WHERE path = ?";
+
+    /**
+     * Вставка или замена записи.
+     */
+    private static final String MERGE =
+            "MERGE INTO analysis_cache (path, file_size, modified, file_key, signature_id, catalog, last_access, "
+                    + "content_class) KEY (path) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Обновление времени последнего обращения.
+     */
+    private static final String TOUCH = "UPDATE analysis_cache SET last_access = ? WHERE path = ?";
+
+    /**
+     * Удаление записей старше срока хранения.
+     */
+    private static final String DELETE_EXPIRED = "DELETE FROM analysis_cache WHERE last_access < ?";
+
+    /**
+     * Удаление самых давних записей сверх предельного количества.
+     */
+    private static final String DELETE_EXCESS =
+            "DELETE FROM analysis_cache WHERE last_access < "
+                    + "(SELECT last_access FROM analysis_cache ORDER BY last_access DESC OFFSET ? ROWS FETCH NEXT 1 ROW ONLY)";
+
+    /**
+     * Признак включения кэша.
+     */
+    @Value("${analysis.cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * JDBC URL файловой базы кэша.
+     */
+    @Value("${analysis.cache.url:jdbc:h2:file:${user.home}/.filerecovery/analysis-cache;AUTO_SERVER=TRUE}")
+    private String url;
+
+    /**
+     * Срок хранения записей, к которым не было обращений.
+     */
+    @Value("${analysis.cache.max-age:P30D}")
+    private Duration maxAge;
+
+    /**
+     * Предельное количество записей в кэше.
+     */
+    @Value("${analysis.cache.max-entries:1000000}")
+    private long maxEntries;
+
+    /**
+     * Максимальное количество сеансов с базой кэша, используемых при анализе.
+     */
+    @Value("${analysis.cache.max-connections:16}")
+    private int maxConnections;
+
+    /**
+     * Пул соединений с базой кэша или {@code null}, если кэш отключен.
+     * Сеансы анализа занимают не более {@link #maxConnections} соединений,
+     * еще одно остается для очистки.
+     */
+    private volatile JdbcConnectionPool pool;
+
+    /**
+     * Свободные сеансы с подготовленными запросами.
+     */
+    private final BlockingQueue<Session> sessions = new LinkedBlockingQueue<>();
+
+    /**
+     * Количество открытых сеансов.
+     */
+    private final AtomicInteger openSessions = new AtomicInteger();
+
+    /**
+     * Количество сохранений с момента последней очистки.
+     */
+    private final AtomicLong storesSinceEviction = new AtomicLong();
+
+    /**
+     * Признак выполняющейся очистки.
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Ключ записи кэша: путь и метаданные файла.
+     *
+     * @param path абсолютный нормализованный путь
+     * @param size размер файла в байтах
+     * @param modified время последней модификации в наносекундах от эпохи
+     * @param fileKey идентификатор файла в файловой системе или {@code null}, если он недоступен
+     */
+    public record Key(String path, long size, long modified, String fileKey) {
+        /**
+         * Создает ключ по текущим метаданным файла.
+         *
+         * @param file путь к файлу
+         * @return ключ записи
+         * @throws IOException если не удалось прочитать атрибуты файла
+         */
+        public static Key of(Path file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            Object fileKey = attributes.fileKey();
+            return new Key(file.toAbsolutePath().normalize().toString(), attributes.size(),
+                    attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), fileKey == null ? null : fileKey.toString());
+        }
+    }
+
+    /**
+     * Результат, найденный в кэше.
+     *
+     * @param signature подпись файла или {@code null}, если тип файла ранее не был определен
+     * @param content класс содержимого файла без подписи или {@code null}
+     */
+    public record Hit(FileSignature signature, ContentClass content) {
+    }
+
+    /**
+     * Открывает базу кэша и запускает удаление устаревших записей в фоне.
+     *
+     * Очистка большой таблицы занимает заметное время, поэтому не задерживает
+     * запуск приложения и первый анализ.
+     */
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            logger.info("The analysis result cache is disabled");
+            return;
+        }
+        JdbcConnectionPool created = JdbcConnectionPool.create(url, "sa", "");
+        created.setMaxConnections(maxConnections + 1);
+        try (Connection connection = created.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+            statement.execute(ADD_CONTENT_CLASS);
+            statement.execute(WIDEN_CATALOG);
+            statement.execute(CREATE_INDEX);
+        } catch (SQLException e) {
+            logger.warn("The analysis result cache is unavailable, continuing without it: {}", e.getMessage());
+            created.dispose();
+            return;
+        }
+        pool = created;
+        scheduleEviction();
+    }
+
+    /**
+     * Закрывает соединения с базой кэша.
+     */
+    @PreDestroy
+    public void shutdown() {
+        JdbcConnectionPool current = pool;
+        pool = null;
+        Session session;
+        while ((session = sessions.poll()) != null) {
+            session.close();
+        }
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    /**
+     * Проверяет, доступен ли кэш.
+     *
+     * @return {@code true}, если кэш включен и база открыта
+     */
+    public boolean isEnabled() {
+        return pool != null;
+    }
+
+    /**
+     * Ищет действительный результат анализа файла.
+     *
+     * @param key ключ с текущими метаданными файла
+     * @param catalog снимок каталога, с которым должен совпадать результат
+     * @param cascade каскад определителей, с которым должен совпадать результат
+     * @return найденный результат или пустой {@link Optional}, если записи нет или она устарела
+     */
+    public Optional<Hit> lookup(Key key, SignatureCatalog catalog, DetectorCascade cascade) {
+        Session session = acquire();
+        if (session == null) {
+            return Optional.empty();
+        }
+        boolean healthy = false;
+        try {
+            Optional<Hit> hit = lookup(session, key, catalog, cascade);
+            healthy = true;
+            return hit;
+        } catch (SQLException e) {
+            logger.warn("Failed to read the analysis result cache for {}: {}", key.path(), e.getMessage());
+            return Optional.empty();
+        } finally {
+            release(session, healthy);
+        }
+    }
+
+    /**
+     * Ищет действительный результат анализа файла в указанном сеансе.
+     *
+     * @param session сеанс базы кэша
+     * @param key ключ с текущими метаданными файла
+     * @param catalog снимок каталога, с которым должен совпадать результат
+     * @param cascade каскад определителей, с которым должен совпадать результат
+     * @return найденный результат или пустой {@link Optional}
+     * @throws SQLException если не удалось выполнить запрос
+     */
+    private Optional<Hit> lookup(Session session, Key key, SignatureCatalog catalog, DetectorCascade cascade)
+            throws SQLException {
+        session.select.setString(1, key.path());
+        long lastAccess;
+        FileSignature signature = null;
+        ContentClass content = null;
+        try (ResultSet row = session.select.executeQuery()) {
+            if (!row.next()
+                    || row.getLong(1) != key.size()
+                    || row.getLong(2) != key.modified()
+                    || !Objects.equals(row.getString(3), key.fileKey())
+                    || !matches(row.getString(5), catalog, cascade)) {
+                return Optional.empty();
+            }
+
+            long signatureId = row.getLong(4);
+            if (!row.wasNull()) {
+                Optional<FileSignature> found = catalog.findById(signatureId);
+                if (found.isEmpty()) {
+                    return Optional.empty();
+                }
+                signature = found.get();
+            }
+            lastAccess = row.getLong(6);
+            String contentClass = row.getString(7);
+            if (signature == null && contentClass == null && key.size() > 0) {
+                // Запись предыдущей версии без класса содержимого
+                return Optional.empty();
+            }
+            if (contentClass != null) {
+                try {
+                    content = ContentClass.valueOf(contentClass);
+                } catch (IllegalArgumentException e) {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastAccess > TOUCH_INTERVAL_MS) {
+            session.touch.setLong(1, now);
+            session.touch.setString(2, key.path());
+            session.touch.executeUpdate();
+        }
+        return Optional.of(new Hit(signature, content));
+    }
+
+    /**
+     * Проверяет, что сохраненные отпечатки совпадают с отпечатками каталога и каскада.
+     *
+     * @param stored значение столбца {@code catalog}
+     * @param catalog текущий снимок каталога
+     * @param cascade текущий каскад определителей
+     * @return {@code true}, если совпадают оба отпечатка
+     */
+    private static boolean matches(String stored, SignatureCatalog catalog, DetectorCascade cascade) {
+        String catalogFingerprint = catalog.getFingerprint();
+        String cascadeFingerprint = cascade.getFingerprint();
+        int separator = catalogFingerprint.length();
+        return stored != null
+                && stored.length() == separator + 1 + cascadeFingerprint.length()
+                && stored.startsWith(catalogFingerprint)
+                && stored.charAt(separator) == ':'
+                && stored.endsWith(cascadeFingerprint);
+    }
+
+    /**
+     * Сохраняет результат анализа файла.
+     *
+     * @param key ключ с метаданными файла на момент анализа
+     * @param catalog снимок каталога, с которым выполнялся анализ
+     * @param cascade каскад определителей, которым выполнялся анализ
+     * @param signature найденная подпись или {@code null}, если тип не определен
+     * @param content класс содержимого файла без подписи или {@code null}
+     */
+    public void store(Key key, SignatureCatalog catalog, DetectorCascade cascade, FileSignature signature,
+                      ContentClass content) {
+        Session session = acquire();
+        if (session == null) {
+            return;
+        }
+        boolean healthy = false;
+        try {
+            PreparedStatement merge = session.merge;
+            merge.setString(1, key.path());
+            merge.setLong(2, key.size());
+            merge.setLong(3, key.modified());
+            merge.setString(4, key.fileKey());
+            if (signature == null || signature.getId() == null) {
+                merge.setNull(5, Types.BIGINT);
+            } else {
+                merge.setLong(5, signature.getId());
+            }
+            merge.setString(6, catalog.getFingerprint() + ':' + cascade.getFingerprint());
+            merge.setLong(7, System.currentTimeMillis());
+            merge.setString(8, content != null ? content.name() : null);
+            merge.executeUpdate();
+            healthy = true;
+        } catch (SQLException e) {
+            logger.warn("Failed to update the analysis result cache for {}: {}", key.path(), e.getMessage());
+            return;
+        } finally {
+            release(session, healthy);
+        }
+
+        if (storesSinceEviction.incrementAndGet() >= EVICT_EVERY) {
+            scheduleEviction();
+        }
+    }
+
+    /**
+     * Запускает очистку в фоновом потоке, если она еще не выполняется.
+     */
+    private void scheduleEviction() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        storesSinceEviction.set(0);
+        Thread.ofVirtual().name("analysis-cache-eviction").start(() -> {
+            try {
+                evict();
+            } finally {
+                evicting.set(false);
+            }
+        });
+    }
+
+    /**
+     * Берет свободный сеанс или открывает новый, если предел сеансов не достигнут.
+     *
+     * @return сеанс или {@code null}, если кэш недоступен или ожидание прервано
+     */
+    private Session acquire() {
+        JdbcConnectionPool current = pool;
+        if (current == null) {
+            return null;
+        }
+        Session session = sessions.poll();
+        if (session != null) {
+            return session;
+        }
+        if (openSessions.incrementAndGet() <= maxConnections) {
+            try {
+                return new Session(current.getConnection());
+            } catch (SQLException e) {
+                openSessions.decrementAndGet();
+                logger.warn("Failed to open an analysis result cache session: {}", e.getMessage());
+                return null;
+            }
+        }
+        openSessions.decrementAndGet();
+        try {
+            return sessions.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Возвращает сеанс в пул или закрывает его после ошибки.
+     *
+     * @param session сеанс
+     * @param healthy {@code false}, если при работе с сеансом произошла ошибка
+     */
+    private void release(Session session, boolean healthy) {
+        if (healthy && pool != null) {
+            sessions.add(session);
+        } else {
+            openSessions.decrementAndGet();
+            session.close();
+        }
+    }
+
+    /**
+     * Удаляет записи старше срока хранения и самые давние записи сверх предельного количества.
+     */
+    public void evict() {
+        JdbcConnectionPool current = pool;
+        if (current == null) {
+            return;
+        }
+        try (Connection connection = current.getConnection();
+             PreparedStatement expired = connection.prepareStatement(DELETE_EXPIRED);
+             PreparedStatement excess = connection.prepareStatement(DELETE_EXCESS)) {
+            expired.setLong(1, System.currentTimeMillis() - maxAge.toMillis());
+            int removed = expired.executeUpdate();
+            excess.setLong(1, Math.max(maxEntries - 1, 0));
+            removed += excess.executeUpdate();
+            if (removed > 0) {
+                logger.info("Evicted {} entries from the analysis result cache", removed);
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to evict analysis result cache entries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет все записи кэша.
+     */
+    public void clear() {
+        JdbcConnectionPool current = pool;
+        if (current == null) {
+            return;
+        }
+        try (Connection connection = current.getConnection(); Statement statement = connection.createStatement()) {
+            int removed = statement.executeUpdate("DELETE FROM analysis_cache");
+            logger.info("The analysis result cache has been cleared: {} entries", removed);
+        } catch (SQLException e) {
+            logger.warn("Failed to clear the analysis result cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Соединение с базой кэша и подготовленные запросы горячего пути.
+     *
+     * Подготовленные запросы переиспользуются между обращениями,
+     * поэтому SQL разбирается один раз на сеанс. Сеанс используется
+     * одним потоком одновременно.
+     */
+    private static final class Session {
+        private final Connection connection;
+        private final PreparedStatement select;
+        private final PreparedStatement merge;
+        private final PreparedStatement touch;
+
+        private Session(Connection connection) throws SQLException {
+            this.connection = connection;
+            try {
+                this.select = connection.prepareStatement(SELECT);
+                this.merge = connection.prepareStatement(MERGE);
+                this.touch = connection.prepareStatement(TOUCH);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Закрывает соединение вместе с подготовленными запросами.
+         */
+        private void close() {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("Failed to close an analysis result cache session", e);
+            }
+        }
+    }
+}
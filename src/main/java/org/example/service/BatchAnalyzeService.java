@@ -0,0 +1,335 @@
+package org.example.service;
+
+import org.example.model.FileAnalysisResult;
+import org.example.monitoring.AnalysisMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Сервис пакетного анализа файлов в дереве каталогов.
+ *
+ * Обходит каталог лениво с помощью {@link Files#walkFileTree} и анализирует
+ * каждый файл в отдельном виртуальном потоке. Количество одновременно
+ * анализируемых файлов ограничено семафором, а готовые результаты
+ * передаются потребителю через ограниченную очередь, поэтому расход памяти
+ * не зависит от размера дерева.
+ */
+@Service
+public class BatchAnalyzeService {
+    /**
+     * Логгер для записи информационных и отладочных сообщений пакетного анализа.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(BatchAnalyzeService.class);
+
+    /**
+     * Интервал проверки отмены при ожидании места в очереди, в миллисекундах.
+     */
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    /**
+     * Сервис анализа отдельных файлов.
+     */
+    @Autowired
+    private FileAnalyzeService analyzeService;
+
+    /**
+     * Метрики анализа: глубина очередей и количество анализируемых файлов.
+     */
+    @Autowired
+    private AnalysisMetrics metrics;
+
+    /**
+     * Максимальное количество файлов, анализируемых одновременно.
+     */
+    @Value("${analysis.batch.concurrency:64}")
+    private int concurrency;
+
+    /**
+     * Емкость очереди готовых результатов.
+     */
+    @Value("${analysis.batch.queue-capacity:1024}")
+    private int queueCapacity;
+
+    /**
+     * Анализирует все обычные файлы в дереве каталогов.
+     *
+     * Обход и анализ начинаются сразу в фоновых виртуальных потоках.
+     * Возвращаемый поток результатов необходимо закрыть: закрытие
+     * до полного прочтения отменяет обход и анализ.
+     *
+     * @param root корневой каталог
+     * @return поток результатов в порядке завершения анализа
+     * @throws IllegalArgumentException если путь не является каталогом
+     */
+    public Stream<FileAnalysisResult> analyzeDirectory(Path root) {
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Not a directory: " + root);
+        }
+        logger.info("Starting batch analysis of {}", root);
+        return analyze(run -> walk(root, run));
+    }
+
+    /**
+     * Анализирует заданный набор файлов.
+     *
+     * @param files пути к файлам
+     * @return поток результатов в порядке завершения анализа
+     */
+    public Stream<FileAnalysisResult> analyzeFiles(Collection<Path> files) {
+        return analyze(run -> {
+            for (Path file : files) {
+                if (!run.submit(file)) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Запускает пакетный анализ и возвращает поток его результатов.
+     *
+     * @param producer процедура, передающая файлы на анализ
+     * @return поток результатов
+     */
+    private Stream<FileAnalysisResult> analyze(Consumer<BatchRun> producer) {
+        BatchRun run = new BatchRun(concurrency, queueCapacity);
+        run.start(producer);
+        return StreamSupport.stream(run, false).onClose(run::cancel);
+    }
+
+    /**
+     * Обходит дерево каталогов и передает обычные файлы на анализ.
+     *
+     * Ошибки доступа к отдельным файлам и каталогам не прерывают обход,
+     * а попадают в результаты.
+     *
+     * @param root корневой каталог
+     * @param run текущий пакетный анализ
+     */
+    private void walk(Path root, BatchRun run) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && !run.submit(file)) {
+                        return FileVisitResult.TERMINATE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    logger.warn("Cannot access {}: {}", file, exc.toString());
+                    metrics.recordFailure();
+                    return run.emit(new FileAnalysisResult(file, null, exc.toString()))
+                            ? FileVisitResult.CONTINUE
+                            : FileVisitResult.TERMINATE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Анализирует один файл.
+     *
+     * @param file путь к файлу
+     * @return результат анализа
+     */
+    private FileAnalysisResult analyzeOne(Path file) {
+        try {
+            return analyzeService.analyze(file);
+        } catch (RuntimeException e) {
+            logger.error("Error analyzing the file: {}", file, e);
+            metrics.recordFailure();
+            return new FileAnalysisResult(file, null, e.toString());
+        }
+    }
+
+    /**
+     * Анализирует один файл, учитывая его в метрике анализируемых файлов.
+     *
+     * @param file путь к файлу
+     * @return результат анализа
+     */
+    private FileAnalysisResult analyzeTracked(Path file) {
+        metrics.fileStarted();
+        try {
+            return analyzeOne(file);
+        } finally {
+            metrics.fileFinished();
+        }
+    }
+
+    /**
+     * Состояние одного пакетного анализа.
+     *
+     * Является одновременно источником элементов для {@link Stream}:
+     * потребитель забирает результаты из очереди, пока не получит маркер завершения.
+     */
+    private final class BatchRun extends Spliterators.AbstractSpliterator<FileAnalysisResult> {
+        /** Маркер завершения анализа. */
+        private static final Object END = new Object();
+
+        /** Очередь готовых результатов, маркера завершения или ошибки обхода. */
+        private final BlockingQueue<Object> queue;
+        /** Ограничитель количества одновременно анализируемых файлов. */
+        private final Semaphore permits;
+        /** Количество разрешений семафора. */
+        private final int parallelism;
+        /** Количество файлов, переданных на анализ. */
+        private final AtomicLong submitted = new AtomicLong();
+        /** Фабрика виртуальных потоков анализа. */
+        private final Thread.Builder workers = Thread.ofVirtual().name("batch-analyze-", 0);
+        /** Поток, выполняющий обход. */
+        private volatile Thread coordinator;
+        /** Признак отмены анализа. */
+        private volatile boolean cancelled;
+        /** Признак того, что потребитель получил маркер завершения. */
+        private boolean finished;
+
+        private BatchRun(int parallelism, int capacity) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+            this.parallelism = parallelism;
+            this.permits = new Semaphore(parallelism);
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * Запускает обход в отдельном виртуальном потоке.
+         *
+         * @param producer процедура, передающая файлы на анализ
+         */
+        private void start(Consumer<BatchRun> producer) {
+            metrics.batchStarted(queue);
+            coordinator = Thread.ofVirtual().name("batch-walker").start(() -> {
+                try {
+                    producer.accept(this);
+                    permits.acquire(parallelism);
+                    logger.info("Batch analysis finished: {} files", submitted.get());
+                    emit(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    logger.error("Batch analysis failed", e);
+                    emit(e);
+                }
+            });
+        }
+
+        /**
+         * Передает файл на анализ, ожидая свободного разрешения.
+         *
+         * @param file путь к файлу
+         * @return {@code false}, если анализ отменен
+         */
+        private boolean submit(Path file) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (cancelled) {
+                permits.release();
+                return false;
+            }
+            submitted.incrementAndGet();
+            workers.start(() -> {
+                try {
+                    emit(analyzeTracked(file));
+                } finally {
+                    permits.release();
+                }
+            });
+            return true;
+        }
+
+        /**
+         * Помещает элемент в очередь, ожидая свободного места.
+         *
+         * @param item результат, маркер завершения или ошибка
+         * @return {@code false}, если анализ отменен
+         */
+        private boolean emit(Object item) {
+            try {
+                while (!cancelled) {
+                    if (queue.offer(item, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        /**
+         * Отменяет обход и анализ, освобождая ожидающие потоки.
+         */
+        private void cancel() {
+            if (cancelled || finished) {
+                return;
+            }
+            cancelled = true;
+            Thread walker = coordinator;
+            if (walker != null) {
+                walker.interrupt();
+            }
+            queue.clear();
+            metrics.batchFinished(queue);
+            logger.info("Batch analysis cancelled after {} files", submitted.get());
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super FileAnalysisResult> action) {
+            if (finished) {
+                return false;
+            }
+            Object item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                finished = true;
+                return false;
+            }
+            if (item == END) {
+                finished = true;
+                metrics.batchFinished(queue);
+                return false;
+            }
+            if (item instanceof RuntimeException e) {
+                finished = true;
+                metrics.batchFinished(queue);
+                throw e;
+            }
+            action.accept((FileAnalysisResult) item);
+            return true;
+        }
+    }
+}
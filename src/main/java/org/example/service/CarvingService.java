@@ -0,0 +1,231 @@
+package org.example.service;
+
+import org.example.analysis.ZipContainerInspector;
+import org.example.carving.CarveHit;
+import org.example.carving.CarvedFile;
+import org.example.carving.CarvedFileExtractor;
+import org.example.carving.CarvingEngine;
+import org.example.model.FileType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Сервис поиска файлов в сырых образах дисков.
+ *
+ * Связывает {@link CarvingEngine} и {@link CarvedFileExtractor} с каталогом
+ * подписей из базы данных и параметрами из {@code application.properties}.
+ */
+@Service
+public class CarvingService {
+    /**
+     * Логгер для записи информационных и отладочных сообщений при сканировании образов.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CarvingService.class);
+
+    /**
+     * Сервис для работы с подписями файлов.
+     */
+    @Autowired
+    private FileSignatureService signatureService;
+
+    /**
+     * Инспектор ZIP-контейнеров для уточнения формата извлеченных архивов.
+     */
+    @Autowired
+    private ZipContainerInspector zipInspector;
+
+    /**
+     * Шаг проверяемых смещений по умолчанию.
+     */
+    @Value("${carving.alignment:1}")
+    private int defaultAlignment;
+
+    /**
+     * Размер окна отображения образа в память.
+     */
+    @Value("${carving.window-size:268435456}")
+    private int windowSize;
+
+    /**
+     * Признак пропуска участков образа, неотличимых от случайных данных.
+     */
+    @Value("${carving.skip-random:false}")
+    private boolean skipRandom;
+
+    /**
+     * Окружение для чтения ограничений размера по типам файлов.
+     */
+    @Autowired
+    private Environment environment;
+
+    /**
+     * Сканирует образ с шагом смещений по умолчанию.
+     *
+     * @param image путь к образу диска
+     * @param sink потребитель найденных кандидатов
+     * @return количество найденных кандидатов
+     * @throws IOException если не удалось прочитать образ
+     */
+    public long scanImage(Path image, Consumer<CarveHit> sink) throws IOException {
+        return scanImage(image, defaultAlignment, sink);
+    }
+
+    /**
+     * Сканирует образ с указанным шагом смещений.
+     *
+     * @param image путь к образу диска
+     * @param alignment шаг проверяемых смещений (1 — побайтно, 512 — по секторам)
+     * @param sink потребитель найденных кандидатов
+     * @return количество найденных кандидатов
+     * @throws IOException если не удалось прочитать образ
+     * @throws IllegalArgumentException если путь не является обычным файлом
+     */
+    public long scanImage(Path image, int alignment, Consumer<CarveHit> sink) throws IOException {
+        if (!Files.isRegularFile(image)) {
+            throw new IllegalArgumentException("Not a disk image file: " + image);
+        }
+
+        CarvingEngine engine = new CarvingEngine(signatureService.getSignatureMatcher(), alignment, windowSize, skipRandom);
+        long started = System.nanoTime();
+        logger.info("Starting image scan: {}, alignment: {}", image, alignment);
+
+        long hits = engine.scan(image, sink);
+
+        logger.info("Image scan finished: {}, {} candidates in {} ms, {} bytes skipped", image, hits,
+                (System.nanoTime() - started) / 1_000_000, engine.getSkippedBytes());
+        return hits;
+    }
+
+    /**
+     * Сканирует образ с шагом смещений по умолчанию и извлекает найденные файлы.
+     *
+     * @param image путь к образу диска
+     * @param outputDir каталог для восстановленных файлов
+     * @param sink потребитель извлеченных файлов
+     * @return количество извлеченных файлов
+     * @throws IOException если не удалось прочитать образ или записать файлы
+     */
+    public long recoverImage(Path image, Path outputDir, Consumer<CarvedFile> sink) throws IOException {
+        return recoverImage(image, outputDir, defaultAlignment, sink);
+    }
+
+    /**
+     * Сканирует образ и извлекает найденные файлы в указанный каталог.
+     *
+     * Кандидаты обрабатываются по возрастанию смещения с просмотром
+     * на один вперед: смещение следующего кандидата ограничивает размер
+     * файлов без определения конца, а кандидаты внутри уже извлеченного
+     * файла (например, эскизы внутри JPEG) пропускаются.
+     *
+     * @param image путь к образу диска
+     * @param outputDir каталог для восстановленных файлов
+     * @param alignment шаг проверяемых смещений
+     * @param sink потребитель извлеченных файлов
+     * @return количество извлеченных файлов
+     * @throws IOException если не удалось прочитать образ или записать файлы
+     */
+    public long recoverImage(Path image, Path outputDir, int alignment, Consumer<CarvedFile> sink) throws IOException {
+        Files.createDirectories(outputDir);
+        CarvedFileExtractor extractor = new CarvedFileExtractor(maxSizes(), zipInspector, signatureService.getCatalog());
+
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            Extraction extraction = new Extraction(channel, extractor, outputDir, sink);
+            try {
+                scanImage(image, alignment, extraction::accept);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            extraction.flush(channel.size());
+            logger.info("Image recovery finished: {}, {} files extracted to {}", image, extraction.extracted, outputDir);
+            return extraction.extracted;
+        }
+    }
+
+    /**
+     * Собирает ограничения размера извлекаемых файлов по типам.
+     *
+     * Значения читаются из свойств {@code carving.max-size.<тип>}.
+     *
+     * @return максимальные размеры в байтах
+     */
+    private Map<FileType, Long> maxSizes() {
+        Map<FileType, Long> sizes = new EnumMap<>(FileType.class);
+        for (FileType type : FileType.values()) {
+            DataSize size = environment.getProperty("carving.max-size." + type.name().toLowerCase(), DataSize.class,
+                    DataSize.ofMegabytes(64));
+            sizes.put(type, size.toBytes());
+        }
+        return sizes;
+    }
+
+    /**
+     * Состояние извлечения файлов с просмотром на одного кандидата вперед.
+     */
+    private static final class Extraction {
+        private final FileChannel channel;
+        private final CarvedFileExtractor extractor;
+        private final Path outputDir;
+        private final Consumer<CarvedFile> sink;
+        private CarveHit pending;
+        private long extractedUntil;
+        private long extracted;
+
+        private Extraction(FileChannel channel, CarvedFileExtractor extractor, Path outputDir, Consumer<CarvedFile> sink) {
+            this.channel = channel;
+            this.extractor = extractor;
+            this.outputDir = outputDir;
+            this.sink = sink;
+        }
+
+        /**
+         * Принимает очередного кандидата и извлекает предыдущего.
+         *
+         * @param hit найденный кандидат
+         */
+        private void accept(CarveHit hit) {
+            try {
+                flush(hit.offset());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (hit.offset() >= extractedUntil) {
+                pending = hit;
+            }
+        }
+
+        /**
+         * Извлекает отложенного кандидата.
+         *
+         * @param limit смещение, до которого можно извлекать данные
+         * @throws IOException если не удалось извлечь файл
+         */
+        private void flush(long limit) throws IOException {
+            if (pending == null) {
+                return;
+            }
+            CarveHit hit = pending;
+            pending = null;
+            var carved = extractor.extract(channel, hit, limit, outputDir);
+            if (carved.isPresent()) {
+                extractedUntil = hit.offset() + carved.get().length();
+                extracted++;
+                sink.accept(carved.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.model.FileAnalysisResult;
+import org.example.recovery.RenameOutcome;
+import org.example.recovery.RenamePlan;
+import org.example.watch.DirectoryWatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Сервис каталога приема файлов.
+ *
+ * Наблюдает за каталогом через {@link DirectoryWatcher}: файлы, которые
+ * перестали изменяться, пакетно анализируются {@link BatchAnalyzeService},
+ * а при включенном исправлении их расширения восстанавливаются
+ * {@link ExtensionRecoveryService} с отдельным журналом на каждый пакет.
+ * Объем работы пропорционален количеству измененных файлов, а не размеру
+ * каталога. Переименованный файл появляется под новым именем и анализируется
+ * повторно, но уже не переименовывается.
+ */
+@Service
+public class DropFolderService {
+    /**
+     * Логгер для записи информационных и отладочных сообщений.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DropFolderService.class);
+
+    /**
+     * Сервис пакетного анализа.
+     */
+    @Autowired
+    private BatchAnalyzeService batchAnalyzeService;
+
+    /**
+     * Сервис массового восстановления расширений.
+     */
+    @Autowired
+    private ExtensionRecoveryService recoveryService;
+
+    /**
+     * Время без изменений, после которого файл считается записанным.
+     */
+    @Value("${watch.quiet-period:PT2S}")
+    private Duration quietPeriod;
+
+    /**
+     * Максимальное количество файлов в одном пакете анализа.
+     */
+    @Value("${watch.max-batch:256}")
+    private int maxBatch;
+
+    /**
+     * Активные наблюдатели.
+     */
+    private final Set<DirectoryWatcher> watchers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Наблюдает за каталогом до остановки сервиса или прерывания потока.
+     *
+     * @param root каталог приема файлов
+     * @param fix {@code true}, чтобы восстанавливать расширения определенных файлов
+     * @param listener получатель результатов
+     * @throws IOException если не удалось начать наблюдение или записать журнал
+     * @throws InterruptedException если поток прерван
+     * @throws IllegalArgumentException если путь не является каталогом
+     */
+    public void watch(Path root, boolean fix, Listener listener) throws IOException, InterruptedException {
+        root = root.toAbsolutePath().normalize();
+        try (DirectoryWatcher watcher = new DirectoryWatcher(root, quietPeriod, maxBatch,
+                batch -> process(batch, fix, listener))) {
+            watchers.add(watcher);
+            try {
+                watcher.run();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                watchers.remove(watcher);
+            }
+        }
+    }
+
+    /**
+     * Останавливает все наблюдения при завершении приложения.
+     */
+    @PreDestroy
+    public void stop() {
+        for (DirectoryWatcher watcher : watchers) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                logger.warn("Failed to stop a directory watcher: {}", e.toString());
+            }
+        }
+    }
+
+    /**
+     * Анализирует пакет готовых файлов и при необходимости исправляет расширения.
+     *
+     * @param batch пути к файлам
+     * @param fix {@code true}, чтобы восстанавливать расширения
+     * @param listener получатель результатов
+     * @throws UncheckedIOException если не удалось записать журнал переименований
+     */
+    private void process(List<Path> batch, boolean fix, Listener listener) {
+        List<FileAnalysisResult> results;
+        try (Stream<FileAnalysisResult> stream = batchAnalyzeService.analyzeFiles(batch)) {
+            results = stream.peek(listener::analyzed).toList();
+        }
+        int renames = 0;
+        if (fix) {
+            RenamePlan plan = recoveryService.plan(results.stream());
+            renames = plan.size();
+            if (renames > 0) {
+                try {
+                    recoveryService.execute(plan, recoveryService.newJournalPath(), listener::renamed);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        logger.info("Processed {} changed files, {} renames", results.size(), renames);
+        listener.batchFinished();
+    }
+
+    /**
+     * Получатель результатов обработки каталога приема.
+     */
+    public interface Listener {
+        /**
+         * Вызывается для каждого проанализированного файла.
+         *
+         * @param result результат анализа
+         */
+        void analyzed(FileAnalysisResult result);
+
+        /**
+         * Вызывается для каждого переименования; может вызываться из разных потоков.
+         *
+         * @param outcome результат переименования
+         */
+        void renamed(RenameOutcome outcome);
+
+        /**
+         * Вызывается после обработки каждого пакета.
+         */
+        default void batchFinished() {
+        }
+    }
+}
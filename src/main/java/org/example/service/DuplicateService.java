@@ -0,0 +1,129 @@
+package org.example.service;
+
+import org.example.carving.CarvedFile;
+import org.example.dedup.DuplicateFinder;
+import org.example.dedup.DuplicateGroup;
+import org.example.dedup.DuplicateReport;
+import org.example.model.FileAnalysisResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Сервис поиска дубликатов среди проанализированных и извлеченных файлов.
+ *
+ * Выполняется после определения типов: принимает результаты
+ * {@link BatchAnalyzeService} или файлы, извлеченные {@link CarvingService},
+ * и находит среди них одинаковые через {@link DuplicateFinder}.
+ * Файлы, которые не удалось проанализировать, не рассматриваются.
+ */
+@Service
+public class DuplicateService {
+    /**
+     * Логгер для записи информационных и отладочных сообщений.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateService.class);
+
+    /**
+     * Сервис пакетного анализа.
+     */
+    @Autowired
+    private BatchAnalyzeService batchAnalyzeService;
+
+    /**
+     * Размер блока, читаемого в начале и в конце файла при сравнении.
+     */
+    @Value("${dedup.block-size:4096}")
+    private int blockSize;
+
+    /**
+     * Максимальное количество одновременно читаемых файлов.
+     */
+    @Value("${dedup.concurrency:16}")
+    private int concurrency;
+
+    /**
+     * Анализирует дерево каталогов и находит одинаковые файлы.
+     *
+     * @param root корневой каталог
+     * @return результат поиска
+     * @throws InterruptedIOException если поток прерван
+     */
+    public DuplicateReport<FileAnalysisResult> findDuplicates(Path root) throws InterruptedIOException {
+        try (Stream<FileAnalysisResult> results = batchAnalyzeService.analyzeDirectory(root)) {
+            return findDuplicates(results);
+        }
+    }
+
+    /**
+     * Находит одинаковые файлы среди результатов анализа.
+     *
+     * @param results результаты анализа
+     * @return результат поиска
+     * @throws InterruptedIOException если поток прерван
+     */
+    public DuplicateReport<FileAnalysisResult> findDuplicates(Stream<FileAnalysisResult> results)
+            throws InterruptedIOException {
+        DuplicateFinder<FileAnalysisResult> finder = new DuplicateFinder<>(blockSize, concurrency);
+        results.filter(result -> !result.isFailed()).forEach(result -> finder.add(result, result.path()));
+        return log(finder.find());
+    }
+
+    /**
+     * Находит одинаковые файлы среди извлеченных из образа.
+     *
+     * @param carved извлеченные файлы
+     * @return результат поиска
+     * @throws InterruptedIOException если поток прерван
+     */
+    public DuplicateReport<CarvedFile> findCarvedDuplicates(Collection<CarvedFile> carved) throws InterruptedIOException {
+        DuplicateFinder<CarvedFile> finder = new DuplicateFinder<>(blockSize, concurrency);
+        carved.forEach(file -> finder.add(file, file.path(), file.length()));
+        return log(finder.find());
+    }
+
+    /**
+     * Удаляет копии извлеченных файлов, оставляя в каждой группе оригинал.
+     *
+     * @param report результат поиска среди извлеченных файлов
+     * @return путь к оригиналу для каждой удаленной копии
+     * @throws IOException если копию не удалось удалить
+     */
+    public Map<Path, Path> removeCarvedCopies(DuplicateReport<CarvedFile> report) throws IOException {
+        Map<Path, Path> removed = new HashMap<>();
+        for (DuplicateGroup<CarvedFile> group : report.groups()) {
+            Path original = group.original().path();
+            for (CarvedFile copy : group.copies()) {
+                Files.deleteIfExists(copy.path());
+                removed.put(copy.path(), original);
+            }
+        }
+        logger.info("Removed {} duplicate carved files, {} bytes", removed.size(), report.redundantBytes());
+        return removed;
+    }
+
+    /**
+     * Записывает итоги поиска в журнал.
+     *
+     * @param report результат поиска
+     * @param <T> тип описания файла
+     * @return тот же результат
+     */
+    private static <T> DuplicateReport<T> log(DuplicateReport<T> report) {
+        logger.info("Found {} duplicates in {} groups among {} files ({} bytes); {} sampled, {} fully read, {} failed",
+                report.duplicates(), report.groups().size(), report.files(), report.redundantBytes(),
+                report.sampled(), report.hashed(), report.failed());
+        return report;
+    }
+}
@@ -0,0 +1,363 @@
+package org.example.service;
+
+import org.example.analysis.SignatureCatalog;
+import org.example.model.FileAnalysisResult;
+import org.example.monitoring.AnalysisMetrics;
+import org.example.monitoring.AnalysisMetrics.Stage;
+import org.example.monitoring.FileRenameEvent;
+import org.example.recovery.PlannedRename;
+import org.example.recovery.RenameJournal;
+import org.example.recovery.RenameOutcome;
+import org.example.recovery.RenameOutcome.Status;
+import org.example.recovery.RenamePlan;
+import org.example.recovery.RenamePlanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Сервис массового восстановления расширений файлов.
+ *
+ * Работа разделена на два шага. Планирование анализирует дерево каталогов
+ * и вычисляет новые имена с учетом коллизий, не изменяя файловую систему,
+ * поэтому пробный запуск безопасен. Выполнение записывает план в журнал
+ * {@link RenameJournal}, а затем переименовывает файлы параллельно
+ * в виртуальных потоках через {@link Files#move} с
+ * {@link StandardCopyOption#ATOMIC_MOVE}, отмечая каждый результат в журнале.
+ * По журналу прерванное восстановление можно продолжить или отменить.
+ * Прерывание потока останавливает запуск новых переименований, дожидается
+ * начатых и сбрасывает журнал на диск.
+ */
+@Service
+public class ExtensionRecoveryService {
+    /**
+     * Логгер для записи информационных и отладочных сообщений восстановления.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ExtensionRecoveryService.class);
+
+    /**
+     * Формат отметки времени в имени журнала по умолчанию.
+     */
+    private static final DateTimeFormatter JOURNAL_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    /**
+     * Сервис пакетного анализа.
+     */
+    @Autowired
+    private BatchAnalyzeService batchAnalyzeService;
+
+    /**
+     * Сервис для работы с подписями файлов.
+     */
+    @Autowired
+    private FileSignatureService signatureService;
+
+    /**
+     * Метрики анализа.
+     */
+    @Autowired
+    private AnalysisMetrics metrics;
+
+    /**
+     * Максимальное количество одновременных переименований.
+     */
+    @Value("${recovery.concurrency:32}")
+    private int concurrency;
+
+    /**
+     * Каталог журналов по умолчанию.
+     */
+    @Value("${recovery.journal-dir:${user.home}/.filerecovery/journals}")
+    private Path journalDir;
+
+    /**
+     * Составляет план восстановления расширений для дерева каталогов.
+     *
+     * Файлы анализируются пакетно, файловая система не изменяется.
+     * Корневой каталог приводится к абсолютному пути, поэтому пути плана
+     * не зависят от рабочего каталога.
+     *
+     * @param root корневой каталог
+     * @return план переименований
+     * @throws IllegalArgumentException если путь не является каталогом
+     */
+    public RenamePlan plan(Path root) {
+        root = root.toAbsolutePath().normalize();
+        RenamePlan plan;
+        try (Stream<FileAnalysisResult> results = batchAnalyzeService.analyzeDirectory(root)) {
+            plan = plan(results);
+        }
+        logger.info("Rename plan for {}: {} renames, {} unchanged, {} undetected, {} failed",
+                root, plan.size(), plan.unchanged(), plan.undetected(), plan.failed());
+        return plan;
+    }
+
+    /**
+     * Составляет план восстановления расширений по готовым результатам анализа.
+     *
+     * @param results результаты анализа
+     * @return план переименований
+     */
+    public RenamePlan plan(Stream<FileAnalysisResult> results) {
+        SignatureCatalog catalog = signatureService.getCatalog();
+        RenamePlanner planner = new RenamePlanner(catalog);
+        results.forEach(planner::add);
+        return planner.build();
+    }
+
+    /**
+     * Возвращает путь к новому журналу в каталоге журналов по умолчанию.
+     *
+     * @return путь к несуществующему файлу журнала
+     */
+    public Path newJournalPath() {
+        String name = "rename-" + LocalDateTime.now().format(JOURNAL_TIMESTAMP);
+        Path path = journalDir.resolve(name + ".journal");
+        // Журналы наблюдения за каталогом могут создаваться чаще раза в миллисекунду
+        for (int i = 1; Files.exists(path, LinkOption.NOFOLLOW_LINKS); i++) {
+            path = journalDir.resolve(name + "-" + i + ".journal");
+        }
+        return path;
+    }
+
+    /**
+     * Выполняет план, записывая его в новый журнал.
+     *
+     * @param plan план переименований
+     * @param journalPath путь к новому журналу
+     * @param listener получатель результата каждого переименования; вызывается из разных потоков
+     * @throws IOException если не удалось создать или записать журнал
+     * @throws InterruptedIOException если выполнение прервано; журнал при этом согласован
+     */
+    public void execute(RenamePlan plan, Path journalPath, Consumer<RenameOutcome> listener) throws IOException {
+        try (RenameJournal journal = RenameJournal.create(journalPath, plan)) {
+            logger.info("Executing {} renames, journal {}", plan.size(), journalPath);
+            run(plan.renames(), rename -> apply(journal, rename, listener));
+        }
+    }
+
+    /**
+     * Продолжает прерванное восстановление по журналу.
+     *
+     * Выполняются переименования без отметки об успехе или отмене.
+     * Если исходного файла нет, а целевой существует, переименование
+     * считается выполненным до сбоя и только отмечается в журнале.
+     *
+     * @param journalPath путь к журналу
+     * @param listener получатель результата каждого переименования
+     * @throws IOException если не удалось прочитать или записать журнал
+     * @throws InterruptedIOException если выполнение прервано
+     */
+    public void resume(Path journalPath, Consumer<RenameOutcome> listener) throws IOException {
+        try (RenameJournal journal = RenameJournal.open(journalPath)) {
+            List<PlannedRename> pending = journal.getRenames().stream()
+                    .filter(rename -> journal.getState(rename.index()) == RenameJournal.State.PENDING
+                            || journal.getState(rename.index()) == RenameJournal.State.FAILED)
+                    .toList();
+            logger.info("Resuming {} renames from journal {}", pending.size(), journalPath);
+            run(pending, rename -> apply(journal, rename, listener));
+        }
+    }
+
+    /**
+     * Отменяет переименования, выполненные по журналу.
+     *
+     * Файл возвращается к исходному имени, если он находится по целевому
+     * пути, а исходный путь свободен, в том числе когда отметка
+     * о переименовании была потеряна при сбое.
+     *
+     * @param journalPath путь к журналу
+     * @param listener получатель результата каждой отмены
+     * @throws IOException если не удалось прочитать или записать журнал
+     * @throws InterruptedIOException если выполнение прервано
+     */
+    public void undo(Path journalPath, Consumer<RenameOutcome> listener) throws IOException {
+        try (RenameJournal journal = RenameJournal.open(journalPath)) {
+            List<PlannedRename> applied = journal.getRenames().stream()
+                    .filter(rename -> journal.getState(rename.index()) != RenameJournal.State.UNDONE)
+                    .filter(rename -> exists(rename.target()) && !exists(rename.source()))
+                    .toList();
+            logger.info("Undoing {} renames from journal {}", applied.size(), journalPath);
+            run(applied, rename -> revert(journal, rename, listener));
+        }
+    }
+
+    /**
+     * Выполняет одно переименование и отмечает результат в журнале.
+     *
+     * @param journal журнал
+     * @param rename переименование
+     * @param listener получатель результата
+     * @throws IOException если не удалось записать журнал
+     */
+    private void apply(RenameJournal journal, PlannedRename rename, Consumer<RenameOutcome> listener) throws IOException {
+        Status status;
+        String error = null;
+        if (!exists(rename.source())) {
+            if (exists(rename.target())) {
+                journal.markDone(rename.index());
+                status = Status.ALREADY_RENAMED;
+            } else {
+                status = Status.SOURCE_MISSING;
+            }
+        } else if (exists(rename.target())) {
+            status = Status.TARGET_EXISTS;
+        } else {
+            try {
+                move(rename.source(), rename.target());
+                journal.markDone(rename.index());
+                status = Status.RENAMED;
+            } catch (IOException e) {
+                logger.warn("Failed to rename {} to {}: {}", rename.source(), rename.target(), e.toString());
+                journal.markFailed(rename.index(), e.toString());
+                status = Status.FAILED;
+                error = e.toString();
+            }
+        }
+        listener.accept(new RenameOutcome(rename, status, error));
+    }
+
+    /**
+     * Возвращает файлу исходное имя и отмечает отмену в журнале.
+     *
+     * @param journal журнал
+     * @param rename переименование
+     * @param listener получатель результата
+     * @throws IOException если не удалось записать журнал
+     */
+    private void revert(RenameJournal journal, PlannedRename rename, Consumer<RenameOutcome> listener) throws IOException {
+        try {
+            move(rename.target(), rename.source());
+            journal.markUndone(rename.index());
+            listener.accept(new RenameOutcome(rename, Status.RESTORED, null));
+        } catch (IOException e) {
+            logger.warn("Failed to restore {} from {}: {}", rename.source(), rename.target(), e.toString());
+            listener.accept(new RenameOutcome(rename, Status.FAILED, e.toString()));
+        }
+    }
+
+    /**
+     * Атомарно переименовывает файл в пределах каталога.
+     *
+     * Наличие файла по целевому пути проверяется вызывающим кодом:
+     * атомарное перемещение в POSIX заменяет существующий файл.
+     *
+     * @param source текущий путь
+     * @param target новый путь
+     * @throws IOException если переименование не удалось
+     */
+    private void move(Path source, Path target) throws IOException {
+        FileRenameEvent event = new FileRenameEvent();
+        event.begin();
+        long started = metrics.start();
+        boolean renamed = false;
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            renamed = true;
+        } finally {
+            metrics.record(Stage.RENAME, started);
+            event.end();
+            if (event.shouldCommit()) {
+                event.source = source.toString();
+                event.target = target.toString();
+                event.renamed = renamed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Выполняет действие для каждого переименования в виртуальных потоках.
+     *
+     * Количество одновременных действий ограничено семафором. При прерывании
+     * новые действия не запускаются, а начатые дожидаются завершения.
+     *
+     * @param renames переименования
+     * @param action действие над одним переименованием
+     * @throws IOException если действие не смогло записать журнал
+     * @throws InterruptedIOException если выполнение прервано
+     */
+    private void run(List<PlannedRename> renames, RenameAction action) throws IOException {
+        Semaphore permits = new Semaphore(concurrency);
+        Thread.Builder workers = Thread.ofVirtual().name("recovery-", 0);
+        IOException[] failure = {null};
+        boolean interrupted = false;
+        for (PlannedRename rename : renames) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                break;
+            }
+            synchronized (failure) {
+                if (failure[0] != null) {
+                    permits.release();
+                    break;
+                }
+            }
+            workers.start(() -> {
+                try {
+                    action.accept(rename);
+                } catch (IOException e) {
+                    synchronized (failure) {
+                        if (failure[0] == null) {
+                            failure[0] = e;
+                        }
+                    }
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+        permits.acquireUninterruptibly(concurrency);
+
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        if (interrupted) {
+            // Флаг прерывания не восстанавливается: иначе канал журнала закроется при сбросе на диск
+            throw new InterruptedIOException("Extension recovery interrupted");
+        }
+    }
+
+    /**
+     * Проверяет существование пути без перехода по символическим ссылкам.
+     *
+     * @param path путь
+     * @return {@code true}, если путь существует
+     */
+    private static boolean exists(Path path) {
+        return Files.exists(path, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    /**
+     * Действие над одним переименованием, которое может записывать журнал.
+     */
+    @FunctionalInterface
+    private interface RenameAction {
+        /**
+         * Выполняет действие.
+         *
+         * @param rename переименование
+         * @throws IOException если не удалось записать журнал
+         */
+        void accept(PlannedRename rename) throws IOException;
+    }
+}
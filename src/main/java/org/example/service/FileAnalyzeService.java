@@ -1,6 +1,22 @@
 package org.example.service;
 
+import org.example.analysis.ContentClass;
+import org.example.analysis.Detection;
+import org.example.analysis.DetectionContext;
+import org.example.analysis.DetectorCascade;
+import org.example.analysis.EntropyClassifier;
+import org.example.analysis.FileHeader;
+import org.example.analysis.HeaderReader;
+import org.example.analysis.SignatureCatalog;
+import org.example.analysis.SignatureDetector;
+import org.example.analysis.TextClassifier;
+import org.example.analysis.ZipContainerInspector;
+import org.example.model.FileAnalysisResult;
+import org.example.model.FileInspection;
 import org.example.model.FileSignature;
+import org.example.monitoring.AnalysisMetrics;
+import org.example.monitoring.AnalysisMetrics.Stage;
+import org.example.monitoring.FileAnalysisEvent;
 import org.example.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,10 +25,11 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Optional;
+import java.util.StringJoiner;
 
 /**
  * Сервис для анализа файлов и определения их подписей и типов.
@@ -34,112 +51,256 @@ public class FileAnalyzeService {
     @Autowired
     private FileSignatureService signatureService;
 
+    /**
+     * Читатель заголовков файлов.
+     */
+    @Autowired
+    private HeaderReader headerReader;
+
+    /**
+     * Каскад определителей формата.
+     */
+    @Autowired
+    private DetectorCascade detectorCascade;
+
+    /**
+     * Постоянный кэш результатов анализа.
+     */
+    @Autowired
+    private AnalysisCacheService analysisCache;
+
+    /**
+     * Метрики этапов и результатов анализа.
+     */
+    @Autowired
+    private AnalysisMetrics metrics;
+
     /**
      * Анализирует файл для определения его типа и подписи.
      *
-     * Метод проверяет hex-сигнатуру файла, пытаясь найти соответствующую
-     * подпись в базе данных. Если точное совпадение не найдено, пытается
-     * определить тип как текстовый файл.
+     * Сначала проверяет постоянный кэш результатов: если размер, время
+     * модификации и идентификатор файла не изменились с прошлого анализа,
+     * результат возвращается без чтения содержимого. Иначе файл анализируется
+     * за одно открытие, как в {@link #inspectFile(File, int)}.
+     * Длительные анализы записываются событием {@link FileAnalysisEvent}.
      *
      * @param file файл для анализа
      * @return {@link FileSignature} с информацией о типе файла или {@code null},
      *         если тип файла не удалось определить
      */
     public FileSignature analyzeFile(File file) {
+        return analyzeCached(file).signature();
+    }
+
+    /**
+     * Анализирует файл так же, как {@link #analyzeFile(File)}, и для файлов
+     * без подписи возвращает класс содержимого.
+     *
+     * @param file путь к файлу
+     * @return результат анализа; если файл не удалось прочитать, результат
+     *         содержит описание ошибки и не содержит подписи и класса содержимого
+     */
+    public FileAnalysisResult analyze(Path file) {
+        FileInspection inspection = analyzeCached(file.toFile());
+        return new FileAnalysisResult(file, inspection.signature(), inspection.error(), inspection.content());
+    }
+
+    /**
+     * Анализирует файл с использованием постоянного кэша результатов.
+     *
+     * Ошибки чтения не сохраняются в кэш и возвращаются в поле
+     * {@link FileInspection#error()}.
+     *
+     * @param file файл для анализа
+     * @return результат анализа без hex-представления начала файла
+     */
+    private FileInspection analyzeCached(File file) {
+        FileAnalysisEvent event = new FileAnalysisEvent();
+        event.begin();
         if (file == null || !file.exists() || !file.isFile()) {
             logger.error("Invalid file for analysis: {}", file);
-            return null;
+            metrics.recordFailure();
+            Path path = file != null ? file.toPath() : null;
+            commit(event, path, null, null, true);
+            return FileInspection.failed(path, "Not a regular file: " + path);
         }
 
         try {
-            String hexSignature = FileUtils.getFileHexSignature(file, 32);
-            if (hexSignature == null || hexSignature.isEmpty()) {
-                logger.warn("Failed to get the hex signature of the file: {}", file.getName());
-                return null;
-            }
-
-            Optional<FileSignature> matchedSignature = signatureService.getAllSignatures().stream()
-                    .filter(signature -> !signature.getHexSignature().isEmpty() &&
-                            isSignatureMatch(hexSignature, signature.getHexSignature()))
-                    .findFirst();
-
-            if (matchedSignature.isPresent()) {
-                logger.info("The signature for the file was found: {}, type: {}", file.getName(), matchedSignature.get().getFileType());
-                return matchedSignature.get();
-            }
-
-            if (isPlainText(file)) {
-                Optional<FileSignature> textSignature = signatureService.findByExtension("txt");
-                if (textSignature.isPresent()) {
-                    logger.info("The file is defined as a text file: {}", file.getName());
-                    return textSignature.get();
+            SignatureCatalog catalog = signatureService.getCatalog();
+            AnalysisCacheService.Key cacheKey = analysisCache.isEnabled()
+                    ? AnalysisCacheService.Key.of(file.toPath())
+                    : null;
+            if (cacheKey != null) {
+                long started = metrics.start();
+                Optional<AnalysisCacheService.Hit> hit = analysisCache.lookup(cacheKey, catalog, detectorCascade);
+                event.cacheLookup = metrics.record(Stage.CACHE_LOOKUP, started);
+                metrics.recordCacheLookup(hit.isPresent());
+                if (hit.isPresent()) {
+                    logger.debug("The analysis result was taken from the cache: {}", file.getName());
+                    FileSignature signature = hit.get().signature();
+                    metrics.recordResult(signature);
+                    event.cached = true;
+                    event.fileSize = cacheKey.size();
+                    commit(event, file.toPath(), signature, hit.get().content(), false);
+                    return new FileInspection(file.toPath(), signature, null, null, hit.get().content());
                 }
             }
 
-            logger.warn("The file type could not be determined: {}", file.getName());
-            return null;
+            FileInspection inspection = inspect(file.toPath(), catalog, 0, event);
+            if (cacheKey != null) {
+                analysisCache.store(cacheKey, catalog, detectorCascade, inspection.signature(), inspection.content());
+            }
+            metrics.recordResult(inspection.signature());
+            commit(event, file.toPath(), inspection.signature(), inspection.content(), false);
+            return inspection;
 
+        } catch (IOException e) {
+            logger.warn("Failed to read the file: {}: {}", file.getName(), e.getMessage());
+            metrics.recordFailure();
+            commit(event, file.toPath(), null, null, true);
+            return FileInspection.failed(file.toPath(), e.toString());
         } catch (Exception e) {
             logger.error("Error analyzing the file: {}", file.getName(), e);
-            return null;
+            metrics.recordFailure();
+            commit(event, file.toPath(), null, null, true);
+            return FileInspection.failed(file.toPath(), e.toString());
         }
     }
 
     /**
-     * Проверяет соответствие hex-сигнатуры файла эталонной подписи.
+     * Подробно анализирует файл для отображения пользователю.
      *
-     * Метод выполняет нечеткое сравнение hex-сигнатуры с шаблоном,
-     * позволяя частичные совпадения и сравнение без учета регистра.
+     * Файл открывается один раз, а один прочитанный заголовок используется
+     * и для сопоставления подписей, и для проверки текста, и для вывода
+     * магических чисел. Результат сохраняется в постоянный кэш.
      *
-     * @param fileHexSignature hex-сигнатура анализируемого файла
-     * @param signaturePattern эталонная hex-сигнатура для сравнения
-     * @return {@code true}, если сигнатуры совпадают, иначе {@code false}
+     * @param file файл для анализа
+     * @param displayBytes количество байтов начала файла для hex-представления
+     * @return результат анализа; при ошибке чтения подпись и магические числа равны {@code null},
+     *         а поле {@link FileInspection#error()} содержит описание ошибки
      */
-    private boolean isSignatureMatch(String fileHexSignature, String signaturePattern) {
-        if (fileHexSignature == null || signaturePattern == null) {
-            return false;
+    public FileInspection inspectFile(File file, int displayBytes) {
+        Path path = file.toPath();
+        FileAnalysisEvent event = new FileAnalysisEvent();
+        event.begin();
+        try {
+            SignatureCatalog catalog = signatureService.getCatalog();
+            AnalysisCacheService.Key cacheKey = analysisCache.isEnabled() ? AnalysisCacheService.Key.of(path) : null;
+            FileInspection inspection = inspect(path, catalog, displayBytes, event);
+            if (cacheKey != null) {
+                analysisCache.store(cacheKey, catalog, detectorCascade, inspection.signature(), inspection.content());
+            }
+            metrics.recordResult(inspection.signature());
+            commit(event, path, inspection.signature(), inspection.content(), false);
+            return inspection;
+        } catch (IOException e) {
+            logger.warn("Failed to read the file: {}: {}", file.getName(), e.getMessage());
+            metrics.recordFailure();
+            commit(event, path, null, null, true);
+            return FileInspection.failed(path, e.toString());
+        } catch (Exception e) {
+            logger.error("Error analyzing the file: {}", file.getName(), e);
+            metrics.recordFailure();
+            commit(event, path, null, null, true);
+            return FileInspection.failed(path, e.toString());
         }
-        return fileHexSignature.startsWith(signaturePattern) ||
-                fileHexSignature.contains(signaturePattern) ||
-                (signaturePattern.length() > 2 && fileHexSignature.toLowerCase().contains(signaturePattern.toLowerCase()));
     }
 
     /**
-     * Определяет, является ли файл текстовым.
+     * Анализирует содержимое файла за одно открытие.
      *
-     * Метод пытается прочитать содержимое файла и проверить,
-     * состоит ли оно только из печатных символов.
+     * Читает в буфер из пула заголовок, достаточный всем определителям
+     * {@link DetectorCascade}, и передает его каскаду вместе с каналом файла:
+     * подписи сопоставляются по заголовку, неоднозначные подписи ZIP
+     * уточняются по центральному каталогу, а для файлов без подписи
+     * проверяется текст и определяется класс содержимого по окнам
+     * середины и конца. Hex-представление строится по тому же заголовку.
      *
-     * @param file файл для проверки
-     * @return {@code true}, если файл является текстовым, иначе {@code false}
+     * @param path путь к файлу
+     * @param catalog снимок каталога подписей
+     * @param displayBytes количество байтов для hex-представления; 0, если оно не нужно
+     * @param event событие JFR, в которое записываются размеры и длительности этапов
+     * @return результат анализа
+     * @throws IOException если не удалось прочитать файл
      */
-    private boolean isPlainText(File file) {
-        try {
-            byte[] content = Files.readAllBytes(file.toPath());
-            return isTextContent(content);
-        } catch (IOException e) {
-            logger.error("Error reading the file when checking the text content: {}", file.getName(), e);
-            return false;
+    private FileInspection inspect(Path path, SignatureCatalog catalog, int displayBytes,
+                                   FileAnalysisEvent event) throws IOException {
+        int length = detectorCascade.getHeaderLength(catalog);
+
+        long started = metrics.start();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             FileHeader header = headerReader.read(channel, length)) {
+            event.headerRead = metrics.record(Stage.HEADER_READ, started);
+            long size = channel.size();
+            event.fileSize = size;
+            event.headerBytes = header.length();
+            String magicNumbers = displayBytes > 0 ? header.toHex(displayBytes) : null;
+            if (header.isEmpty()) {
+                logger.debug("The file is empty: {}", path.getFileName());
+                return new FileInspection(path, null, magicNumbers, null, null);
+            }
+
+            started = metrics.start();
+            DetectionContext context = new DetectionContext(path, channel, size, header.buffer(), catalog);
+            StringJoiner detectors = event.isEnabled() ? new StringJoiner(",") : null;
+            Detection detection = detectorCascade.detect(context, (detector, detectorStarted) -> {
+                long elapsed = metrics.recordDetector(detector, detectorStarted);
+                switch (detector.getName()) {
+                    case SignatureDetector.NAME -> event.signatureMatch = elapsed;
+                    case ZipContainerInspector.NAME -> event.zipInspection = elapsed;
+                    case TextClassifier.NAME -> event.textDetection = elapsed;
+                    case EntropyClassifier.NAME -> event.contentClassification = elapsed;
+                    default -> event.otherDetectors += elapsed;
+                }
+                if (detectors != null) {
+                    detectors.add(detector.getName());
+                }
+            });
+            event.detection = metrics.record(Stage.DETECTION, started);
+            if (detectors != null) {
+                event.detectors = detectors.toString();
+            }
+
+            if (detection == null) {
+                logger.debug("The file type could not be determined: {}", path.getFileName());
+                return new FileInspection(path, null, magicNumbers, null, null);
+            }
+            FileSignature signature = detection.signature();
+            if (signature != null) {
+                logger.debug("The signature for the file was found: {}, type: {}, encoding: {}", path.getFileName(),
+                        signature.getFileType(), detection.encoding());
+            } else {
+                logger.debug("The file type could not be determined: {}, content: {}", path.getFileName(), detection.content());
+            }
+            return new FileInspection(path, signature, magicNumbers, detection.encoding(), detection.content());
         }
     }
 
     /**
-     * Проверяет, содержит ли массив байтов только текстовые символы.
-     *
-     * Метод конвертирует байты в строку и проверяет соответствие
-     * регулярному выражению для печатных символов.
+     * Записывает событие анализа файла, если оно включено и превысило порог.
      *
-     * @param content массив байтов для проверки
-     * @return {@code true}, если содержимое является текстовым, иначе {@code false}
+     * @param event событие, начатое перед анализом
+     * @param path путь к файлу или {@code null}
+     * @param signature найденная подпись или {@code null}
+     * @param content класс содержимого файла без подписи или {@code null}
+     * @param failed {@code true}, если файл не удалось проанализировать
      */
-    private boolean isTextContent(byte[] content) {
-        try {
-            String text = new String(content, StandardCharsets.UTF_8);
-            return text.matches("^[\\p{Print}\\s]+$");
-        } catch (Exception e) {
-            logger.warn("The content could not be converted to text");
-            return false;
+    private static void commit(FileAnalysisEvent event, Path path, FileSignature signature, ContentClass content,
+                               boolean failed) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.path = String.valueOf(path);
+        event.result = failed ? "failed" : signature != null ? "detected" : "unknown";
+        if (signature != null) {
+            event.extension = signature.getExtension();
+            event.fileType = String.valueOf(signature.getFileType());
+        }
+        if (content != null) {
+            event.contentClass = content.name();
         }
+        event.commit();
     }
 
     /**
@@ -159,7 +320,9 @@ public class FileAnalyzeService {
         }
 
         try {
+            long started = metrics.start();
             String renamedFilePath = FileUtils.renameFile(file, newExtension);
+            metrics.record(Stage.RENAME, started);
             if (renamedFilePath != null) {
                 logger.info("The file extension has been successfully restored: {} -> {}", file.getName(), renamedFilePath);
                 return true;
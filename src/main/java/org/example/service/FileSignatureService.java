@@ -1,26 +1,58 @@
 package org.example.service;
 
+import jakarta.annotation.PreDestroy;
+import org.example.analysis.SignatureCatalog;
+import org.example.analysis.SignatureMatcher;
+import org.example.analysis.SignatureSnapshot;
+import org.example.config.DatabaseInitializer;
 import org.example.model.FileSignature;
+import org.example.model.FileType;
 import org.example.repository.FileSignatureRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Сервис для управления подписями файлов с поддержкой кэширования.
+ * Сервис для управления подписями файлов.
  *
  * Предоставляет методы для работы с подписями файлов, включая:
  * - Получение всех подписей
- * - Поиск подписи по расширению файла
- * - Поиск подписи по hex-сигнатуре
+ * - Поиск подписи по расширению файла, по hex-сигнатуре и по типу
+ * - Изменение каталога с последующей перезагрузкой
  *
- * Использует кэширование для оптимизации производительности при
- * повторных запросах одних и тех же данных.
+ * Все запросы на чтение обслуживаются из неизменяемого снимка
+ * {@link SignatureCatalog}, доступного через volatile-ссылку.
+ * Перезагрузка строит новый снимок целиком и подменяет ссылку атомарно,
+ * поэтому выполняющиеся сканирования не блокируются и продолжают работать
+ * с прежним снимком.
+ *
+ * Изменения, внесенные в обход сервиса (через консоль H2, SQL или напрямую
+ * через репозиторий), обнаруживаются периодической проверкой: раз
+ * в {@code signatures.change-check-interval} таблица подписей читается
+ * одним запросом JDBC, и если ее отпечаток отличается от отпечатка снимка,
+ * каталог перезагружается. Проверка запускается после первой загрузки
+ * каталога из базы данных; значение {@code 0} ее отключает.
+ *
+ * При {@code signatures.snapshot.enabled=true} (профиль {@code fast-start})
+ * первый снимок строится из {@link SignatureSnapshot} в ресурсах приложения,
+ * а репозиторий запрашивается через {@link ObjectProvider}: источник данных,
+ * Hibernate и база подписей создаются только при первом изменении каталога
+ * (см. {@link org.example.config.LazyDatabaseConfig}).
  */
 @Service
 public class FileSignatureService {
@@ -33,77 +65,290 @@ public class FileSignatureService {
      * Репозиторий для выполнения операций с базой данных подписей файлов.
      */
     @Autowired
-    private FileSignatureRepository repository;
+    private ObjectProvider<FileSignatureRepository> repository;
+
+    /**
+     * Заполнение базы подписей, выполняемое до первого обращения к репозиторию.
+     */
+    @Autowired
+    private ObjectProvider<DatabaseInitializer> databaseInitializer;
 
     /**
-     * Получает все подписи файлов с кэшированием результата.
+     * Источник данных для проверки изменений таблицы подписей.
+     */
+    @Autowired
+    private ObjectProvider<DataSource> dataSource;
+
+    /**
+     * Период проверки изменений таблицы подписей; 0 отключает проверку.
+     */
+    @Value("${signatures.change-check-interval:PT5S}")
+    private Duration changeCheckInterval;
+
+    /**
+     * Загружать ли первый снимок каталога из ресурсов вместо базы данных.
+     */
+    @Value("${signatures.snapshot.enabled:false}")
+    private boolean snapshotEnabled;
+
+    /**
+     * Текущий снимок каталога, создаваемый при первом обращении.
+     */
+    private volatile SignatureCatalog catalog;
+
+    /**
+     * Счетчик версий снимков каталога.
+     */
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Блокировка, упорядочивающая загрузку снимков.
+     */
+    private final Object reloadLock = new Object();
+
+    /**
+     * Поток периодической проверки изменений; создается под {@link #reloadLock}.
+     */
+    private ScheduledExecutorService changeMonitor;
+
+    /**
+     * Возвращает текущий снимок каталога подписей.
      *
-     * Метод загружает все записи подписей файлов из базы данных.
-     * Результат кэшируется для повышения производительности при
-     * последующих вызовах.
+     * При первом вызове загружает каталог из базы данных; последующие
+     * вызовы читают volatile-ссылку без блокировок.
      *
-     * @return список всех подписей файлов
+     * @return неизменяемый снимок каталога
      * @throws RuntimeException если не удалось загрузить подписи
      */
-    @Cacheable("allSignatures")
-    public List<FileSignature> getAllSignatures() {
+    public SignatureCatalog getCatalog() {
+        SignatureCatalog current = catalog;
+        if (current == null) {
+            synchronized (reloadLock) {
+                current = catalog;
+                if (current == null) {
+                    current = load();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Перезагружает каталог из базы данных и атомарно заменяет снимок.
+     *
+     * Новый снимок публикуется только после полной сборки; при ошибке
+     * загрузки остается прежний снимок.
+     *
+     * @return новый снимок каталога
+     * @throws RuntimeException если не удалось загрузить подписи
+     */
+    public SignatureCatalog reload() {
+        synchronized (reloadLock) {
+            return load();
+        }
+    }
+
+    /**
+     * Загружает подписи и публикует новый снимок. Вызывается под {@link #reloadLock}.
+     *
+     * @return новый снимок каталога
+     */
+    private SignatureCatalog load() {
+        List<FileSignature> signatures = catalog == null && snapshotEnabled ? loadSnapshot() : null;
+        if (signatures == null) {
+            try {
+                signatures = repository().findAll(Sort.by("id"));
+            } catch (Exception e) {
+                logger.error("Error receiving all file signatures", e);
+                throw new RuntimeException("Failed to upload file signatures", e);
+            }
+            startChangeMonitor();
+        }
+
+        SignatureCatalog loaded = SignatureCatalog.of(versions.incrementAndGet(), signatures);
+        SignatureCatalog previous = catalog;
+        catalog = loaded;
+
+        if (previous != null && previous.getFingerprint().equals(loaded.getFingerprint())) {
+            logger.debug("The signature catalog has been reloaded without changes: {}", loaded);
+        } else {
+            logger.info("The signature catalog has been loaded: {} signatures, {} compiled, version {}",
+                    loaded.size(), loaded.getMatcher().size(), loaded.getVersion());
+        }
+        return loaded;
+    }
+
+    /**
+     * Запускает периодическую проверку изменений таблицы подписей, если она еще не запущена.
+     * Вызывается под {@link #reloadLock}.
+     */
+    private void startChangeMonitor() {
+        if (changeMonitor != null || changeCheckInterval.isZero() || changeCheckInterval.isNegative()) {
+            return;
+        }
+        changeMonitor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("signature-change-monitor").factory());
+        long period = changeCheckInterval.toMillis();
+        changeMonitor.scheduleWithFixedDelay(this::checkForChanges, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Сравнивает отпечаток таблицы подписей с отпечатком текущего снимка
+     * и перезагружает каталог, если таблица изменилась.
+     *
+     * Читает только поля, входящие в отпечаток, через JDBC без участия JPA.
+     */
+    private void checkForChanges() {
         try {
-            List<FileSignature> signatures = repository.findAll();
-            logger.info("All file signatures have been uploaded: {} records", signatures.size());
-            return signatures;
+            List<FileSignature> rows = new JdbcTemplate(dataSource.getObject()).query(
+                    "SELECT id, extension, mime_type, hex_signature, signature_offset, signature_mask, "
+                            + "sub_hex_signature, sub_signature_offset, file_type FROM file_signatures ORDER BY id",
+                    (row, number) -> {
+                        FileSignature signature = new FileSignature();
+                        signature.setId(row.getObject(1, Long.class));
+                        signature.setExtension(row.getString(2));
+                        signature.setMimeType(row.getString(3));
+                        signature.setHexSignature(row.getString(4));
+                        signature.setSignatureOffset(row.getObject(5, Integer.class));
+                        signature.setSignatureMask(row.getString(6));
+                        signature.setSubHexSignature(row.getString(7));
+                        signature.setSubSignatureOffset(row.getObject(8, Integer.class));
+                        String type = row.getString(9);
+                        signature.setFileType(type == null ? null : FileType.valueOf(type));
+                        return signature;
+                    });
+            SignatureCatalog current = catalog;
+            if (current != null && !SignatureCatalog.fingerprint(rows).equals(current.getFingerprint())) {
+                logger.info("The signature table has changed outside the application, reloading the catalog");
+                reload();
+            }
         } catch (Exception e) {
-            logger.error("Error receiving all file signatures", e);
-            throw new RuntimeException("Failed to upload file signatures", e);
+            logger.warn("Failed to check the signature table for changes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Останавливает проверку изменений таблицы подписей.
+     */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (reloadLock) {
+            if (changeMonitor != null) {
+                changeMonitor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Читает подписи из снимка в ресурсах приложения.
+     *
+     * @return подписи или {@code null}, если снимка нет, он устарел или поврежден
+     */
+    private List<FileSignature> loadSnapshot() {
+        long started = System.nanoTime();
+        try {
+            List<FileSignature> signatures = SignatureSnapshot.load(getClass().getClassLoader()).orElse(null);
+            if (signatures != null) {
+                logger.info("The signature snapshot has been read in {} ms",
+                        (System.nanoTime() - started) / 1_000_000);
+                return signatures;
+            }
+            logger.warn("The signature snapshot is missing or stale, loading signatures from the database");
+        } catch (IOException e) {
+            logger.warn("Failed to read the signature snapshot, loading signatures from the database", e);
         }
+        return null;
+    }
+
+    /**
+     * Возвращает репозиторий подписей, заполнив базу перед первым обращением.
+     *
+     * @return репозиторий подписей
+     */
+    private FileSignatureRepository repository() {
+        databaseInitializer.getObject();
+        return repository.getObject();
+    }
+
+    /**
+     * Получает все подписи файлов.
+     *
+     * @return неизменяемый список всех подписей файлов
+     * @throws RuntimeException если не удалось загрузить подписи
+     */
+    public List<FileSignature> getAllSignatures() {
+        return getCatalog().getSignatures();
     }
 
     /**
-     * Находит подпись файла по расширению с кэшированием результата.
+     * Возвращает сопоставитель, скомпилированный из всех подписей файлов.
      *
-     * Выполняет поиск подписи файла в базе данных по указанному расширению.
-     * Результат кэшируется для оптимизации повторных запросов.
+     * @return скомпилированный {@link SignatureMatcher} текущего снимка
+     * @throws RuntimeException если не удалось загрузить подписи
+     */
+    public SignatureMatcher getSignatureMatcher() {
+        return getCatalog().getMatcher();
+    }
+
+    /**
+     * Находит подпись файла по расширению.
      *
      * @param extension расширение файла (не чувствительно к регистру)
      * @return {@link Optional} с найденной подписью или пустой {@link Optional}
      */
-    @Cacheable("signaturesByExtension")
     public Optional<FileSignature> findByExtension(String extension) {
-        try {
-            Optional<FileSignature> signature = repository.findByExtension(extension.toLowerCase());
-            if (signature.isPresent()) {
-                logger.info("The signature for the extension was found: {}", extension);
-            } else {
-                logger.warn("The signature for the extension {} was not found", extension);
-            }
-            return signature;
-        } catch (Exception e) {
-            logger.error("Error when searching for an extension signature: {}", extension, e);
-            return Optional.empty();
+        Optional<FileSignature> signature = getCatalog().findByExtension(extension);
+        if (signature.isEmpty()) {
+            logger.debug("The signature for the extension {} was not found", extension);
         }
+        return signature;
     }
 
     /**
-     * Находит подпись файла по hex-сигнатуре с кэшированием результата.
-     *
-     * Выполняет поиск подписи файла в базе данных по указанной hex-сигнатуре.
-     * Результат кэшируется для оптимизации повторных запросов.
+     * Находит подпись файла по hex-сигнатуре.
      *
      * @param hexSignature hex-представление магических чисел файла
      * @return {@link Optional} с найденной подписью или пустой {@link Optional}
      */
-    @Cacheable("signaturesByHexSignature")
     public Optional<FileSignature> findByHexSignature(String hexSignature) {
-        try {
-            Optional<FileSignature> signature = repository.findByHexSignature(hexSignature);
-            if (signature.isPresent()) {
-                logger.info("The signature for the hex signature was found: {}", hexSignature);
-            } else {
-                logger.warn("The signature for the hex signature {} was not found", hexSignature);
-            }
-            return signature;
-        } catch (Exception e) {
-            logger.error("Error when searching for a signature using a hex signature: {}", hexSignature, e);
-            return Optional.empty();
+        Optional<FileSignature> signature = getCatalog().findByHexSignature(hexSignature);
+        if (signature.isEmpty()) {
+            logger.debug("The signature for the hex signature {} was not found", hexSignature);
         }
+        return signature;
+    }
+
+    /**
+     * Находит подписи файлов указанного типа.
+     *
+     * @param type тип файла
+     * @return неизменяемый список подписей
+     */
+    public List<FileSignature> findByType(FileType type) {
+        return getCatalog().findByType(type);
+    }
+
+    /**
+     * Сохраняет подпись файла и перезагружает каталог.
+     *
+     * @param signature новая или измененная подпись
+     * @return сохраненная подпись
+     */
+    public FileSignature save(FileSignature signature) {
+        FileSignature saved = repository().save(signature);
+        logger.info("The file signature has been saved: {}", saved.getExtension());
+        reload();
+        return saved;
+    }
+
+    /**
+     * Удаляет подпись файла и перезагружает каталог.
+     *
+     * @param id идентификатор подписи
+     */
+    public void deleteById(Long id) {
+        repository().deleteById(id);
+        logger.info("The file signature has been deleted: {}", id);
+        reload();
     }
-}
\ No newline at end of file
+}
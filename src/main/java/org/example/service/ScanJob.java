@@ -0,0 +1,208 @@
+package org.example.service;
+
+import org.example.model.ScanJobRequest;
+import org.example.model.ScanJobState;
+import org.example.model.ScanJobStatus;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Задание сканирования, выполняемое в фоне.
+ *
+ * Результаты записываются построчно в NDJSON-файл на диске, а не копятся
+ * в памяти, поэтому многочасовые задания не увеличивают расход кучи.
+ * Читатели получают только сброшенную на диск часть файла и ожидают
+ * появления новых строк через монитор задания.
+ */
+final class ScanJob {
+    /**
+     * Минимальный интервал между сбросами буфера результатов, в миллисекундах.
+     */
+    private static final long FLUSH_INTERVAL_MS = 200;
+
+    private final String id;
+    private final ScanJobRequest request;
+    private final Path spool;
+    private final OutputStream output;
+    private final Instant startedAt = Instant.now();
+
+    private volatile ScanJobState state = ScanJobState.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Thread worker;
+    private volatile long results;
+
+    /** Количество байтов, записанных в буфер. */
+    private long written;
+    /** Количество байтов, доступных читателям на диске. */
+    private long flushed;
+    /** Время последнего сброса буфера. */
+    private long lastFlush = System.currentTimeMillis();
+
+    /**
+     * Создает задание и файл для его результатов.
+     *
+     * @param id идентификатор задания
+     * @param request параметры задания
+     * @throws IOException если не удалось создать файл результатов
+     */
+    ScanJob(String id, ScanJobRequest request) throws IOException {
+        this.id = id;
+        this.request = request;
+        this.spool = Files.createTempFile("scan-job-" + id + "-", ".ndjson");
+        this.output = new BufferedOutputStream(Files.newOutputStream(spool));
+    }
+
+    String getId() {
+        return id;
+    }
+
+    ScanJobRequest getRequest() {
+        return request;
+    }
+
+    Path getSpool() {
+        return spool;
+    }
+
+    ScanJobState getState() {
+        return state;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void setWorker(Thread worker) {
+        this.worker = worker;
+    }
+
+    /**
+     * Добавляет строку результата.
+     *
+     * @param line строка JSON без перевода строки
+     * @throws IOException если не удалось записать строку или задание уже завершено
+     */
+    synchronized void append(String line) throws IOException {
+        if (state.isFinished()) {
+            throw new IOException("Scan job " + id + " is already " + state);
+        }
+        byte[] bytes = (line + '\n').getBytes(StandardCharsets.UTF_8);
+        output.write(bytes);
+        written += bytes.length;
+        results++;
+        long now = System.currentTimeMillis();
+        if (now - lastFlush >= FLUSH_INTERVAL_MS) {
+            flush(now);
+        }
+    }
+
+    /**
+     * Завершает задание с указанным состоянием.
+     *
+     * @param finalState итоговое состояние
+     * @param failure описание ошибки или {@code null}
+     */
+    synchronized void finish(ScanJobState finalState, String failure) {
+        if (state.isFinished()) {
+            return;
+        }
+        try {
+            flush(System.currentTimeMillis());
+            output.close();
+        } catch (IOException e) {
+            failure = failure == null ? e.toString() : failure;
+            finalState = ScanJobState.FAILED;
+        }
+        error = failure;
+        finishedAt = Instant.now();
+        state = finalState;
+        notifyAll();
+    }
+
+    /**
+     * Проверяет, занимает ли задание место среди выполняемых.
+     *
+     * Отмененное задание получает итоговое состояние сразу, но его рабочий
+     * поток может еще завершать ввод-вывод, поэтому задание считается
+     * выполняемым до выхода из рабочего потока.
+     *
+     * @return {@code true}, если задание не завершено или его рабочий поток еще работает
+     */
+    boolean isActive() {
+        Thread thread = worker;
+        return !state.isFinished() || thread != null && thread.isAlive();
+    }
+
+    /**
+     * Отменяет задание, прерывая его рабочий поток.
+     *
+     * @return {@code false}, если задание уже завершено
+     */
+    boolean cancel() {
+        if (state.isFinished()) {
+            return false;
+        }
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        finish(ScanJobState.CANCELLED, null);
+        return true;
+    }
+
+    /**
+     * Ожидает появления на диске данных за указанной позицией.
+     *
+     * Если в буфере есть строки, не сброшенные дольше интервала сброса,
+     * сбрасывает их сразу, чтобы медленное задание не задерживало читателей.
+     *
+     * @param position позиция, до которой данные уже прочитаны
+     * @param timeoutMs максимальное время ожидания; {@code 0} — не ожидать
+     * @return количество байтов, доступных для чтения с начала файла
+     * @throws InterruptedException если поток был прерван
+     */
+    synchronized long awaitData(long position, long timeoutMs) throws InterruptedException {
+        if (flushed <= position && !state.isFinished()) {
+            long now = System.currentTimeMillis();
+            if (written > flushed && now - lastFlush >= FLUSH_INTERVAL_MS) {
+                try {
+                    flush(now);
+                } catch (IOException e) {
+                    return flushed;
+                }
+            } else if (timeoutMs > 0) {
+                wait(timeoutMs);
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * Возвращает снимок состояния задания.
+     *
+     * @return состояние задания
+     */
+    ScanJobStatus toStatus() {
+        return new ScanJobStatus(id, request.type(), request.path(), state, results, startedAt, finishedAt, error);
+    }
+
+    /**
+     * Сбрасывает буфер на диск и оповещает ожидающих читателей.
+     *
+     * @param now текущее время в миллисекундах
+     * @throws IOException если не удалось записать данные
+     */
+    private void flush(long now) throws IOException {
+        output.flush();
+        flushed = written;
+        lastFlush = now;
+        notifyAll();
+    }
+}
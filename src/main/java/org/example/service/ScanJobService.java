@@ -0,0 +1,430 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.FileAnalysisResult;
+import org.example.model.ScanJobRequest;
+import org.example.model.ScanJobState;
+import org.example.model.ScanJobStatus;
+import org.example.model.ScanJobType;
+import org.example.util.ResultRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Сервис фоновых заданий сканирования для REST API.
+ *
+ * Запускает пакетный анализ каталогов, поиск подписей и извлечение файлов
+ * из образов в отдельных виртуальных потоках, ограничивает количество
+ * одновременно выполняемых заданий и отдает результаты потоком NDJSON
+ * по мере их появления.
+ *
+ * REST API не требует аутентификации, поэтому задания ограничены
+ * настроенными корневыми каталогами: анализируемый каталог или образ должен
+ * лежать внутри одного из {@code scan-jobs.scan-roots}, а каталог извлеченных
+ * файлов — внутри одного из {@code scan-jobs.output-roots}. Пути сравниваются
+ * после {@link Path#toRealPath}, поэтому символические ссылки и {@code ..}
+ * не выводят за пределы корней; у еще не созданного каталога извлечения
+ * проверяется ближайший существующий предок. Пустой список запрещает
+ * все пути соответствующего вида. Задание выполняется с проверенными
+ * реальными путями. Кроме того, по умолчанию веб-сервер принимает
+ * подключения только с локального адреса ({@code server.address}).
+ */
+@Service
+public class ScanJobService {
+    /**
+     * Логгер для записи информационных и отладочных сообщений о заданиях.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ScanJobService.class);
+
+    /**
+     * Интервал ожидания новых результатов при потоковой выдаче, в миллисекундах.
+     */
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    /**
+     * Сервис пакетного анализа.
+     */
+    @Autowired
+    private BatchAnalyzeService batchAnalyzeService;
+
+    /**
+     * Сервис поиска и извлечения файлов из образов.
+     */
+    @Autowired
+    private CarvingService carvingService;
+
+    /**
+     * Сериализатор JSON.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Максимальное количество одновременно выполняемых заданий.
+     */
+    @Value("${scan-jobs.max-concurrent:2}")
+    private int maxConcurrentJobs;
+
+    /**
+     * Время хранения завершенных заданий и их результатов.
+     */
+    @Value("${scan-jobs.retention:PT1H}")
+    private Duration retention;
+
+    /**
+     * Корневые каталоги, внутри которых разрешено сканирование.
+     */
+    @Value("${scan-jobs.scan-roots:${user.home}}")
+    private List<String> scanRoots;
+
+    /**
+     * Корневые каталоги, внутри которых разрешено извлекать файлы.
+     */
+    @Value("${scan-jobs.output-roots:${user.home}/.filerecovery/recovered}")
+    private List<String> outputRoots;
+
+    /**
+     * Реальные пути корневых каталогов сканирования.
+     */
+    private List<Path> scanRootPaths;
+
+    /**
+     * Реальные пути корневых каталогов извлечения.
+     */
+    private List<Path> outputRootPaths;
+
+    /**
+     * Задания по идентификатору.
+     */
+    private final Map<String, ScanJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Разрешает реальные пути корневых каталогов.
+     *
+     * @throws IOException если не удалось разрешить путь корневого каталога
+     */
+    @PostConstruct
+    public void initialize() throws IOException {
+        scanRootPaths = resolveRoots(scanRoots);
+        outputRootPaths = resolveRoots(outputRoots);
+        logger.info("Scan jobs are limited to {} with output to {}", scanRootPaths, outputRootPaths);
+    }
+
+    /**
+     * Создает и запускает задание сканирования.
+     *
+     * @param request параметры задания
+     * @return состояние созданного задания
+     * @throws IllegalArgumentException если параметры некорректны
+     * @throws SecurityException если путь лежит вне разрешенных корневых каталогов
+     * @throws IllegalStateException если достигнут предел одновременно выполняемых заданий
+     * @throws IOException если не удалось создать файл результатов
+     */
+    public synchronized ScanJobStatus submit(ScanJobRequest request) throws IOException {
+        request = validate(request);
+        purgeExpired();
+
+        long running = jobs.values().stream().filter(ScanJob::isActive).count();
+        if (running >= maxConcurrentJobs) {
+            throw new IllegalStateException("Too many running scan jobs: " + running);
+        }
+
+        ScanJob job = new ScanJob(UUID.randomUUID().toString(), request);
+        jobs.put(job.getId(), job);
+        Thread worker = Thread.ofVirtual().name("scan-job-" + job.getId()).unstarted(() -> execute(job));
+        job.setWorker(worker);
+        worker.start();
+
+        logger.info("Scan job {} started: {} {}", job.getId(), request.type(), request.path());
+        return job.toStatus();
+    }
+
+    /**
+     * Возвращает состояние задания.
+     *
+     * @param id идентификатор задания
+     * @return состояние задания или пустой {@link Optional}, если задание не найдено
+     */
+    public Optional<ScanJobStatus> getStatus(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(ScanJob::toStatus);
+    }
+
+    /**
+     * Возвращает состояния всех хранимых заданий.
+     *
+     * @return список состояний, начиная с самых ранних
+     */
+    public List<ScanJobStatus> listJobs() {
+        return jobs.values().stream()
+                .map(ScanJob::toStatus)
+                .sorted(Comparator.comparing(ScanJobStatus::startedAt))
+                .toList();
+    }
+
+    /**
+     * Отменяет задание.
+     *
+     * @param id идентификатор задания
+     * @return состояние задания или пустой {@link Optional}, если задание не найдено
+     */
+    public Optional<ScanJobStatus> cancel(String id) {
+        ScanJob job = jobs.get(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (job.cancel()) {
+            logger.info("Scan job {} cancelled", id);
+        }
+        return Optional.of(job.toStatus());
+    }
+
+    /**
+     * Записывает результаты задания в поток в формате NDJSON.
+     *
+     * Результаты копируются из файла задания на диске без загрузки в память.
+     * В режиме ожидания метод возвращает управление только после завершения задания.
+     *
+     * @param id идентификатор задания
+     * @param out поток ответа
+     * @param follow {@code true}, чтобы ожидать новые результаты до завершения задания
+     * @throws IOException если не удалось прочитать результаты или записать ответ
+     * @throws IllegalArgumentException если задание не найдено
+     */
+    public void streamResults(String id, OutputStream out, boolean follow) throws IOException {
+        ScanJob job = jobs.get(id);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown scan job: " + id);
+        }
+
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel spool = FileChannel.open(job.getSpool(), StandardOpenOption.READ)) {
+            long position = 0;
+            while (true) {
+                boolean finished = job.getState().isFinished();
+                long available = job.awaitData(position, follow ? POLL_INTERVAL_MS : 0);
+                while (position < available) {
+                    position += spool.transferTo(position, available - position, target);
+                }
+                out.flush();
+                if (!follow || finished && position >= available) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Result streaming interrupted");
+        }
+    }
+
+    /**
+     * Отменяет выполняющиеся задания и удаляет файлы результатов при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(ScanJob::cancel);
+        jobs.values().forEach(this::deleteSpool);
+        jobs.clear();
+    }
+
+    /**
+     * Выполняет задание в рабочем потоке.
+     *
+     * @param job задание
+     */
+    private void execute(ScanJob job) {
+        ScanJobRequest request = job.getRequest();
+        try {
+            Path path = Path.of(request.path());
+            switch (request.type()) {
+                case DIRECTORY -> {
+                    try (Stream<FileAnalysisResult> results = batchAnalyzeService.analyzeDirectory(path)) {
+                        results.forEach(result -> append(job, ResultRecords.analysis(result)));
+                    }
+                }
+                case IMAGE -> {
+                    if (request.alignment() == null) {
+                        carvingService.scanImage(path, hit -> append(job, ResultRecords.hit(hit)));
+                    } else {
+                        carvingService.scanImage(path, request.alignment(), hit -> append(job, ResultRecords.hit(hit)));
+                    }
+                }
+                case RECOVERY -> {
+                    Path outputDir = Path.of(request.outputDir());
+                    if (request.alignment() == null) {
+                        carvingService.recoverImage(path, outputDir, carved -> append(job, ResultRecords.carved(carved)));
+                    } else {
+                        carvingService.recoverImage(path, outputDir, request.alignment(),
+                                carved -> append(job, ResultRecords.carved(carved)));
+                    }
+                }
+            }
+            job.finish(Thread.currentThread().isInterrupted() ? ScanJobState.CANCELLED : ScanJobState.COMPLETED, null);
+            logger.info("Scan job {} finished: {}", job.getId(), job.getState());
+        } catch (InterruptedIOException e) {
+            job.finish(ScanJobState.CANCELLED, null);
+        } catch (IOException | RuntimeException e) {
+            if (job.getState().isFinished()) {
+                return;
+            }
+            logger.error("Scan job {} failed", job.getId(), e);
+            job.finish(ScanJobState.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Добавляет запись результата к заданию.
+     *
+     * @param job задание
+     * @param record поля записи
+     */
+    private void append(ScanJob job, Map<String, Object> record) {
+        try {
+            job.append(objectMapper.writeValueAsString(record));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize the result", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Проверяет параметры задания и заменяет пути реальными.
+     *
+     * @param request параметры задания
+     * @return параметры задания с реальными путями
+     * @throws IllegalArgumentException если параметры некорректны
+     * @throws SecurityException если путь лежит вне разрешенных корневых каталогов
+     * @throws IOException если не удалось разрешить путь
+     */
+    private ScanJobRequest validate(ScanJobRequest request) throws IOException {
+        if (request == null || request.type() == null || request.path() == null || request.path().isBlank()) {
+            throw new IllegalArgumentException("Job type and path are required");
+        }
+        if (request.type() == ScanJobType.RECOVERY && (request.outputDir() == null || request.outputDir().isBlank())) {
+            throw new IllegalArgumentException("Output directory is required for recovery jobs");
+        }
+        if (request.alignment() != null && request.alignment() < 1) {
+            throw new IllegalArgumentException("Alignment must be positive: " + request.alignment());
+        }
+
+        Path path = checkRoot(toRealPath(Path.of(request.path())), scanRootPaths);
+        String outputDir = null;
+        if (request.type() == ScanJobType.RECOVERY) {
+            outputDir = checkRoot(toRealPath(Path.of(request.outputDir())), outputRootPaths).toString();
+        }
+        if (request.type() == ScanJobType.DIRECTORY ? !Files.isDirectory(path) : !Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("Path does not exist or has the wrong type: " + path);
+        }
+        return new ScanJobRequest(request.type(), path.toString(), outputDir, request.alignment());
+    }
+
+    /**
+     * Проверяет, что реальный путь лежит внутри одного из корневых каталогов.
+     *
+     * @param path реальный путь
+     * @param roots реальные пути корневых каталогов
+     * @return тот же путь
+     * @throws SecurityException если путь лежит вне корневых каталогов
+     */
+    private static Path checkRoot(Path path, List<Path> roots) {
+        if (roots.stream().noneMatch(path::startsWith)) {
+            throw new SecurityException("Path is outside the allowed roots: " + path);
+        }
+        return path;
+    }
+
+    /**
+     * Разрешает реальные пути корневых каталогов из настроек.
+     *
+     * @param roots пути из настроек; пустые элементы пропускаются
+     * @return реальные пути
+     * @throws IOException если не удалось разрешить путь
+     */
+    private static List<Path> resolveRoots(List<String> roots) throws IOException {
+        List<Path> resolved = new ArrayList<>();
+        for (String root : roots) {
+            if (!root.isBlank()) {
+                resolved.add(toRealPath(Path.of(root.trim())));
+            }
+        }
+        return List.copyOf(resolved);
+    }
+
+    /**
+     * Возвращает реальный путь, который может еще не существовать.
+     *
+     * Ближайший существующий предок разрешается через {@link Path#toRealPath},
+     * а недостающие элементы добавляются к нему после нормализации,
+     * поэтому в результате нет ни символических ссылок, ни {@code ..}.
+     *
+     * @param path путь
+     * @return реальный путь
+     * @throws IOException если не удалось разрешить существующего предка
+     */
+    private static Path toRealPath(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath().normalize();
+        Path existing = absolute;
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        if (existing == null) {
+            return absolute;
+        }
+        return existing.toRealPath().resolve(existing.relativize(absolute));
+    }
+
+    /**
+     * Удаляет завершенные задания, срок хранения которых истек.
+     */
+    private void purgeExpired() {
+        Instant threshold = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            Instant finishedAt = job.getFinishedAt();
+            if (finishedAt != null && finishedAt.isBefore(threshold)) {
+                deleteSpool(job);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Удаляет файл результатов задания.
+     *
+     * @param job задание
+     */
+    private void deleteSpool(ScanJob job) {
+        try {
+            Files.deleteIfExists(job.getSpool());
+        } catch (IOException e) {
+            logger.warn("Failed to delete scan job results: {}", job.getSpool(), e);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package org.example.util;
 
+import org.example.monitoring.FileRenameEvent;
+
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Утилитарный класс для работы с файлами.
@@ -10,30 +11,52 @@ import java.io.IOException;
  */
 public class FileUtils {
     /**
-     * Получает hex-сигнатуру файла.
+     * Шестнадцатеричные цифры в верхнем регистре.
+     */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Преобразует байты в hex-строку.
      *
-     * @param file файл, для которого требуется получить сигнатуру
-     * @param bytesToRead количество байт для чтения в сигнатуру
-     * @return строка hex-сигнатуры или null, если не удалось прочитать файл
+     * Использует таблицу цифр, без форматирования каждого байта.
+     *
+     * @param data буфер с данными; позиция буфера не изменяется
+     * @param offset индекс первого байта
+     * @param length количество байтов
+     * @return строка hex-цифр в верхнем регистре
      */
-    public static String getFileHexSignature(File file, int bytesToRead) {
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] buffer = new byte[bytesToRead];
-            int bytesRead = fis.read(buffer);
+    public static String bytesToHex(ByteBuffer data, int offset, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int value = data.get(offset + i) & 0xFF;
+            chars[i * 2] = HEX_DIGITS[value >>> 4];
+            chars[i * 2 + 1] = HEX_DIGITS[value & 0x0F];
+        }
+        return new String(chars);
+    }
 
-            if (bytesRead == -1) {
-                return null;
-            }
+    /**
+     * Преобразует hex-строку в массив байтов.
+     *
+     * @param hex строка из пар шестнадцатеричных цифр без разделителей
+     * @return массив байтов
+     * @throws IllegalArgumentException если строка имеет нечетную длину или содержит недопустимые символы
+     */
+    public static byte[] hexToBytes(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Hex string must have an even length: " + hex);
+        }
 
-            StringBuilder hexSignature = new StringBuilder();
-            for (int i = 0; i < bytesRead; i++) {
-                hexSignature.append(String.format("%02X", buffer[i]));
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hex string: " + hex);
             }
-
-            return hexSignature.toString();
-        } catch (IOException e) {
-            return null;
+            bytes[i] = (byte) ((high << 4) | low);
         }
+        return bytes;
     }
 
     /**
@@ -54,11 +77,35 @@ public class FileUtils {
     /**
      * Переименовывает файл с новым расширением.
      *
+     * Каждое переименование записывается событием {@link FileRenameEvent}.
+     *
      * @param file файл для переименования
      * @param newExtension новое расширение
      * @return путь к переименованному файлу или null, если переименование не удалось
      */
     public static String renameFile(File file, String newExtension) {
+        FileRenameEvent event = new FileRenameEvent();
+        event.begin();
+        File newFile = renameTarget(file, newExtension);
+        boolean renamed = file.renameTo(newFile);
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = file.getAbsolutePath();
+            event.target = newFile.getAbsolutePath();
+            event.renamed = renamed;
+            event.commit();
+        }
+        return renamed ? newFile.getAbsolutePath() : null;
+    }
+
+    /**
+     * Определяет новое имя файла с заданным расширением, не переименовывая его.
+     *
+     * @param file файл для переименования
+     * @param newExtension новое расширение
+     * @return файл с новым именем в том же каталоге
+     */
+    public static File renameTarget(File file, String newExtension) {
         String fileName = file.getName();
 
         // Находим последнее вхождение точки
@@ -66,43 +113,31 @@ public class FileUtils {
 
         // Если точки нет, просто добавляем новое расширение
         if (lastIndexOf == -1) {
-            return renameFileWithFullName(file, newExtension);
+            return fullNameTarget(file, newExtension);
         }
 
         // Проверяем, не является ли "расширение" слишком длинным или странным
         String currentExtension = fileName.substring(lastIndexOf + 1);
         if (currentExtension.length() > 10) {
-            return renameFileWithFullName(file, newExtension);
+            return fullNameTarget(file, newExtension);
         }
 
         // Стандартный случай - просто заменяем расширение
         newExtension = newExtension.toLowerCase();
         String newFileName = fileName.substring(0, lastIndexOf) + "." + newExtension;
 
-        File newFile = new File(file.getParent(), newFileName);
-
-        if (file.renameTo(newFile)) {
-            return newFile.getAbsolutePath();
-        }
-
-        return null;
+        return new File(file.getParent(), newFileName);
     }
 
     /**
-     * Переименовывает файл, добавляя новое расширение к полному имени файла.
+     * Определяет новое имя файла, добавляя новое расширение к полному имени файла.
      *
      * @param file файл для переименования
      * @param newExtension новое расширение
-     * @return путь к переименованному файлу или null, если переименование не удалось
+     * @return файл с новым именем в том же каталоге
      */
-    private static String renameFileWithFullName(File file, String newExtension) {
+    private static File fullNameTarget(File file, String newExtension) {
         String newFileName = file.getName() + "." + newExtension.toLowerCase();
-        File newFile = new File(file.getParent(), newFileName);
-
-        if (file.renameTo(newFile)) {
-            return newFile.getAbsolutePath();
-        }
-
-        return null;
+        return new File(file.getParent(), newFileName);
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package org.example.util;
+
+import org.example.carving.CarveHit;
+import org.example.carving.CarvedFile;
+import org.example.dedup.DuplicateGroup;
+import org.example.model.FileAnalysisResult;
+import org.example.model.FileSignature;
+import org.example.recovery.PlannedRename;
+import org.example.recovery.RenameOutcome;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Утилитарный класс для представления результатов в виде записей JSON.
+ * Используется командной строкой и REST API, чтобы формат строк NDJSON совпадал.
+ */
+public final class ResultRecords {
+    private ResultRecords() {
+    }
+
+    /**
+     * Формирует запись результата анализа файла.
+     *
+     * @param result результат анализа
+     * @return поля записи
+     */
+    public static Map<String, Object> analysis(FileAnalysisResult result) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("path", result.path().toString());
+        putSignature(record, result.signature());
+        if (result.content() != null) {
+            record.put("content", result.content());
+        }
+        if (result.isFailed()) {
+            record.put("error", result.error());
+        }
+        return record;
+    }
+
+    /**
+     * Формирует запись найденного в образе кандидата.
+     *
+     * @param hit кандидат
+     * @return поля записи
+     */
+    public static Map<String, Object> hit(CarveHit hit) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("offset", hit.offset());
+        putSignature(record, hit.signature());
+        return record;
+    }
+
+    /**
+     * Формирует запись извлеченного из образа файла.
+     *
+     * @param carved извлеченный файл
+     * @return поля записи
+     */
+    public static Map<String, Object> carved(CarvedFile carved) {
+        return carved(carved, null);
+    }
+
+    /**
+     * Формирует запись извлеченного из образа файла с учетом дубликатов.
+     *
+     * @param carved извлеченный файл
+     * @param duplicateOf оригинал, если файл удален как его копия, иначе {@code null}
+     * @return поля записи
+     */
+    public static Map<String, Object> carved(CarvedFile carved, Path duplicateOf) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("path", carved.path().toString());
+        record.put("offset", carved.offset());
+        record.put("length", carved.length());
+        record.put("complete", carved.complete());
+        putSignature(record, carved.signature());
+        if (duplicateOf != null) {
+            record.put("duplicateOf", duplicateOf.toString());
+        }
+        return record;
+    }
+
+    /**
+     * Формирует запись группы одинаковых файлов.
+     *
+     * @param group группа дубликатов
+     * @return поля записи
+     */
+    public static Map<String, Object> duplicates(DuplicateGroup<FileAnalysisResult> group) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("sha256", group.sha256());
+        record.put("size", group.size());
+        record.put("original", group.original().path().toString());
+        record.put("copies", group.copies().stream().map(result -> result.path().toString()).toList());
+        putSignature(record, group.original().signature());
+        return record;
+    }
+
+    /**
+     * Формирует запись результата восстановления расширения.
+     *
+     * @param outcome результат переименования
+     * @return поля записи
+     */
+    public static Map<String, Object> rename(RenameOutcome outcome) {
+        PlannedRename rename = outcome.rename();
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("path", rename.source().toString());
+        record.put("target", rename.target().toString());
+        record.put("status", outcome.status());
+        if (rename.collision()) {
+            record.put("collision", true);
+        }
+        if (rename.signature() != null) {
+            record.put("fileType", rename.signature().getFileType());
+        }
+        if (outcome.error() != null) {
+            record.put("error", outcome.error());
+        }
+        return record;
+    }
+
+    /**
+     * Добавляет в запись поля подписи файла.
+     *
+     * @param record поля записи
+     * @param signature подпись файла или {@code null}
+     */
+    private static void putSignature(Map<String, Object> record, FileSignature signature) {
+        record.put("detected", signature != null);
+        if (signature != null) {
+            record.put("extension", signature.getExtension());
+            record.put("mimeType", signature.getMimeType());
+            record.put("fileType", signature.getFileType());
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package org.example.watch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Наблюдение за деревом каталогов с объединением событий в пакеты.
+ *
+ * Построен на {@link WatchService}: каждый каталог дерева регистрируется
+ * отдельно, новые подкаталоги регистрируются по мере появления.
+ * События создания и изменения файла только откладывают его обработку:
+ * файл передается получателю, когда в течение периода тишины по нему
+ * не было событий, а размер и время изменения совпадают с замеченными
+ * при последнем событии. Готовые файлы передаются пакетами ограниченного
+ * размера. При переполнении очереди событий ({@code OVERFLOW})
+ * заново просматривается только каталог, события которого потеряны.
+ * При запуске просматривается все дерево, чтобы обработать уже лежащие файлы.
+ * Экземпляр предназначен для одного потока, вызывающего {@link #run()};
+ * {@link #close()} можно вызвать из любого потока.
+ */
+public final class DirectoryWatcher implements Closeable {
+    /**
+     * Логгер для записи информационных и отладочных сообщений наблюдения.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+    /**
+     * Корневой каталог.
+     */
+    private final Path root;
+
+    /**
+     * Период тишины в наносекундах, после которого файл считается записанным.
+     */
+    private final long quietNanos;
+
+    /**
+     * Максимальный размер пакета.
+     */
+    private final int maxBatch;
+
+    /**
+     * Получатель пакетов готовых файлов.
+     */
+    private final Consumer<List<Path>> sink;
+
+    /**
+     * Служба наблюдения файловой системы.
+     */
+    private final WatchService watchService;
+
+    /**
+     * Зарегистрированные каталоги по ключам наблюдения.
+     */
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    /**
+     * Ключи наблюдения по каталогам; обратный индекс {@link #directories}.
+     */
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+
+    /**
+     * Ожидающие файлы в порядке сроков обработки.
+     *
+     * Период тишины одинаков для всех файлов, поэтому файл с новым событием
+     * переносится в конец, и сроки в порядке обхода не убывают.
+     */
+    private final Map<Path, Pending> pending = new LinkedHashMap<>();
+
+    /**
+     * Создает наблюдатель.
+     *
+     * @param root корневой каталог
+     * @param quietPeriod время без изменений, после которого файл обрабатывается
+     * @param maxBatch максимальное количество файлов в пакете
+     * @param sink получатель пакетов; вызывается в потоке {@link #run()}
+     * @throws IOException если не удалось создать службу наблюдения
+     * @throws IllegalArgumentException если путь не является каталогом или параметры некорректны
+     */
+    public DirectoryWatcher(Path root, Duration quietPeriod, int maxBatch, Consumer<List<Path>> sink) throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Not a directory: " + root);
+        }
+        if (quietPeriod.isNegative() || maxBatch <= 0) {
+            throw new IllegalArgumentException("Invalid watch parameters: " + quietPeriod + ", " + maxBatch);
+        }
+        this.root = root;
+        this.quietNanos = quietPeriod.toNanos();
+        this.maxBatch = maxBatch;
+        this.sink = sink;
+        this.watchService = root.getFileSystem().newWatchService();
+    }
+
+    /**
+     * Наблюдает за деревом до закрытия наблюдателя или прерывания потока.
+     *
+     * @throws IOException если не удалось зарегистрировать корневой каталог
+     * @throws InterruptedException если поток прерван
+     */
+    public void run() throws IOException, InterruptedException {
+        // Ошибка регистрации корня прерывает наблюдение, а не оставляет его без событий
+        register(root);
+        scan(root);
+        logger.info("Watching {} ({} directories)", root, directories.size());
+        try {
+            while (true) {
+                WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(Math.max(0, nextDeadline() - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    handle(key);
+                    // Забираем накопившиеся ключи без ожидания, чтобы обработать всплеск событий целиком
+                    while ((key = watchService.poll()) != null) {
+                        handle(key);
+                    }
+                }
+                flushDue();
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.info("Stopped watching {}", root);
+        }
+    }
+
+    /**
+     * Прекращает наблюдение.
+     *
+     * @throws IOException если не удалось закрыть службу наблюдения
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * Обрабатывает события одного ключа наблюдения.
+     *
+     * @param key ключ наблюдения
+     */
+    private void handle(WatchKey key) {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+            if (kind == StandardWatchEventKinds.OVERFLOW) {
+                logger.warn("Watch events were lost, rescanning {}", directory != null ? directory : root);
+                scan(directory != null ? directory : root);
+                continue;
+            }
+            if (directory == null) {
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                pending.remove(path);
+            } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                    // Файлы могли появиться в каталоге до его регистрации
+                    scan(path);
+                }
+            } else {
+                touch(path);
+            }
+        }
+        if (!key.reset()) {
+            unregister(key);
+        }
+    }
+
+    /**
+     * Регистрирует каталоги поддерева и откладывает обработку его файлов.
+     *
+     * Ошибки доступа к отдельным элементам не прерывают просмотр.
+     *
+     * @param start корень просматриваемого поддерева
+     */
+    private void scan(Path start) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    register(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        touch(file, attrs);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    logger.warn("Cannot access {}: {}", file, exc.toString());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Failed to scan {}: {}", start, e.toString());
+        }
+    }
+
+    /**
+     * Регистрирует каталог, если он еще не зарегистрирован или его ключ стал недействительным.
+     *
+     * @param directory каталог
+     * @throws IOException если не удалось зарегистрировать каталог
+     */
+    private void register(Path directory) throws IOException {
+        WatchKey registered = keys.get(directory);
+        if (registered != null && registered.isValid()) {
+            return;
+        }
+        if (registered != null) {
+            unregister(registered);
+        }
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directories.put(key, directory);
+        keys.put(directory, key);
+    }
+
+    /**
+     * Удаляет недействительный ключ наблюдения из обоих индексов.
+     *
+     * Ключ каталога, удаленного и созданного заново, мог быть уже заменен
+     * новым; такая запись обратного индекса сохраняется.
+     *
+     * @param key ключ наблюдения
+     */
+    private void unregister(WatchKey key) {
+        Path directory = directories.remove(key);
+        if (directory != null) {
+            keys.remove(directory, key);
+        }
+    }
+
+    /**
+     * Откладывает обработку файла после события.
+     *
+     * @param file путь к файлу
+     */
+    private void touch(Path file) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (attrs.isRegularFile()) {
+                touch(file, attrs);
+            }
+        } catch (IOException e) {
+            // Файл уже удален или недоступен: событие удаления уберет его из ожидания
+            pending.remove(file);
+        }
+    }
+
+    /**
+     * Откладывает обработку файла до окончания периода тишины.
+     *
+     * @param file путь к файлу
+     * @param attrs атрибуты файла на момент события
+     */
+    private void touch(Path file, BasicFileAttributes attrs) {
+        pending.remove(file);
+        pending.put(file, new Pending(System.nanoTime() + quietNanos, attrs.size(), attrs.lastModifiedTime().toMillis()));
+    }
+
+    /**
+     * Возвращает ближайший срок обработки ожидающих файлов.
+     *
+     * @return срок в единицах {@link System#nanoTime()}
+     */
+    private long nextDeadline() {
+        return pending.isEmpty() ? Long.MAX_VALUE : pending.values().iterator().next().deadline();
+    }
+
+    /**
+     * Передает получателю файлы, период тишины которых истек.
+     *
+     * Файл, размер или время изменения которого отличаются от замеченных
+     * при последнем событии, откладывается еще на один период.
+     * Обход останавливается на первом файле, срок которого не наступил.
+     */
+    private void flushDue() {
+        long now = System.nanoTime();
+        List<Path> batch = new ArrayList<>();
+        Map<Path, Pending> changed = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<Path, Pending>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Pending> entry = it.next();
+            Pending state = entry.getValue();
+            if (state.deadline() - now > 0) {
+                break;
+            }
+            it.remove();
+            Path file = entry.getKey();
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                continue;
+            }
+            if (attrs.size() != state.size() || attrs.lastModifiedTime().toMillis() != state.modified()) {
+                changed.put(file, new Pending(now + quietNanos, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                continue;
+            }
+            batch.add(file);
+            if (batch.size() == maxBatch) {
+                sink.accept(List.copyOf(batch));
+                batch.clear();
+            }
+        }
+        // Новые сроки не раньше оставшихся, поэтому добавление в конец сохраняет порядок
+        pending.putAll(changed);
+        if (!batch.isEmpty()) {
+            sink.accept(List.copyOf(batch));
+        }
+    }
+
+    /**
+     * Состояние ожидающего файла.
+     *
+     * @param deadline срок обработки в единицах {@link System#nanoTime()}
+     * @param size размер файла при последнем событии
+     * @param modified время изменения файла при последнем событии в миллисекундах
+     */
+    private record Pending(long deadline, long size, long modified) {
+    }
+}
@@ -1,33 +1,36 @@
-INSERT INTO file_signatures (extension, mime_type, hex_signature, description, file_type) VALUES
-('jpg', 'image/jpeg', 'FFD8FF', 'JPEG изображение', 'IMAGE'),
-('jpeg', 'image/jpeg', 'FFD8FF', 'JPEG изображение', 'IMAGE'),
-('png', 'image/png', '89504E47', 'PNG изображение', 'IMAGE'),
-('gif', 'image/gif', '474946', 'GIF изображение', 'IMAGE'),
-('bmp', 'image/bmp', '424D', 'Bitmap изображение', 'IMAGE'),
-('webp', 'image/webp', '52494646', 'WebP изображение', 'IMAGE'),
-('tiff', 'image/tiff', '49492A00', 'TIFF изображение', 'IMAGE'),
+INSERT INTO file_signatures (extension, mime_type, hex_signature, signature_offset, signature_mask, sub_hex_signature, sub_signature_offset, description, file_type) VALUES
+('jpg', 'image/jpeg', 'FFD8FF', 0, NULL, NULL, NULL, 'JPEG изображение', 'IMAGE'),
+('jpeg', 'image/jpeg', 'FFD8FF', 0, NULL, NULL, NULL, 'JPEG изображение', 'IMAGE'),
+('png', 'image/png', '89504E47', 0, NULL, NULL, NULL, 'PNG изображение', 'IMAGE'),
+('gif', 'image/gif', '474946', 0, NULL, NULL, NULL, 'GIF изображение', 'IMAGE'),
+('bmp', 'image/bmp', '424D', 0, NULL, NULL, NULL, 'Bitmap изображение', 'IMAGE'),
+('webp', 'image/webp', '52494646', 0, NULL, '57454250', 8, 'WebP изображение', 'IMAGE'),
+('tiff', 'image/tiff', '49492A00', 0, NULL, NULL, NULL, 'TIFF изображение', 'IMAGE'),
 
-('mp4', 'video/mp4', '66747970', 'MP4 видео', 'VIDEO'),
-('avi', 'video/x-msvideo', '52494646', 'AVI видео', 'VIDEO'),
-('mov', 'video/quicktime', '6D6F6F76', 'QuickTime видео', 'VIDEO'),
-('mkv', 'video/x-matroska', '1A45DFA3', 'Matroska видео', 'VIDEO'),
-('wmv', 'video/x-ms-wmv', '3026B275', 'Windows Media Video', 'VIDEO'),
+('mp4', 'video/mp4', '66747970', 4, NULL, NULL, NULL, 'MP4 видео', 'VIDEO'),
+('avi', 'video/x-msvideo', '52494646', 0, NULL, '41564920', 8, 'AVI видео', 'VIDEO'),
+('mov', 'video/quicktime', '66747970', 4, NULL, '71742020', 8, 'QuickTime видео', 'VIDEO'),
+('mkv', 'video/x-matroska', '1A45DFA3', 0, NULL, NULL, NULL, 'Matroska видео', 'VIDEO'),
+('wmv', 'video/x-ms-wmv', '3026B275', 0, NULL, NULL, NULL, 'Windows Media Video', 'VIDEO'),
 
-('mp3', 'audio/mpeg', '494433', 'MP3 аудио', 'AUDIO'),
-('wav', 'audio/wav', '52494646', 'WAV аудио', 'AUDIO'),
-('flac', 'audio/flac', '664C6143', 'FLAC аудио', 'AUDIO'),
-('ogg', 'audio/ogg', '4F676753', 'OGG аудио', 'AUDIO'),
+('mp3', 'audio/mpeg', '494433', 0, NULL, NULL, NULL, 'MP3 аудио', 'AUDIO'),
+('wav', 'audio/wav', '52494646', 0, NULL, '57415645', 8, 'WAV аудио', 'AUDIO'),
+('flac', 'audio/flac', '664C6143', 0, NULL, NULL, NULL, 'FLAC аудио', 'AUDIO'),
+('ogg', 'audio/ogg', '4F676753', 0, NULL, NULL, NULL, 'OGG аудио', 'AUDIO'),
 
-('pdf', 'application/pdf', '25504446', 'PDF документ', 'DOCUMENT'),
-('docx', 'application/vnd.openxmlformats-office document.wordprocessingml.document', '504B0304', 'Microsoft Word документ', 'DOCUMENT'),
-('xlsx', 'application/vnd.openxmlformats-officedocument.spreadsheetml.sheet', '504B0304', 'Microsoft Excel таблица', 'DOCUMENT'),
-('txt', 'text/plain', '', 'Текстовый файл', 'DOCUMENT'),
+('pdf', 'application/pdf', '25504446', 0, NULL, NULL, NULL, 'PDF документ', 'DOCUMENT'),
+('docx', 'application/vnd.openxmlformats-office document.wordprocessingml.document', '504B0304', 0, NULL, '5B436F6E74656E745F54797065735D2E786D6C', 30, 'Microsoft Word документ', 'DOCUMENT'),
+('xlsx', 'application/vnd.openxmlformats-officedocument.spreadsheetml.sheet', '504B0304', 0, NULL, '5B436F6E74656E745F54797065735D2E786D6C', 30, 'Microsoft Excel таблица', 'DOCUMENT'),
+('pptx', 'application/vnd.openxmlformats-officedocument.presentationml.presentation', '504B0304', 0, NULL, '5B436F6E74656E745F54797065735D2E786D6C', 30, 'Microsoft PowerPoint презентация', 'DOCUMENT'),
+('txt', 'text/plain', '', 0, NULL, NULL, NULL, 'Текстовый файл', 'DOCUMENT'),
 
-('zip', 'application/zip', '504B0304', 'ZIP архив', 'ARCHIVE'),
-('rar', 'application/x-rar-compressed', '526172211A0700', '7-ZIP архив', 'ARCHIVE'),
-('7z', 'application/x-7z-compressed', '377ABCAF271C', '7-ZIP архив', 'ARCHIVE'),
-('tar', 'application/x-tar', '7461722000', 'TAR архив', 'ARCHIVE'),
-('gz', 'application/gzip', '1F8B08', 'GZIP архив', 'ARCHIVE'),
+('zip', 'application/zip', '504B0304', 0, NULL, NULL, NULL, 'ZIP архив', 'ARCHIVE'),
+('jar', 'application/java-archive', '504B0304', 0, NULL, NULL, NULL, 'Java архив', 'ARCHIVE'),
+('rar', 'application/x-rar-compressed', '526172211A0700', 0, NULL, NULL, NULL, '7-ZIP архив', 'ARCHIVE'),
+('7z', 'application/x-7z-compressed', '377ABCAF271C', 0, NULL, NULL, NULL, '7-ZIP архив', 'ARCHIVE'),
+('tar', 'application/x-tar', '7573746172', 257, NULL, NULL, NULL, 'TAR архив', 'ARCHIVE'),
+('gz', 'application/gzip', '1F8B08', 0, NULL, NULL, NULL, 'GZIP архив', 'ARCHIVE'),
 
-('exe', 'application/x-msdownload', '4D5A', 'Windows исполняемый файл', 'EXECUTABLE'),
-('dll', 'application/x-msdownload', '4D5A', 'Windows библиотека', 'EXECUTABLE');
\ No newline at end of file
+('exe', 'application/x-msdownload', '4D5A', 0, NULL, NULL, NULL, 'Windows исполняемый файл', 'EXECUTABLE'),
+('dll', 'application/x-msdownload', '4D5A', 0, NULL, NULL, NULL, 'Windows библиотека', 'EXECUTABLE'),
+('apk', 'application/vnd.android.package-archive', '504B0304', 0, NULL, NULL, NULL, 'Android пакет приложения', 'EXECUTABLE');
\ No newline at end of file